@@ -0,0 +1,180 @@
+package benchmark;
+
+import domain.Friendship;
+import domain.Message;
+import domain.Tuple;
+import domain.User;
+import enums.Friendshiprequest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates reproducible synthetic social networks for the benchmarks.
+ * Users get IDs 1..n; edges are returned as pairs of user IDs, each undirected edge once.
+ */
+public final class DataGenerator {
+    public static final String PASSWORD = "password"; // Clear-text password of every generated user
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private DataGenerator() {
+    }
+
+    /**
+     * Undirected edges of a graph, stored as two parallel arrays of user IDs.
+     */
+    public static final class Edges {
+        private final long[] from;
+        private final long[] to;
+        private final int size;
+
+        private Edges(long[] from, long[] to, int size) {
+            this.from = from;
+            this.to = to;
+            this.size = size;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public long from(int i) {
+            return from[i];
+        }
+
+        public long to(int i) {
+            return to[i];
+        }
+    }
+
+    /**
+     * Generates an Erdős–Rényi style graph: every edge joins two uniformly chosen users.
+     * Duplicate edges are not filtered out here; the graph structures ignore them.
+     * @param users the number of users
+     * @param averageDegree the average number of friends per user
+     * @param seed the random seed
+     * @return the edges
+     */
+    public static Edges erdosRenyi(int users, int averageDegree, long seed) {
+        Random random = new Random(seed);
+        int count = (int) Math.min(Integer.MAX_VALUE - 8, (long) users * averageDegree / 2);
+        long[] from = new long[count];
+        long[] to = new long[count];
+        int size = 0;
+        while (size < count) {
+            int a = random.nextInt(users);
+            int b = random.nextInt(users);
+            if (a != b) {
+                from[size] = a + 1;
+                to[size] = b + 1;
+                size++;
+            }
+        }
+        return new Edges(from, to, size);
+    }
+
+    /**
+     * Generates a power-law graph by Barabási–Albert preferential attachment:
+     * every new user befriends averageDegree / 2 existing users chosen proportionally to their degree,
+     * which produces the few very popular users real social networks have.
+     * @param users the number of users
+     * @param averageDegree the average number of friends per user
+     * @param seed the random seed
+     * @return the edges
+     */
+    public static Edges powerLaw(int users, int averageDegree, long seed) {
+        Random random = new Random(seed);
+        int perUser = Math.max(1, averageDegree / 2);
+        int count = (int) Math.min(Integer.MAX_VALUE - 8, (long) users * perUser);
+        long[] from = new long[count];
+        long[] to = new long[count];
+        // Every edge end is appended here, so a uniform pick is a pick proportional to degree
+        long[] ends = new long[2 * count];
+        int size = 0;
+        int endCount = 0;
+        for (int u = 1; u < users && size < count; u++) {
+            for (int k = 0; k < perUser && size < count; k++) {
+                long target = endCount == 0 || random.nextInt(4) == 0
+                        ? random.nextInt(u) + 1 // Occasionally attach uniformly so every user can be reached
+                        : ends[random.nextInt(endCount)];
+                if (target == u + 1) {
+                    target = random.nextInt(u) + 1; // The new user's own ends are already in the list
+                }
+                from[size] = u + 1;
+                to[size] = target;
+                size++;
+                ends[endCount++] = u + 1;
+                ends[endCount++] = target;
+            }
+        }
+        return new Edges(from, to, size);
+    }
+
+    /**
+     * Generates users with unique emails and the same clear-text password.
+     * @param count the number of users
+     * @param hashedPassword the password to store, as the Service stores it
+     * @return the users, with IDs 1..count
+     */
+    public static List<User> users(int count, String hashedPassword) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            User user = new User("First" + i, "Last" + i, email(i), hashedPassword);
+            user.setId((long) i);
+            users.add(user);
+        }
+        return users;
+    }
+
+    /**
+     * Returns the email of a generated user.
+     * @param id the ID of the user
+     * @return the email
+     */
+    public static String email(long id) {
+        return "user" + id + "@bench.local";
+    }
+
+    /**
+     * Turns edges into approved friendships.
+     * @param edges the edges
+     * @return the friendships
+     */
+    public static List<Friendship> friendships(Edges edges) {
+        List<Friendship> friendships = new ArrayList<>(edges.size());
+        for (int i = 0; i < edges.size(); i++) {
+            Friendship friendship = new Friendship(edges.from(i), edges.to(i), START.plusSeconds(i), Friendshiprequest.APROOVED);
+            friendship.setId(new Tuple<>(edges.from(i), edges.to(i)));
+            friendships.add(friendship);
+        }
+        return friendships;
+    }
+
+    /**
+     * Generates a chat-heavy workload: a few pairs of users exchange most of the messages.
+     * @param users the users, indexed by ID - 1
+     * @param edges the friendships the conversations follow
+     * @param messages the number of messages
+     * @param seed the random seed
+     * @return the messages, without IDs, in date order
+     */
+    public static List<Message> chatHeavy(List<User> users, Edges edges, int messages, long seed) {
+        Random random = new Random(seed);
+        int conversations = Math.max(1, Math.min(edges.size(), messages / 50));
+        List<Message> result = new ArrayList<>(messages);
+        for (int i = 0; i < messages; i++) {
+            // Squaring a uniform number skews the choice towards the first conversations
+            double r = random.nextDouble();
+            int edge = (int) (r * r * conversations);
+            User a = users.get((int) edges.from(edge) - 1);
+            User b = users.get((int) edges.to(edge) - 1);
+            boolean flip = random.nextBoolean();
+            result.add(new Message(flip ? b : a, Collections.singletonList(flip ? a : b),
+                    "message " + i, START.plusSeconds(i)));
+        }
+        return result;
+    }
+}
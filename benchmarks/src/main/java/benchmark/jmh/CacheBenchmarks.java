@@ -0,0 +1,103 @@
+package benchmark.jmh;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.WTinyLfuCache;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The W-TinyLFU user cache under Zipf-distributed lookups, the skew of real user traffic.
+ * The hits and misses counters give the hit rate next to the time per lookup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheBenchmarks {
+    private static final int LOOKUPS = 1 << 20; // Drawn keys the lookups cycle through, a power of two
+
+    @Param({"10000", "100000"})
+    public int users;
+
+    @Param({"1.0"})
+    public double exponent;
+
+    private WTinyLfuCache<Long, Long> cache;
+    private long[] keys;
+    private int next;
+
+    /**
+     * Counts the outcome of every lookup; JMH reports the counters as rates next to the score.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcomes {
+        public long hits;
+        public long misses;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            hits = 0;
+            misses = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cache = new WTinyLfuCache<>(Math.max(16, users / 100)); // 1% of the users, as in the application
+        keys = zipf(users, LOOKUPS, exponent, Network.SEED);
+    }
+
+    @Benchmark
+    public Long zipfLookup(Outcomes outcomes) {
+        long key = keys[next++ & (LOOKUPS - 1)];
+        Long value = cache.get(key);
+        if (value == null) {
+            outcomes.misses++;
+            cache.put(key, key);
+        } else {
+            outcomes.hits++;
+        }
+        return value;
+    }
+
+    /**
+     * Draws keys 1..n with Zipf-distributed popularity.
+     * @param n the number of distinct keys
+     * @param count the number of keys to draw
+     * @param exponent the skew, 1.0 being the classic Zipf law
+     * @param seed the random seed
+     * @return the drawn keys
+     */
+    private static long[] zipf(int n, int count, double exponent, long seed) {
+        double[] cumulative = new double[n];
+        double sum = 0;
+        for (int k = 1; k <= n; k++) {
+            sum += 1 / Math.pow(k, exponent);
+            cumulative[k - 1] = sum;
+        }
+        Random random = new Random(seed);
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            keys[i] = (index >= 0 ? index : -index - 1) + 1;
+        }
+        return keys;
+    }
+}
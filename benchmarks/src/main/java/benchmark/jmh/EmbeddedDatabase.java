@@ -0,0 +1,145 @@
+package benchmark.jmh;
+
+import domain.Friendship;
+import domain.Message;
+import domain.User;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import repository.BulkImporter;
+import repository.ConnectionPool;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * A throwaway PostgreSQL server, started from the embedded binaries, standing in for the application's database.
+ * It is created with db/schema.sql and loaded with BulkImporter, the way a real database would be filled.
+ */
+final class EmbeddedDatabase implements AutoCloseable {
+    private final EmbeddedPostgres postgres;
+    private final ConnectionPool pool;
+
+    private EmbeddedDatabase(EmbeddedPostgres postgres) {
+        this.postgres = postgres;
+        this.pool = new ConnectionPool(postgres.getJdbcUrl("postgres", "postgres"), "postgres", "");
+    }
+
+    /**
+     * Starts a server and loads a network into it.
+     * @param network the users, friendships and messages to load
+     * @return the running database
+     * @throws IOException if the server cannot be started
+     * @throws SQLException if the schema or the data cannot be loaded
+     */
+    static EmbeddedDatabase start(Network network) throws IOException, SQLException {
+        EmbeddedDatabase database = new EmbeddedDatabase(EmbeddedPostgres.builder().start());
+        try {
+            database.createSchema();
+            database.load(network);
+            return database;
+        } catch (IOException | SQLException | RuntimeException e) {
+            database.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the JDBC URL of the database, for benchmarks that open their own connections.
+     * @return the URL, for the user "postgres" without a password
+     */
+    String getJdbcUrl() {
+        return postgres.getJdbcUrl("postgres", "postgres");
+    }
+
+    /**
+     * Gets the connections to the database.
+     * @return the pool
+     */
+    ConnectionPool getPool() {
+        return pool;
+    }
+
+    private void createSchema() throws IOException, SQLException {
+        String schema;
+        try (InputStream in = EmbeddedDatabase.class.getResourceAsStream("/db/schema.sql")) {
+            if (in == null) {
+                throw new IOException("db/schema.sql is not on the classpath");
+            }
+            schema = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        try (Connection connection = pool.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(schema);
+        }
+    }
+
+    private void load(Network network) throws IOException, SQLException {
+        Path directory = Files.createTempDirectory("social-network-db");
+        try {
+            Path users = write(directory.resolve("users.txt"), out -> {
+                for (User user : network.users) {
+                    out.println(user.getId() + ";" + user.getFirstName() + ";" + user.getLastName() + ";"
+                            + user.getEmail() + ";" + user.getPassword());
+                }
+            });
+            Path friendships = write(directory.resolve("friendships.txt"), out -> {
+                for (Friendship friendship : network.friendships) {
+                    out.println(friendship.getIdUser1() + " " + friendship.getIdUser2() + " "
+                            + friendship.getDate() + " " + friendship.getFriendshiprequest());
+                }
+            });
+            Path messages = write(directory.resolve("messages.csv"), out -> {
+                for (Message message : network.messages) {
+                    out.println(message.getFrom().getId() + "," + message.getTo().get(0).getId() + ","
+                            + message.getDate() + "," + message.getMessage());
+                }
+            });
+            BulkImporter importer = new BulkImporter(pool);
+            importer.importUsers(users);
+            importer.importFriendships(friendships);
+            importer.importMessages(messages);
+            try (Connection connection = pool.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("ANALYZE");
+            }
+        } finally {
+            try (var files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    private interface Lines {
+        void writeTo(PrintWriter out);
+    }
+
+    private static Path write(Path file, Lines lines) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            lines.writeTo(out);
+        }
+        return file;
+    }
+
+    /**
+     * Closes the connections and stops the server, deleting its data.
+     */
+    @Override
+    public void close() {
+        pool.close();
+        try {
+            postgres.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package benchmark.jmh;
+
+import enums.DiameterMode;
+import enums.RecommendationScore;
+import graph.ConnectedComponents;
+import graph.CsrGraph;
+import graph.DiameterEngine;
+import graph.DiameterResult;
+import graph.FriendRecommender;
+import graph.FriendshipGraph;
+import graph.ParallelBfs;
+import graph.Recommendation;
+import graph.SetIntersection;
+import graph.TriangleCounts;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The graph algorithms behind the community, distance and suggestion features.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g") // Room for the 10M-edge graph
+public class GraphBenchmarks {
+    private static final int SAMPLE = 1_024; // Vertices the calls cycle through, a power of two
+
+    @Param({"10000", "100000", "1000000"}) // At degree 20, 1M users have 10M friendships
+    public int users;
+
+    @Param({"20"})
+    public int degree;
+
+    @Param({"powerlaw", "random"})
+    public String graph;
+
+    private Network network;
+    private FriendshipGraph friends;
+    private CsrGraph csr;
+    private ConnectedComponents components;
+    private DiameterEngine diameters;
+    private ParallelBfs bfs;
+    private int[] sources;
+    private int[] targets;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        network = Network.generate(users, degree, graph);
+        friends = buildGraph();
+        csr = friends.toCsr();
+        components = ConnectedComponents.of(csr);
+        diameters = new DiameterEngine(csr);
+        bfs = new ParallelBfs(csr);
+        Random random = new Random(Network.SEED);
+        sources = new int[SAMPLE];
+        targets = new int[SAMPLE];
+        for (int i = 0; i < SAMPLE; i++) {
+            sources[i] = random.nextInt(csr.vertexBound());
+            targets[i] = random.nextInt(csr.vertexBound());
+        }
+    }
+
+    private FriendshipGraph buildGraph() {
+        FriendshipGraph graph = new FriendshipGraph(network.size);
+        for (long id = 1; id <= network.size; id++) {
+            graph.addVertex(id);
+        }
+        for (int i = 0; i < network.edges.size(); i++) {
+            graph.addEdge(network.edges.from(i), network.edges.to(i));
+        }
+        return graph;
+    }
+
+    @Benchmark
+    public FriendshipGraph build() {
+        return buildGraph();
+    }
+
+    @Benchmark
+    public CsrGraph toCsr() {
+        return friends.toCsr();
+    }
+
+    @Benchmark
+    public ConnectedComponents connectedComponents() {
+        return ConnectedComponents.of(csr);
+    }
+
+    @Benchmark
+    public TriangleCounts triangles() {
+        return TriangleCounts.of(csr);
+    }
+
+    @Benchmark
+    public DiameterResult diameter() {
+        return diameters.largest(components, DiameterMode.AUTO);
+    }
+
+    @Benchmark
+    public int bfsDistance() {
+        int i = next++ & (SAMPLE - 1);
+        return bfs.distance(sources[i], targets[i]);
+    }
+
+    @Benchmark
+    public int[] withinTwoHops() {
+        return bfs.withinHops(sources[next++ & (SAMPLE - 1)], 2);
+    }
+
+    @Benchmark
+    public int setIntersection() {
+        int i = next++ & (SAMPLE - 1);
+        int[] offsets = csr.offsets();
+        int[] adjacency = csr.targets();
+        int a = sources[i];
+        int b = targets[i];
+        return SetIntersection.count(adjacency, offsets[a], offsets[a + 1], adjacency, offsets[b], offsets[b + 1]);
+    }
+
+    /**
+     * A fresh recommender per call, so its per-user suggestion cache does not hide the work.
+     */
+    @Benchmark
+    public List<Recommendation> recommend() {
+        FriendRecommender recommender = new FriendRecommender(friends, friends);
+        return recommender.recommend(friends.idOf(sources[next++ & (SAMPLE - 1)]), 10, RecommendationScore.ADAMIC_ADAR);
+    }
+}
@@ -0,0 +1,192 @@
+package benchmark.jmh;
+
+import graph.ConnectedComponents;
+import graph.FriendshipGraph;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import service.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * FriendshipGraph against the Map&lt;Long, List&lt;Long&gt;&gt; adjacency list the Service used before it,
+ * for building the graph, counting communities and the heap each edge costs.
+ * The heap benchmarks run once per fork and report the retained bytes per edge in the bytesPerEdge counter;
+ * serviceHeapPerEdge measures everything the Service keeps besides its repositories: both friendship graphs,
+ * the incremental communities, the recommender and the snapshot behind distance queries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphStructureBenchmarks {
+
+    @Param({"10000", "100000"})
+    public int users;
+
+    @Param({"20"})
+    public int degree;
+
+    @Param({"powerlaw", "random"})
+    public String graph;
+
+    private Network network;
+    private Map<Long, List<Long>> boxed;
+    private FriendshipGraph primitive;
+
+    /**
+     * Receives the retained heap of a structure; JMH reports it next to the time it took to build.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long bytesPerEdge;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytesPerEdge = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        network = Network.generate(users, degree, graph);
+        boxed = buildBoxed();
+        primitive = buildPrimitive();
+    }
+
+    /**
+     * Builds the adjacency list the way Service.buildAdjacencyList used to.
+     */
+    private Map<Long, List<Long>> buildBoxed() {
+        Map<Long, List<Long>> adjacency = new HashMap<>();
+        for (int i = 0; i < network.edges.size(); i++) {
+            Long userId1 = network.edges.from(i);
+            Long userId2 = network.edges.to(i);
+            adjacency.computeIfAbsent(userId1, k -> new ArrayList<>()).add(userId2);
+            adjacency.computeIfAbsent(userId2, k -> new ArrayList<>()).add(userId1);
+        }
+        return adjacency;
+    }
+
+    private FriendshipGraph buildPrimitive() {
+        FriendshipGraph graph = new FriendshipGraph(network.size);
+        for (long id = 1; id <= network.size; id++) {
+            graph.addVertex(id);
+        }
+        for (int i = 0; i < network.edges.size(); i++) {
+            graph.addEdge(network.edges.from(i), network.edges.to(i));
+        }
+        return graph;
+    }
+
+    @Benchmark
+    public Map<Long, List<Long>> boxedBuild() {
+        return buildBoxed();
+    }
+
+    @Benchmark
+    public FriendshipGraph primitiveBuild() {
+        return buildPrimitive();
+    }
+
+    /**
+     * Counts communities with the depth-first search the Service used to run over the adjacency list.
+     * The search keeps its own stack rather than recursing, which overflowed the thread stack on large communities.
+     */
+    @Benchmark
+    public int boxedCommunities() {
+        Set<Long> visited = new HashSet<>();
+        Deque<Long> stack = new ArrayDeque<>();
+        int communities = 0;
+        for (long id = 1; id <= network.size; id++) {
+            if (visited.add(id)) {
+                communities++;
+                stack.push(id);
+                while (!stack.isEmpty()) {
+                    for (Long friendId : boxed.getOrDefault(stack.pop(), List.of())) {
+                        if (visited.add(friendId)) {
+                            stack.push(friendId);
+                        }
+                    }
+                }
+            }
+        }
+        return communities;
+    }
+
+    @Benchmark
+    public int primitiveCommunities() {
+        return ConnectedComponents.of(primitive.toCsr()).count();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    public Object boxedHeapPerEdge(Footprint footprint) {
+        long before = usedHeap();
+        Map<Long, List<Long>> adjacency = buildBoxed();
+        footprint.bytesPerEdge = (usedHeap() - before) / network.edges.size();
+        return adjacency;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    public Object primitiveHeapPerEdge(Footprint footprint) {
+        long before = usedHeap();
+        FriendshipGraph graph = buildPrimitive();
+        footprint.bytesPerEdge = (usedHeap() - before) / network.edges.size();
+        return graph;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    public Object serviceHeapPerEdge(Footprint footprint) {
+        Network.Repositories repositories = network.inMemoryRepositories();
+        long before = usedHeap();
+        Service service = repositories.service();
+        service.getDistance(network.edges.from(0), network.edges.to(0)); // Takes the snapshot distance queries reuse
+        footprint.bytesPerEdge = (usedHeap() - before) / network.edges.size();
+        return service;
+    }
+
+    /**
+     * Measures the heap in use after collecting everything unreachable.
+     * @return the bytes in use
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) { // A collection can leave garbage that the next one frees
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+}
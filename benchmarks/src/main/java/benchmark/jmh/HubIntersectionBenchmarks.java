@@ -0,0 +1,153 @@
+package benchmark.jmh;
+
+import graph.CsrGraph;
+import graph.FriendshipGraph;
+import graph.SetIntersection;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mutual-friend intersections involving hubs, users with tens of thousands of friends.
+ * Two hubs have neighbor arrays of similar length and take the merge path; a hub and an ordinary user
+ * differ by more than SetIntersection.GALLOP_RATIO and take the galloping path, which linearMerge
+ * compares with a plain merge of the same arrays.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HubIntersectionBenchmarks {
+    private static final int HUBS = 8; // Hubs planted in the network
+    private static final int SAMPLE = 1_024; // Ordinary users the hubs are intersected with, a power of two
+
+    @Param({"200000"})
+    public int users;
+
+    @Param({"10000", "100000"})
+    public int hubDegree;
+
+    private FriendshipGraph friends;
+    private int[] offsets;
+    private int[] adjacency;
+    private int[] hubs; // Vertices of the hubs
+    private long[] hubIds;
+    private int[] ordinary; // Vertices of ordinary users
+    private long[] ordinaryIds;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        if (hubDegree > users) {
+            throw new IllegalStateException("A hub cannot have more friends than there are users");
+        }
+        Network network = Network.generate(users, 20, "powerlaw");
+        friends = new FriendshipGraph(users + HUBS);
+        for (long id = 1; id <= users; id++) {
+            friends.addVertex(id);
+        }
+        for (int i = 0; i < network.edges.size(); i++) {
+            friends.addEdge(network.edges.from(i), network.edges.to(i));
+        }
+        // Each hub befriends hubDegree distinct users drawn at random, so hubs share part of their friends
+        Random random = new Random(Network.SEED);
+        hubIds = new long[HUBS];
+        for (int h = 0; h < HUBS; h++) {
+            long hubId = users + 1L + h;
+            hubIds[h] = hubId;
+            friends.addVertex(hubId);
+            while (friends.degree(friends.indexOf(hubId)) < hubDegree) {
+                friends.addEdge(hubId, random.nextInt(users) + 1L);
+            }
+        }
+
+        CsrGraph csr = friends.toCsr();
+        offsets = csr.offsets();
+        adjacency = csr.targets();
+        hubs = new int[HUBS];
+        for (int v = 0; v < csr.vertexBound(); v++) {
+            for (int h = 0; h < HUBS; h++) {
+                if (csr.isPresent(v) && csr.idOf(v) == hubIds[h]) {
+                    hubs[h] = v;
+                }
+            }
+        }
+        ordinary = new int[SAMPLE];
+        ordinaryIds = new long[SAMPLE];
+        for (int i = 0; i < SAMPLE; i++) {
+            int v;
+            do {
+                v = random.nextInt(csr.vertexBound());
+            } while (!csr.isPresent(v) || csr.idOf(v) > users || csr.degree(v) == 0);
+            ordinary[i] = v;
+            ordinaryIds[i] = csr.idOf(v);
+        }
+    }
+
+    private int nextHub() {
+        return hubs[next & (HUBS - 1)];
+    }
+
+    @Benchmark
+    public int hubAndHubMerge() {
+        int a = hubs[next++ & (HUBS - 1)];
+        int b = hubs[next & (HUBS - 1)];
+        return SetIntersection.count(adjacency, offsets[a], offsets[a + 1], adjacency, offsets[b], offsets[b + 1]);
+    }
+
+    @Benchmark
+    public int hubAndUserGallop() {
+        int hub = nextHub();
+        int user = ordinary[next++ & (SAMPLE - 1)];
+        return SetIntersection.count(adjacency, offsets[user], offsets[user + 1], adjacency, offsets[hub], offsets[hub + 1]);
+    }
+
+    /**
+     * The same intersections as hubAndUserGallop through a plain merge, the cost galloping avoids.
+     */
+    @Benchmark
+    public int hubAndUserLinearMerge() {
+        int hub = nextHub();
+        int user = ordinary[next++ & (SAMPLE - 1)];
+        int i = offsets[user];
+        int j = offsets[hub];
+        int count = 0;
+        while (i < offsets[user + 1] && j < offsets[hub + 1]) {
+            int x = adjacency[i];
+            int y = adjacency[j];
+            if (x == y) {
+                count++;
+                i++;
+                j++;
+            } else if (x < y) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Mutual friends of a hub and an ordinary user as the Service asks for them, by user ID.
+     */
+    @Benchmark
+    public long[] hubAndUserCommonNeighbors() {
+        long hubId = hubIds[next & (HUBS - 1)];
+        return friends.commonNeighbors(hubId, ordinaryIds[next++ & (SAMPLE - 1)]);
+    }
+}
@@ -0,0 +1,98 @@
+package benchmark.jmh;
+
+import domain.Friendship;
+import domain.Tuple;
+import domain.User;
+import domain.validators.UserValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.ConnectionPool;
+import repository.FriendshipsRepoBD;
+import repository.UserRepoBD;
+
+import java.sql.DriverManager;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Primary-key lookups on PostgreSQL, first re-preparing every query as before the statement cache
+ * with the driver's default prepare threshold, then through the statement cache with the pool's threshold.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JdbcBenchmarks {
+    private static final int SAMPLE = 1_024; // IDs the lookups cycle through, a power of two
+
+    @Param({"10000"})
+    public int users;
+
+    @Param({"0", "64"})
+    public int statementCache;
+
+    private EmbeddedDatabase database;
+    private ConnectionPool pool;
+    private UserRepoBD userRepo;
+    private FriendshipsRepoBD friendshipRepo;
+    private long[] userIds;
+    private Tuple<Long, Long>[] friendshipIds;
+    private int next;
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void setUp() throws Exception {
+        Network network = Network.generate(users, 20, "powerlaw");
+        database = EmbeddedDatabase.start(network);
+        Properties properties = new Properties();
+        properties.setProperty("user", "postgres");
+        if (statementCache > 0) {
+            properties.setProperty("prepareThreshold", String.valueOf(ConnectionPool.DEFAULT_PREPARE_THRESHOLD));
+        }
+        pool = new ConnectionPool(() -> DriverManager.getConnection(database.getJdbcUrl(), properties),
+                ConnectionPool.DEFAULT_MAX_SIZE, ConnectionPool.DEFAULT_MAX_WAIT_MILLIS,
+                ConnectionPool.DEFAULT_IDLE_TIMEOUT_MILLIS, ConnectionPool.DEFAULT_VALIDATION_TIMEOUT_SECONDS,
+                statementCache);
+        userRepo = new UserRepoBD(pool, new UserValidator());
+        friendshipRepo = new FriendshipsRepoBD(pool);
+
+        Random random = new Random(Network.SEED);
+        userIds = new long[SAMPLE];
+        friendshipIds = new Tuple[SAMPLE];
+        for (int i = 0; i < SAMPLE; i++) {
+            userIds[i] = random.nextInt(users) + 1;
+            friendshipIds[i] = network.friendships.get(random.nextInt(network.friendships.size())).getId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.close();
+        database.close();
+    }
+
+    @Benchmark
+    public Optional<User> usersFindOne() {
+        return userRepo.findOne(userIds[next++ & (SAMPLE - 1)]);
+    }
+
+    @Benchmark
+    public Optional<Friendship> friendshipsFindOne() {
+        return friendshipRepo.findOne(friendshipIds[next++ & (SAMPLE - 1)]);
+    }
+}
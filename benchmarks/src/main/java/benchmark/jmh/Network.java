@@ -0,0 +1,104 @@
+package benchmark.jmh;
+
+import benchmark.DataGenerator;
+import domain.Friendship;
+import domain.Message;
+import domain.User;
+import domain.validators.FriendshipValidator;
+import domain.validators.UserValidator;
+import repository.InMemoryFriendshipRepository;
+import repository.InMemoryMessageRepository;
+import repository.InMemoryUserRepository;
+import service.Service;
+
+import java.util.List;
+
+/**
+ * A synthetic social network shared by the benchmarks: users 1..n, their friendships and a chat-heavy message log.
+ * Every user's password is DataGenerator.PASSWORD, stored hashed as Service.addUser would store it.
+ */
+final class Network {
+    static final long SEED = 42;
+    static final int MESSAGES = 10_000; // Messages in the chat-heavy log
+
+    final int size;
+    final DataGenerator.Edges edges;
+    final List<User> users;
+    final List<Friendship> friendships;
+    final List<Message> messages;
+
+    private Network(int size, DataGenerator.Edges edges, List<User> users, List<Message> messages) {
+        this.size = size;
+        this.edges = edges;
+        this.users = users;
+        this.friendships = DataGenerator.friendships(edges);
+        this.messages = messages;
+    }
+
+    /**
+     * Generates a network.
+     * @param size the number of users
+     * @param degree the average number of friends per user
+     * @param graph the generator, "powerlaw" or "random"
+     * @return the network
+     */
+    static Network generate(int size, int degree, String graph) {
+        DataGenerator.Edges edges = graph.equals("random")
+                ? DataGenerator.erdosRenyi(size, degree, SEED)
+                : DataGenerator.powerLaw(size, degree, SEED);
+        String hashed = inMemoryService().hashPassword(DataGenerator.PASSWORD);
+        List<User> users = DataGenerator.users(size, hashed);
+        return new Network(size, edges, users, DataGenerator.chatHeavy(users, edges, MESSAGES, SEED));
+    }
+
+    /**
+     * The in-memory repositories of a network, kept apart from the Service so their footprint can be told apart.
+     */
+    static final class Repositories {
+        final InMemoryUserRepository users = new InMemoryUserRepository(new UserValidator());
+        final InMemoryFriendshipRepository friendships = new InMemoryFriendshipRepository(new FriendshipValidator());
+        final InMemoryMessageRepository messages = new InMemoryMessageRepository(message -> {
+        });
+
+        /**
+         * Builds a service over the repositories.
+         * @return the service
+         */
+        Service service() {
+            return new Service(users, friendships, messages);
+        }
+    }
+
+    /**
+     * Fills in-memory repositories with the whole network.
+     * @return the repositories
+     */
+    Repositories inMemoryRepositories() {
+        Repositories repositories = new Repositories();
+        for (User user : users) {
+            repositories.users.save(user);
+        }
+        for (Friendship friendship : friendships) {
+            repositories.friendships.save(friendship);
+        }
+        for (Message message : messages) {
+            repositories.messages.save(message);
+        }
+        return repositories;
+    }
+
+    /**
+     * Builds a service over in-memory repositories holding the whole network.
+     * @return the service
+     */
+    Service inMemory() {
+        return inMemoryRepositories().service();
+    }
+
+    private static Service inMemoryService() {
+        return new Service(new InMemoryUserRepository(new UserValidator()),
+                new InMemoryFriendshipRepository(new FriendshipValidator()),
+                new InMemoryMessageRepository(message -> {
+                }));
+    }
+}
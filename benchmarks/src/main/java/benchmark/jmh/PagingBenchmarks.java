@@ -0,0 +1,96 @@
+package benchmark.jmh;
+
+import domain.CursorPage;
+import domain.CursorPageable;
+import domain.Friendship;
+import domain.Page;
+import domain.Pageable;
+import domain.Tuple;
+import domain.validators.FriendshipValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.FriendshipsRepoBD;
+import repository.InMemoryFriendshipRepository;
+import repository.PagingRepo;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Page 1 against page 10,000 of the approved friendships, read with LIMIT/OFFSET and with a keyset cursor.
+ * An offset page skips every row before it, so its cost grows with its depth; a keyset page starts at its cursor.
+ * The default network has 500,000 friendships, 25,000 pages of 20.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PagingBenchmarks {
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"50000"})
+    public int users;
+
+    @Param({"20"})
+    public int degree;
+
+    @Param({"1", "10000"})
+    public int page;
+
+    @Param({"memory", "postgres"})
+    public String store;
+
+    private EmbeddedDatabase database;
+    private PagingRepo<Tuple<Long, Long>, Friendship> friendships;
+    private Tuple<Long, Long> cursor; // Key of the last friendship before the page, null for page 1
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Network network = Network.generate(users, degree, "powerlaw");
+        if (network.friendships.size() < (long) page * PAGE_SIZE) {
+            throw new IllegalStateException("Page " + page + " is past the last of " + network.friendships.size() + " friendships");
+        }
+        if (store.equals("postgres")) {
+            database = EmbeddedDatabase.start(network);
+            friendships = new FriendshipsRepoBD(database.getPool());
+        } else {
+            InMemoryFriendshipRepository memory = new InMemoryFriendshipRepository(new FriendshipValidator());
+            for (Friendship friendship : network.friendships) {
+                memory.save(friendship);
+            }
+            friendships = memory;
+        }
+        for (int p = 1; p < page; p++) {
+            cursor = friendships.findAllAfter(new CursorPageable<>(PAGE_SIZE, cursor)).getNextKey();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    @Benchmark
+    public Page<Friendship> offset() {
+        return friendships.findAllOnPage(new Pageable(PAGE_SIZE, page - 1));
+    }
+
+    @Benchmark
+    public CursorPage<Friendship, Tuple<Long, Long>> keyset() {
+        return friendships.findAllAfter(new CursorPageable<>(PAGE_SIZE, cursor));
+    }
+}
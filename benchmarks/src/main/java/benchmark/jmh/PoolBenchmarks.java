@@ -0,0 +1,126 @@
+package benchmark.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.ConnectionPool;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The connection pool's own overhead, measured against stand-in connections that cost nothing,
+ * with and without the per-connection statement cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PoolBenchmarks {
+
+    @Param({"0", "64"})
+    public int statementCache;
+
+    private ConnectionPool pool;
+    private long next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pool = new ConnectionPool(PoolBenchmarks::standInConnection,
+                ConnectionPool.DEFAULT_MAX_SIZE, ConnectionPool.DEFAULT_MAX_WAIT_MILLIS,
+                ConnectionPool.DEFAULT_IDLE_TIMEOUT_MILLIS, ConnectionPool.DEFAULT_VALIDATION_TIMEOUT_SECONDS,
+                statementCache);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Benchmark
+    public Connection borrowAndReturn() throws SQLException {
+        Connection connection = pool.getConnection();
+        connection.close();
+        return connection;
+    }
+
+    /**
+     * Stand-in statements cost nothing to prepare, so this is the pool's own overhead per query.
+     */
+    @Benchmark
+    public PreparedStatement prepareStatement() throws SQLException {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT * FROM users WHERE user_id = ?")) {
+            statement.setLong(1, next++);
+            return statement;
+        }
+    }
+
+    /**
+     * Opens a stand-in connection that answers the calls the pool makes.
+     * @return the connection
+     */
+    private static Connection standInConnection() {
+        boolean[] closed = {false};
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "isValid":
+                        case "getAutoCommit":
+                            return true;
+                        case "prepareStatement":
+                            return standInStatement();
+                        case "isClosed":
+                            return closed[0];
+                        case "close":
+                            closed[0] = true;
+                            return null;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    /**
+     * Creates a stand-in prepared statement that accepts every call and returns nothing.
+     * @return the statement
+     */
+    private static PreparedStatement standInStatement() {
+        boolean[] closed = {false};
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "isClosed":
+                            return closed[0];
+                        case "close":
+                            closed[0] = true;
+                            return null;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            return null;
+                    }
+                });
+    }
+}
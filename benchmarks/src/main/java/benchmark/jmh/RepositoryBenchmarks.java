@@ -0,0 +1,135 @@
+package benchmark.jmh;
+
+import benchmark.DataGenerator;
+import domain.Friendship;
+import domain.User;
+import domain.validators.FriendshipValidator;
+import domain.validators.UserValidator;
+import enums.FsyncPolicy;
+import enums.SnapshotFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.FriendshipRepository;
+import repository.InMemoryRepository;
+import repository.UserRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * The in-memory repository lookups and the file repositories' change log and snapshot loading.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmarks {
+    private static final int SAMPLE = 1_024; // IDs the lookups cycle through, a power of two
+
+    @Param({"10000", "100000"})
+    public int users;
+
+    @Param({"20"})
+    public int degree;
+
+    @Param({"powerlaw"})
+    public String graph;
+
+    private InMemoryRepository<Long, User> memory;
+    private long[] ids;
+    private Path directory;
+    private UserRepository userFile;
+    private String textSnapshot;
+    private String binarySnapshot;
+    private long nextId;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Network network = Network.generate(users, degree, graph);
+        memory = new InMemoryRepository<>(new UserValidator());
+        for (User user : network.users) {
+            memory.save(user);
+        }
+        Random random = new Random(Network.SEED);
+        ids = new long[SAMPLE];
+        for (int i = 0; i < SAMPLE; i++) {
+            ids[i] = random.nextInt(users) + 1;
+        }
+
+        directory = Files.createTempDirectory("social-network-jmh");
+        // Every save appends one record to the change log
+        userFile = new UserRepository(new UserValidator(), directory.resolve("users.txt").toString(), FsyncPolicy.NEVER);
+        nextId = users + 1L;
+
+        FriendshipRepository friendships = new FriendshipRepository(new FriendshipValidator(),
+                directory.resolve("friendships.txt").toString(), FsyncPolicy.NEVER);
+        for (Friendship friendship : network.friendships) {
+            friendships.save(friendship);
+        }
+        textSnapshot = directory.resolve("friendships-text.txt").toString();
+        binarySnapshot = directory.resolve("friendships.bin").toString();
+        friendships.exportSnapshot(textSnapshot, SnapshotFormat.TEXT);
+        friendships.exportSnapshot(binarySnapshot, SnapshotFormat.BINARY);
+        friendships.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        userFile.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public Optional<User> memoryFindOne() {
+        return memory.findOne(ids[next++ & (SAMPLE - 1)]);
+    }
+
+    @Benchmark
+    public Optional<User> fileSave() {
+        long id = nextId++;
+        User user = new User("First" + id, "Last" + id, DataGenerator.email(id), "hash");
+        user.setId(id);
+        return userFile.save(user);
+    }
+
+    @Benchmark
+    public FriendshipRepository fileLoadText() {
+        return loadAndClose(textSnapshot, SnapshotFormat.TEXT);
+    }
+
+    @Benchmark
+    public FriendshipRepository fileLoadBinary() {
+        return loadAndClose(binarySnapshot, SnapshotFormat.BINARY);
+    }
+
+    private static FriendshipRepository loadAndClose(String fileName, SnapshotFormat format) {
+        FriendshipRepository repository = new FriendshipRepository(new FriendshipValidator(), fileName,
+                FsyncPolicy.NEVER, format);
+        repository.close();
+        return repository;
+    }
+}
@@ -0,0 +1,118 @@
+package benchmark.jmh;
+
+import benchmark.DataGenerator;
+import domain.FriendSuggestion;
+import domain.Message;
+import domain.User;
+import domain.validators.UserValidator;
+import enums.RecommendationScore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import repository.FriendshipsRepoBD;
+import repository.MessageRepoBD;
+import repository.UserRepoBD;
+import service.Service;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Service calls behind the login, friends and chat views, on in-memory repositories and on PostgreSQL.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmarks {
+    private static final int SAMPLE = 1_024; // Users the calls cycle through, a power of two
+
+    @Param({"10000", "100000"})
+    public int users;
+
+    @Param({"20"})
+    public int degree;
+
+    @Param({"powerlaw", "random"})
+    public String graph;
+
+    @Param({"memory", "postgres"})
+    public String store;
+
+    private EmbeddedDatabase database;
+    private Service service;
+    private User[] sample;
+    private User chatter;
+    private User partner;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Network network = Network.generate(users, degree, graph);
+        if (store.equals("postgres")) {
+            database = EmbeddedDatabase.start(network);
+            UserRepoBD userRepo = new UserRepoBD(database.getPool(), new UserValidator());
+            service = new Service(userRepo, new FriendshipsRepoBD(database.getPool()),
+                    new MessageRepoBD(userRepo, database.getPool()));
+        } else {
+            service = network.inMemory();
+        }
+        Random random = new Random(Network.SEED);
+        sample = new User[SAMPLE];
+        for (int i = 0; i < SAMPLE; i++) {
+            sample[i] = service.find_user((long) random.nextInt(users) + 1).orElseThrow();
+        }
+        // The chat-heavy log concentrates messages on the first friendships
+        chatter = service.find_user(network.edges.from(0)).orElseThrow();
+        partner = service.find_user(network.edges.to(0)).orElseThrow();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (database != null) {
+            database.close();
+        }
+    }
+
+    private User nextUser() {
+        return sample[next++ & (SAMPLE - 1)];
+    }
+
+    @Benchmark
+    public User login() {
+        return service.login(nextUser().getEmail(), DataGenerator.PASSWORD);
+    }
+
+    @Benchmark
+    public List<User> getFriends() {
+        return service.getFriends(nextUser());
+    }
+
+    @Benchmark
+    public List<Message> getMessagesBetween() {
+        return service.getMessagesBetween(chatter, partner);
+    }
+
+    @Benchmark
+    public List<FriendSuggestion> getFriendSuggestions() {
+        return service.getFriendSuggestions(nextUser(), 10, RecommendationScore.MUTUAL_FRIENDS);
+    }
+
+    @Benchmark
+    public int getNumberOfCommunities() {
+        return service.getNumberOfCommunities();
+    }
+}
@@ -0,0 +1,20 @@
+-- One-off migration, run by hand once before schema.sql creates friendships_pair_idx.
+-- It PERMANENTLY DELETES rows: databases created before that index may hold the same pair of users
+-- in both directions, and only one row per unordered pair is kept, an approved one first,
+-- then a pending one, then the oldest. Back up the friendships table before running it.
+
+BEGIN;
+
+DELETE FROM friendships
+WHERE ctid IN (
+    SELECT ctid FROM (
+        SELECT ctid, ROW_NUMBER() OVER (
+                   PARTITION BY LEAST(user_id_1, user_id_2), GREATEST(user_id_1, user_id_2)
+                   ORDER BY CASE request WHEN 'APROOVED' THEN 0 WHEN 'PENDING' THEN 1 ELSE 2 END, date
+               ) AS rank
+        FROM friendships
+    ) ranked
+    WHERE rank > 1
+);
+
+COMMIT;
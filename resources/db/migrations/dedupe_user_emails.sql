@@ -0,0 +1,46 @@
+-- One-off migration, run by hand once before schema.sql creates the unique users_email_key index.
+-- It PERMANENTLY DELETES rows: when several users share an email, the oldest (smallest user_id) is kept,
+-- the messages and friendships of the others are moved to it, and the others are deleted.
+-- Friendships that become a user's friendship with itself are dropped, and of a pair that ends up stored
+-- twice only one row is kept, as in dedupe_friendships.sql. Back up the database before running it.
+-- A blank email says nothing about who the user is, so those users are never merged: each gets the placeholder
+-- "user-<id>@users.invalid" instead, the one BulkImporter gives to imported users without an email.
+
+BEGIN;
+
+UPDATE users SET email = 'user-' || user_id || '@users.invalid' WHERE email IS NULL OR btrim(email) = '';
+
+CREATE TEMPORARY TABLE user_merges ON COMMIT DROP AS
+SELECT user_id AS duplicate_id, kept_id
+FROM (
+    SELECT user_id, MIN(user_id) OVER (PARTITION BY email) AS kept_id
+    FROM users
+) grouped
+WHERE user_id <> kept_id;
+
+-- Moving friendships may store a pair twice for a moment; schema.sql recreates the index afterwards
+DROP INDEX IF EXISTS friendships_pair_idx;
+
+UPDATE friendships f SET user_id_1 = m.kept_id FROM user_merges m WHERE f.user_id_1 = m.duplicate_id;
+UPDATE friendships f SET user_id_2 = m.kept_id FROM user_merges m WHERE f.user_id_2 = m.duplicate_id;
+
+DELETE FROM friendships WHERE user_id_1 = user_id_2;
+
+DELETE FROM friendships
+WHERE ctid IN (
+    SELECT ctid FROM (
+        SELECT ctid, ROW_NUMBER() OVER (
+                   PARTITION BY LEAST(user_id_1, user_id_2), GREATEST(user_id_1, user_id_2)
+                   ORDER BY CASE request WHEN 'APROOVED' THEN 0 WHEN 'PENDING' THEN 1 ELSE 2 END, date
+               ) AS rank
+        FROM friendships
+    ) ranked
+    WHERE rank > 1
+);
+
+UPDATE Messages msg SET id_from = m.kept_id FROM user_merges m WHERE msg.id_from = m.duplicate_id;
+UPDATE Messages msg SET id_to = m.kept_id FROM user_merges m WHERE msg.id_to = m.duplicate_id;
+
+DELETE FROM users WHERE user_id IN (SELECT duplicate_id FROM user_merges);
+
+COMMIT;
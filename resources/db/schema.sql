@@ -0,0 +1,60 @@
+-- Schema of the CorgiNetwork PostgreSQL database.
+-- Every statement is idempotent, so the script can be re-run on an existing database.
+-- It never deletes data; one-off migrations that do are kept in migrations/ and run by hand, once.
+
+CREATE TABLE IF NOT EXISTS users (
+    user_id   BIGSERIAL PRIMARY KEY,
+    firstname VARCHAR(100) NOT NULL,
+    lastname  VARCHAR(100) NOT NULL,
+    email     VARCHAR(255) NOT NULL,
+    pasword   VARCHAR(255) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS friendships (
+    user_id_1 BIGINT      NOT NULL REFERENCES users (user_id),
+    user_id_2 BIGINT      NOT NULL REFERENCES users (user_id),
+    date      TIMESTAMP   NOT NULL,
+    request   VARCHAR(20) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS Messages (
+    id_message BIGSERIAL PRIMARY KEY,
+    id_to      BIGINT    NOT NULL REFERENCES users (user_id),
+    id_from    BIGINT    NOT NULL REFERENCES users (user_id),
+    message    TEXT      NOT NULL,
+    date       TIMESTAMP NOT NULL,
+    reply_id   BIGINT REFERENCES Messages (id_message)
+);
+
+-- Login and sign-up look users up by email (UserRepoBD.findByEmail), and an email belongs to one user only.
+-- On a database that already holds an email twice, run migrations/dedupe_user_emails.sql first.
+-- The unique index replaces the plain users_email_idx.
+DROP INDEX IF EXISTS users_email_idx;
+CREATE UNIQUE INDEX IF NOT EXISTS users_email_key ON users (email);
+
+-- A conversation is read by its unordered pair of users, oldest message first (MessageRepoBD.findConversation).
+CREATE INDEX IF NOT EXISTS messages_conversation_idx
+    ON Messages (LEAST(id_from, id_to), GREATEST(id_from, id_to), date);
+
+-- Friend lists only ever read approved friendships, so each side of a friendship is indexed for those alone
+-- (FriendshipsRepoBD.findAllOnPage, findAllAfter and the user_friends view). Pending and rejected requests
+-- are found through friendships_pair_idx. The full indexes these replace are dropped.
+DROP INDEX IF EXISTS friendships_user1_user2_idx;
+DROP INDEX IF EXISTS friendships_user2_user1_idx;
+CREATE INDEX IF NOT EXISTS friendships_approved_user1_idx ON friendships (user_id_1, user_id_2) WHERE request = 'APROOVED';
+CREATE INDEX IF NOT EXISTS friendships_approved_user2_idx ON friendships (user_id_2, user_id_1) WHERE request = 'APROOVED';
+
+-- A pair is found in either direction with one index probe, and cannot be stored twice (FriendshipsRepoBD).
+-- On a database that already holds a pair in both directions, run migrations/dedupe_friendships.sql first.
+CREATE UNIQUE INDEX IF NOT EXISTS friendships_pair_idx
+    ON friendships (LEAST(user_id_1, user_id_2), GREATEST(user_id_1, user_id_2));
+
+-- Approved friendships seen from each of the two users: one row per direction, with the other user as friend_id.
+-- A filter on user_id and friend_id is pushed into both branches, so each is a range scan of one partial index
+-- and ORDER BY friend_id merges them (FriendshipsRepoBD.getUsersFriends, getUsersFriendsAfter, countUsersFriends).
+CREATE OR REPLACE VIEW user_friends AS
+    SELECT user_id_1 AS user_id, user_id_2 AS friend_id, user_id_1, user_id_2, date, request
+    FROM friendships WHERE request = 'APROOVED'
+    UNION ALL
+    SELECT user_id_2 AS user_id, user_id_1 AS friend_id, user_id_1, user_id_2, date, request
+    FROM friendships WHERE request = 'APROOVED';
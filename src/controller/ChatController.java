@@ -2,6 +2,7 @@ package controller;
 
 import domain.Message;
 import domain.User;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
@@ -11,13 +12,14 @@ import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
+import service.AsyncService;
 import service.Service;
 
 import java.io.IOException;
-import java.util.List;
 
 public class ChatController {
     private Service service;
+    private AsyncService async; // Runs the service calls off the JavaFX Application Thread
     private User user;
 
     private ObservableList<String> chatListItems = FXCollections.observableArrayList();
@@ -31,6 +33,7 @@ public class ChatController {
      */
     public void setService(Service service) {
         this.service = service;
+        this.async = new AsyncService(service, Platform::runLater);
     }
 
     /**
@@ -44,19 +47,20 @@ public class ChatController {
 
     /**
      * Loads the chat list for the logged-in user.
-     * It retrieves friends, their latest message, and populates the chat list.
+     * It retrieves friends in the background and populates the chat list.
      */
     private void loadChatList() {
-        List<User> friends = service.getFriends(user);
-        ObservableList<String> chatItems = FXCollections.observableArrayList();
+        chatList.setItems(chatListItems);
+        async.supply(service -> service.getFriends(user), friends -> {
+            ObservableList<String> chatItems = FXCollections.observableArrayList();
 
-        for (User friend : friends) {
-            String chatText = friend.getFirstName() + " " + friend.getLastName();
-            chatItems.add(chatText);
-        }
+            for (User friend : friends) {
+                String chatText = friend.getFirstName() + " " + friend.getLastName();
+                chatItems.add(chatText);
+            }
 
-        chatListItems.setAll(chatItems);
-        chatList.setItems(chatListItems);
+            chatListItems.setAll(chatItems);
+        }, Throwable::printStackTrace);
 
         chatList.getSelectionModel().selectedItemProperty().addListener((observable, oldValue, newValue) -> {
             if (newValue != null) {
@@ -68,7 +72,7 @@ public class ChatController {
 
     /**
      * Opens a chat window with the selected friend.
-     * It navigates to the MessageView.fxml and passes the selected friend's details.
+     * The friend is looked up in the background, then it navigates to the MessageView.fxml and passes the friend's details.
      * @param chatText the selected chat text containing the friend's name
      */
     private void openChatWithFriend(String chatText) {
@@ -79,14 +83,15 @@ public class ChatController {
         String lastName = friendName[1];
 
 
-        User friend = service.findUserByName(firstName, lastName);
-        if (friend != null) {
-            onMessage(friend);
-
-        }
+        async.supply(service -> service.findUserByName(firstName, lastName), friend -> {
+            if (friend != null) {
+                onMessage(friend);
+            }
+        }, Throwable::printStackTrace);
     }
 
     public void onMessage(User friend) {
+        async.cancelAll(); // Results for this view are no longer needed
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/MessageView.fxml"));
             Parent root = loader.load();
@@ -112,6 +117,7 @@ public class ChatController {
      * It switches the current scene to the MainView.fxml.
      */
     public void onProfile(ActionEvent actionEvent) {
+        async.cancelAll(); // Results for this view are no longer needed
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/MainView.fxml"));
             Parent root = loader.load();
@@ -143,6 +149,7 @@ public class ChatController {
      * Loads the RequestsView.fxml and switches the current view.
      */
     private void openMainScene() {
+        async.cancelAll(); // Results for this view are no longer needed
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/RequestsView.fxml"));
             Parent root = loader.load();
@@ -167,6 +174,7 @@ public class ChatController {
      * @param actionEvent the action event triggered by the button click
      */
     public void onFriendsButtonClicked(ActionEvent actionEvent) {
+        async.cancelAll(); // Results for this view are no longer needed
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/FriendsView.fxml"));
             Parent root = loader.load();
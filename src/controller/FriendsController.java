@@ -1,9 +1,10 @@
 package controller;
 
+import domain.CursorPage;
+import domain.CursorPageable;
 import domain.Friendship;
-import domain.Page;
-import domain.Pageable;
 import domain.User;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
@@ -16,23 +17,33 @@ import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListView;
 import javafx.stage.Stage;
+import service.AsyncService;
 import service.Service;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
 
 public class FriendsController {
     @FXML
     private ListView<String> friendsListView;
 
     private Service service;
+    private AsyncService async; // Runs the service calls off the JavaFX Application Thread
     private User loggedInUser;
 
     private int currentPage = 0;
 
     private int pageSize = 3;
 
+    private Long currentPageKey = null; // Friend ID after which the current page starts, null for the first page
+
+    private Long nextPageKey = null; // Friend ID after which the next page starts
+
+    private final List<Long> previousPageKeys = new ArrayList<>(); // Start keys of the pages before the current one
+
+    private int totalFriends = 0; // Friend count, refreshed only when the list changes
+
     @FXML
     private Button previousButton;
     @FXML
@@ -47,6 +58,7 @@ public class FriendsController {
      */
     public void setService(Service service) {
         this.service = service;
+        this.async = new AsyncService(service, Platform::runLater);
     }
 
     /**
@@ -55,70 +67,113 @@ public class FriendsController {
      */
     public void setUser(User user) {
         this.loggedInUser = user;
-        loadFriendsList();
+        refreshFriendsList();
+    }
+
+    /**
+     * Counts the friends of the logged-in user again, then reloads the current page.
+     */
+    private void refreshFriendsList() {
+        async.supply(service -> service.countUsersFriends(loggedInUser), count -> {
+            totalFriends = count;
+            loadFriendsList();
+        }, error -> {
+            showAlert("An error occurred while loading your friends list.");
+            error.printStackTrace();
+        });
     }
 
     /**
      * Loads the list of friends for the logged-in user into the ListView.
-     * It retrieves the list of friends from the service and displays their names.
+     * The current page is fetched in the background by the key of the last friend on the previous page,
+     * so moving through the pages never re-counts or skips over earlier friends.
+     * The page buttons stay disabled until the page is shown.
      */
     private void loadFriendsList() {
-        try {
-            Page<Friendship> pageFriends = service.findUsersFriends(new Pageable(pageSize, currentPage), loggedInUser);
+        previousButton.setDisable(true);
+        nextButton.setDisable(true);
+        Long pageKey = currentPageKey;
+        async.supply(service -> readFriendNames(service, pageKey), pageFriends -> {
+            // The current page can empty out after a removal, so step back to the previous one
+            if (!pageFriends.getElementsOnPage().iterator().hasNext() && !previousPageKeys.isEmpty()) {
+                currentPageKey = previousPageKeys.remove(previousPageKeys.size() - 1);
+                currentPage--;
+                loadFriendsList();
+                return;
+            }
 
-            int totalFriends = pageFriends.getTotalElementCount();
             int maximumFriends = (int) Math.ceil((double) totalFriends / pageSize) - 1;
             if(maximumFriends == -1){
                 showAlert("You have no friends");
                 maximumFriends = 0;
             }
 
-            if (currentPage > maximumFriends) {
-                currentPage = maximumFriends;
-                pageFriends = service.findUsersFriends(new Pageable(pageSize, currentPage), loggedInUser);
-            }
-
-            int nrOfElements = pageFriends.getTotalElementCount();
-            previousButton.setDisable(currentPage == 0);
-            nextButton.setDisable((currentPage + 1) * pageSize >= nrOfElements);
+            nextPageKey = pageFriends.getNextKey();
+            previousButton.setDisable(previousPageKeys.isEmpty());
+            nextButton.setDisable(!pageFriends.hasNext());
 
             ObservableList<String> friends = FXCollections.observableArrayList();
-            for (Friendship friendship : pageFriends.getElementsOnPage()) {
-                User friend = friendship.getIdUser1().equals(loggedInUser.getId())
-                        ? service.find_user(friendship.getIdUser2()).get()
-                        : service.find_user(friendship.getIdUser1()).get();
-                String fullName = friend.getFirstName() + " " + friend.getLastName();
-                friends.add(fullName);
-            }
+            pageFriends.getElementsOnPage().forEach(friends::add);
 
             friendsListView.setItems(friends);
             pageNumber.setText((currentPage + 1) + " / " + (maximumFriends + 1));
-
-        } catch (Exception e) {
+        }, error -> {
             showAlert("An error occurred while loading your friends list.");
-            e.printStackTrace();
+            error.printStackTrace();
+        });
+    }
+
+    /**
+     * Reads a page of the logged-in user's friendships and the full names of those friends.
+     * The friends of the page are fetched with one lookup by ID.
+     * Runs in the background, so it only touches its arguments.
+     * @param service the service to read from
+     * @param pageKey the friend ID after which the page starts, null for the first page
+     * @return the names of the friends on the page and the key to continue from
+     */
+    private CursorPage<String, Long> readFriendNames(Service service, Long pageKey) {
+        CursorPage<Friendship, Long> pageFriends = service.findUsersFriends(new CursorPageable<>(pageSize, pageKey), loggedInUser);
+        List<Long> friendIds = new ArrayList<>();
+        for (Friendship friendship : pageFriends.getElementsOnPage()) {
+            friendIds.add(friendship.getIdUser1().equals(loggedInUser.getId())
+                    ? friendship.getIdUser2()
+                    : friendship.getIdUser1());
         }
+        List<String> names = new ArrayList<>();
+        for (User friend : service.findUsers(friendIds)) {
+            names.add(friend.getFirstName() + " " + friend.getLastName());
+        }
+        return new CursorPage<>(names, pageFriends.getNextKey());
     }
 
 
     /**
      * Handles the action when the "Next" button is clicked.
-     * Increases the current page number and reloads the friends list for the next page.
+     * Moves the cursor past the last friend of the current page and reloads the friends list for the next page.
      *
      * @return void
      */
     public void onButtonNextClicked(){
+        if (nextPageKey == null) {
+            return;
+        }
+        previousPageKeys.add(currentPageKey);
+        currentPageKey = nextPageKey;
         currentPage++;
         loadFriendsList();
     }
 
     /**
      * Handles the action when the "Previous" button is clicked.
-     * Decreases the current page number and reloads the friends list for the previous page.
+     * Restores the cursor of the previous page and reloads the friends list for it.
      *
      * @return void
      */
     public void onButtonPreviousClicked(){
+        if (previousPageKeys.isEmpty()) {
+            return;
+        }
+        currentPageKey = previousPageKeys.remove(previousPageKeys.size() - 1);
         currentPage--;
         loadFriendsList();
     }
@@ -138,29 +193,28 @@ public class FriendsController {
             return;
         }
 
-        try {
-
-            String[] nameParts = selectedFriend.split(" ");
-            String firstName = nameParts[0];
-            String lastName = nameParts[1];
-
+        String[] nameParts = selectedFriend.split(" ");
+        String firstName = nameParts[0];
+        String lastName = nameParts[1];
 
+        async.supplyWrite(service -> {
             User friend = service.findUserByName(firstName, lastName);
-
-            if (friend != null) {
-
-                service.removeFriendship(loggedInUser.getId(), friend.getId());
+            if (friend == null) {
+                return false;
+            }
+            service.removeFriendship(loggedInUser.getId(), friend.getId());
+            return true;
+        }, removed -> {
+            if (removed) {
                 showAlert("Friend removed successfully!");
-                loadFriendsList();
+                refreshFriendsList();
             } else {
-
                 showAlert("Friend not found.");
             }
-        } catch (Exception e) {
-
+        }, error -> {
             showAlert("An error occurred while removing the friend.");
-            e.printStackTrace();
-        }
+            error.printStackTrace();
+        });
     }
 
     /**
@@ -180,6 +234,7 @@ public class FriendsController {
      * It switches the current scene to the profile view (MainView.fxml).
      */
     public void onProfile(ActionEvent actionEvent) {
+        async.cancelAll(); // Results for this view are no longer needed
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/MainView.fxml"));
             Parent root = loader.load();
@@ -210,6 +265,7 @@ public class FriendsController {
      * Loads the RequestsView.fxml and switches the current view.
      */
     private void openMainScene() {
+        async.cancelAll(); // Results for this view are no longer needed
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/RequestsView.fxml"));
             Parent root = loader.load();
@@ -233,6 +289,7 @@ public class FriendsController {
      * It switches the current scene to the ChatView.fxml.
      */
     public void onChat(ActionEvent actionEvent) {
+        async.cancelAll(); // Results for this view are no longer needed
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/ChatView.fxml"));
             Parent root = loader.load();
@@ -5,19 +5,32 @@ import domain.Message;
 import domain.Tuple;
 import domain.User;
 import domain.validators.UserValidator;
+import enums.ReportFormat;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import metrics.Instrumented;
+import metrics.MetricsRegistry;
+import metrics.MetricsReporter;
 import repository.*;
+import service.InstrumentedService;
 import service.Service;
 
+import java.io.IOException;
+
 public class HelloAplication extends Application {
+    private static final int USER_CACHE_SIZE = 10_000; // Users kept in memory between database lookups
+    private static final String METRICS_PORT_PROPERTY = "socialnetwork.metrics.port"; // Serves /metrics on this port
+    private static final String METRICS_REPORT_PROPERTY = "socialnetwork.metrics.report"; // Prints a report every N seconds
+
+    private ConnectionPool connectionPool; // Connections shared by every database repository
+    private MetricsReporter metricsReporter; // Publishes the metrics, null when they are off
 
     /**
      * This method is called when the JavaFX application is launched.
-     * It sets up the database connection, initializes repositories, and loads the login view.
+     * It sets up the database connection pool, initializes repositories, and loads the login view.
      * @param primaryStage the primary stage (window) for the application
      * @throws Exception if there is an error during loading or setting up the application
      */
@@ -27,10 +40,29 @@ public class HelloAplication extends Application {
         String password = "alesefa";
         String url = "jdbc:postgresql://localhost:5432/postgres";
 
-        Repository<Long, User> userRepoBD = new UserRepoBD(url, username, password, new UserValidator());
-        FriendshipPagingRepo<Tuple<Long, Long>, Friendship> friendshipRepoBD = new FriendshipsRepoBD(url, username, password);
-        Repository<Long, Message> messageRepoBD = new MessageRepoBD(userRepoBD,url, username, password);
-        Service srv = new Service(userRepoBD, friendshipRepoBD, messageRepoBD);
+        connectionPool = new ConnectionPool(url, username, password);
+
+        CachingUserRepository userCache = new CachingUserRepository(
+                new UserRepoBD(connectionPool, new UserValidator()), USER_CACHE_SIZE);
+        UserLookupRepo<Long, User> userRepoBD = userCache;
+        FriendshipPagingRepo<Tuple<Long, Long>, Friendship> friendshipRepoBD = new FriendshipsRepoBD(connectionPool);
+        ConversationRepo<Long, Message> messageRepoBD = new MessageRepoBD(userRepoBD, connectionPool);
+        Service srv;
+
+        MetricsRegistry metrics = startMetrics();
+        if (metrics == null) {
+            srv = new Service(userRepoBD, friendshipRepoBD, messageRepoBD);
+        } else {
+            connectionPool.setMetrics(metrics);
+            metrics.gauge("cache.users.hitRate", () -> userCache.getCache().hitRate());
+            metrics.gauge("cache.users.size", () -> userCache.getCache().size());
+            metrics.gauge("cache.users.evictions", () -> userCache.getCache().evictionCount());
+            srv = new InstrumentedService(
+                    Instrumented.wrap(UserLookupRepo.class, userRepoBD, "repository.users", metrics),
+                    Instrumented.wrap(FriendshipPagingRepo.class, friendshipRepoBD, "repository.friendships", metrics),
+                    Instrumented.wrap(ConversationRepo.class, messageRepoBD, "repository.messages", metrics),
+                    metrics);
+        }
 
         FXMLLoader loader = new FXMLLoader(getClass().getResource("/LoginView.fxml"));
         Parent root = loader.load();
@@ -47,6 +79,47 @@ public class HelloAplication extends Application {
         primaryStage.show();
     }
 
+    /**
+     * Turns the metrics on when one of the metrics system properties is set,
+     * e.g. -Dsocialnetwork.metrics.port=9400 or -Dsocialnetwork.metrics.report=60.
+     * Without them the repositories and the service are used unwrapped, at no cost.
+     * @return the registry, or null if the metrics are off
+     */
+    private MetricsRegistry startMetrics() {
+        String port = System.getProperty(METRICS_PORT_PROPERTY);
+        String report = System.getProperty(METRICS_REPORT_PROPERTY);
+        if (port == null && report == null) {
+            return null;
+        }
+        MetricsRegistry metrics = new MetricsRegistry();
+        metricsReporter = new MetricsReporter(metrics);
+        try {
+            if (port != null) {
+                int boundPort = metricsReporter.startHttpEndpoint(Integer.parseInt(port));
+                System.out.println("Metrics served on http://localhost:" + boundPort + "/metrics");
+            }
+            if (report != null) {
+                metricsReporter.startPeriodicReport(Long.parseLong(report), ReportFormat.TEXT, System.out);
+            }
+        } catch (IOException | NumberFormatException e) {
+            e.printStackTrace(); // The application runs on without the endpoint
+        }
+        return metrics;
+    }
+
+    /**
+     * This method is called when the JavaFX application exits.
+     * It stops the metrics and closes the database connections held by the pool.
+     */
+    @Override
+    public void stop() {
+        if (metricsReporter != null) {
+            metricsReporter.close();
+        }
+        if (connectionPool != null) {
+            connectionPool.close();
+        }
+    }
 
 
     /**
@@ -11,6 +11,7 @@ import javafx.scene.control.TextField;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Alert.AlertType;
 import javafx.stage.Stage;
+import service.AsyncService;
 import service.Service;
 
 import java.io.IOException;
@@ -18,6 +19,7 @@ import java.io.IOException;
 public class LoginController {
 
     private Service srv;
+    private AsyncService async; // Runs the service calls off the JavaFX Application Thread
     private User loggedInUser;
 
     @FXML
@@ -35,7 +37,7 @@ public class LoginController {
     /**
      * This method is called when the "Login" button is pressed.
      * It retrieves the email and password from the input fields,
-     * checks the login credentials using the service, and opens the main menu if successful.
+     * checks the login credentials using the service in the background, and opens the main menu if successful.
      * If login fails, an error message is shown.
      */
     @FXML
@@ -44,16 +46,20 @@ public class LoginController {
         String email = emailField.getText();
         String password = passwordField.getText();
 
-        loggedInUser = srv.login(email, password);
+        async.supply(service -> service.login(email, password), user -> {
+            loggedInUser = user;
+            if (loggedInUser != null) {
 
-        if (loggedInUser != null) {
+                System.out.println("User logged in: " + loggedInUser.getEmail());
+                showMainMenu();
+            } else {
 
-            System.out.println("User logged in: " + loggedInUser.getEmail());
-            showMainMenu();
-        } else {
-
-            showAlert("Login failed, please check your credentials.");
-        }
+                showAlert("Login failed, please check your credentials.");
+            }
+        }, error -> {
+            error.printStackTrace();
+            showAlert("Login failed, please try again.");
+        });
     }
 
 
@@ -108,6 +114,7 @@ public class LoginController {
      */
     public void setService(Service srv) {
         this.srv = srv;  // Set the login service
+        this.async = new AsyncService(srv, Platform::runLater);
     }
 
     /**
@@ -116,6 +123,7 @@ public class LoginController {
      */
     @FXML
     private void handleSignUpRedirect() {
+        async.cancelAll(); // A login still running must not open the main menu
         try {
 
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/SignUpView.fxml"));
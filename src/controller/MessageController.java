@@ -5,20 +5,20 @@ import domain.User;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
-import javafx.concurrent.Task;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
+import service.AsyncService;
 import service.Service;
 
 import java.io.IOException;
-import java.util.List;
 
 public class MessageController {
     private Service service;
+    private AsyncService async; // Runs the service calls off the JavaFX Application Thread
     private User user;
     private User friend;
 
@@ -36,6 +36,7 @@ public class MessageController {
      */
     public void setService(Service service) {
         this.service = service;
+        this.async = new AsyncService(service, Platform::runLater);
     }
 
     /**
@@ -58,24 +59,24 @@ public class MessageController {
 
     /**
      * Loads the messages between the logged-in user and the selected friend.
-     * Retrieves messages using the service and populates the ListView.
+     * Retrieves messages using the service in the background and populates the ListView.
      */
     private void loadMessages() {
         if (user != null && friend != null) {
+            async.supply(service -> service.getMessagesBetween(user, friend), messageList -> {
+                ObservableList<String> messageDetails = FXCollections.observableArrayList();
 
-            List<Message> messageList = service.getMessagesBetween(user, friend);
-            ObservableList<String> messageDetails = FXCollections.observableArrayList();
 
-
-            for (Message message : messageList) {
-                String sender = message.getFrom().equals(user) ? "You" : friend.getFirstName();
-                String messageText = sender + ": " + message.getMessage();
-                messageDetails.add(messageText);
-            }
+                for (Message message : messageList) {
+                    String sender = message.getFrom().equals(user) ? "You" : friend.getFirstName();
+                    String messageText = sender + ": " + message.getMessage();
+                    messageDetails.add(messageText);
+                }
 
 
-            messages.setAll(messageDetails);
-            messageListView.setItems(messages);
+                messages.setAll(messageDetails);
+                messageListView.setItems(messages);
+            }, error -> showAlert("An error occurred while loading the messages."));
         }
     }
 
@@ -97,15 +98,7 @@ public class MessageController {
     public void onSendButtonClicked() {
         String text = messageTextField.getText();
         if (!text.isEmpty()) {
-            Task<Boolean> sendMessageTask = new Task<>() {
-                @Override
-                protected Boolean call() {
-                    return service.addMessage(user, friend, text);
-                }
-            };
-
-            sendMessageTask.setOnSucceeded(event -> {
-                boolean success = sendMessageTask.getValue();
+            async.supplyWrite(service -> service.addMessage(user, friend, text), success -> {
                 if (success) {
                     String sender = "You: " + text;
                     messages.add(sender);
@@ -113,12 +106,7 @@ public class MessageController {
                 } else {
                     showAlert("Message could not be sent.");
                 }
-            });
-
-            sendMessageTask.setOnFailed(event -> showAlert("An error occurred while sending the message."));
-
-            // Rulează task-ul pe un alt thread
-            new Thread(sendMessageTask).start();
+            }, error -> showAlert("An error occurred while sending the message."));
         }
     }
 
@@ -140,6 +128,7 @@ public class MessageController {
      * Navigates back to the ChatView scene and sets the user and service.
      */
     public void onBackButtonClicked() {
+        async.cancelAll(); // Results for this view are no longer needed
         try {
 
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/ChatView.fxml"));
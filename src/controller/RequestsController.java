@@ -1,8 +1,11 @@
 package controller;
 
+import domain.FriendSuggestion;
 import domain.Friendship;
 import domain.User;
 import enums.Friendshiprequest;
+import enums.RecommendationScore;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
@@ -14,17 +17,23 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.ListView;
 import javafx.scene.control.TextField;
 import javafx.stage.Stage;
+import service.AsyncService;
 import service.Service;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class RequestsController {
 
     private Service srv;
+    private AsyncService async; // Runs the service calls off the JavaFX Application Thread
     private User user;
     private final List<Friendship> friendshipsList = new ArrayList<>();
+    private final List<FriendSuggestion> suggestions = new ArrayList<>();
+    private static final int SUGGESTIONS_SHOWN = 20;
 
     @FXML
     private TextField fisrt_name;
@@ -36,6 +45,9 @@ public class RequestsController {
     @FXML
     private ListView<String> requestsList;
 
+    @FXML
+    private ListView<String> suggestionsList;
+
 
     /**
      * Sets the service instance to interact with the application logic.
@@ -43,6 +55,7 @@ public class RequestsController {
      */
     public void setService(Service service) {
         this.srv = service;
+        this.async = new AsyncService(service, Platform::runLater);
     }
 
     /**
@@ -52,33 +65,53 @@ public class RequestsController {
     public void setUser(User loggedInUser) {
         this.user = loggedInUser;
         loadRequestsList();
+        loadSuggestionsList();
     }
 
     /**
-     * Loads the friend requests into the list view and clears the previous data.
+     * Loads the people the user may know, ranked by the number of mutual friends, in the background.
      */
-    private void loadRequestsList() {
-        requestsList.getItems().clear();
-        friendshipsList.clear();
-
-        List<Friendship> friendships = getReceivedFriendRequests();
-        ObservableList<String> friendDetails = FXCollections.observableArrayList();
-
-        for (Friendship friendship : friendships) {
-            User friend = (friendship.getIdUser1().equals(user.getId())) ?
-                    srv.find_user(friendship.getIdUser2()).get() :
-                    srv.find_user(friendship.getIdUser1()).get();
-
-
-            String detail = "Name: " + friend.getFirstName() + " " + friend.getLastName() +
-                    ", Date: " + friendship.getDate().toLocalDate() +
-                    ", Status: " + friendship.getFriendshiprequest();
-            friendDetails.add(detail);
-
-            friendshipsList.add(friendship);
-        }
+    private void loadSuggestionsList() {
+        async.supply(service -> service.getFriendSuggestions(user, SUGGESTIONS_SHOWN, RecommendationScore.MUTUAL_FRIENDS),
+                found -> {
+                    suggestions.clear();
+                    suggestions.addAll(found);
+
+                    ObservableList<String> suggestionDetails = FXCollections.observableArrayList();
+                    for (FriendSuggestion suggestion : suggestions) {
+                        suggestionDetails.add("Name: " + suggestion.getUser().getFirstName() + " " + suggestion.getUser().getLastName() +
+                                ", Mutual friends: " + suggestion.getMutualFriends());
+                    }
+                    suggestionsList.setItems(suggestionDetails);
+                },
+                Throwable::printStackTrace);
+    }
 
-        requestsList.setItems(friendDetails);
+    /**
+     * Loads the friend requests into the list view, replacing the previous data.
+     * The requests and their senders are read in the background.
+     */
+    private void loadRequestsList() {
+        async.supply(service -> {
+            Map<Friendship, String> requests = new LinkedHashMap<>(); // Keeps the order of the requests
+            for (Friendship friendship : getReceivedFriendRequests()) {
+                User friend = (friendship.getIdUser1().equals(user.getId())) ?
+                        service.find_user(friendship.getIdUser2()).get() :
+                        service.find_user(friendship.getIdUser1()).get();
+
+                String detail = "Name: " + friend.getFirstName() + " " + friend.getLastName() +
+                        ", Date: " + friendship.getDate().toLocalDate() +
+                        ", Status: " + friendship.getFriendshiprequest();
+                requests.put(friendship, detail);
+            }
+            return requests;
+        }, requests -> {
+            friendshipsList.clear();
+            friendshipsList.addAll(requests.keySet());
+            ObservableList<String> friendDetails = FXCollections.observableArrayList();
+            friendDetails.addAll(requests.values());
+            requestsList.setItems(friendDetails);
+        }, Throwable::printStackTrace);
     }
 
     /**
@@ -102,38 +135,59 @@ public class RequestsController {
 
     /**
      * Approves the selected friend request if it is in a pending state.
+     * The request is updated in the background and the lists are reloaded once it is done.
      */
     public void AcceptButton() {
         int selectedIndex = requestsList.getSelectionModel().getSelectedIndex();
         if (selectedIndex != -1) {
             Friendship selectedFriendship = friendshipsList.get(selectedIndex);
             if (selectedFriendship.getFriendshiprequest() == Friendshiprequest.PENDING) {
-                srv.manageFriendRequest(selectedFriendship, Friendshiprequest.APROOVED);
+                manageSelectedRequest(selectedFriendship, Friendshiprequest.APROOVED);
             } else {
                 showAlert("The request must be PENDING in order to APPROVE it");
             }
         }
-        loadRequestsList();
     }
 
     /**
      * Rejects the selected friend request if it is in a pending state.
+     * The request is updated in the background and the lists are reloaded once it is done.
      */
     public void RejectButton() {
         int selectedIndex = requestsList.getSelectionModel().getSelectedIndex();
         if (selectedIndex != -1) {
             Friendship selectedFriendship = friendshipsList.get(selectedIndex);
             if (selectedFriendship.getFriendshiprequest() == Friendshiprequest.PENDING) {
-                srv.manageFriendRequest(selectedFriendship, Friendshiprequest.REJECTED);
+                manageSelectedRequest(selectedFriendship, Friendshiprequest.REJECTED);
             } else {
                 showAlert("The request must be PENDING in order to REJECT it");
             }
         }
-        loadRequestsList();
+    }
+
+    /**
+     * Changes the status of a friend request in the background, then reloads the requests and suggestions.
+     * @param friendship the pending friend request
+     * @param status the new status of the request
+     */
+    private void manageSelectedRequest(Friendship friendship, Friendshiprequest status) {
+        async.supplyWrite(service -> {
+                    service.manageFriendRequest(friendship, status);
+                    return friendship;
+                },
+                managed -> {
+                    loadRequestsList();
+                    loadSuggestionsList();
+                },
+                error -> {
+                    showAlert("The request could not be updated.");
+                    loadRequestsList();
+                });
     }
 
     /**
      * Sends a friend request to a user identified by their first and last name.
+     * The user is looked up and the request is sent in the background.
      */
     public void SendRequest() {
         String ln = last_name.getText();
@@ -143,18 +197,48 @@ public class RequestsController {
             return;
         }
 
-        User friend = srv.findUserByName(fn, ln);
-
-        if (friend == null) {
-            showAlert("Friend not found.");
-        } else {
-            srv.createFriendshipRequest(user.getId(), friend.getId());
-            showAlert("Friend request sent successfully!");
-        }
+        async.supplyWrite(service -> {
+                    User friend = service.findUserByName(fn, ln);
+                    if (friend != null) {
+                        service.createFriendshipRequest(user.getId(), friend.getId());
+                    }
+                    return friend;
+                },
+                friend -> {
+                    if (friend == null) {
+                        showAlert("Friend not found.");
+                    } else {
+                        showAlert("Friend request sent successfully!");
+                    }
+                    loadSuggestionsList();
+                },
+                error -> showAlert("The friend request could not be sent."));
         last_name.clear();
         fisrt_name.clear();
     }
 
+    /**
+     * Sends a friend request to the selected suggested user in the background.
+     */
+    public void SendSuggestedRequest() {
+        int selectedIndex = suggestionsList.getSelectionModel().getSelectedIndex();
+        if (selectedIndex == -1) {
+            showAlert("Please select a suggested friend.");
+            return;
+        }
+
+        User friend = suggestions.get(selectedIndex).getUser();
+        async.supplyWrite(service -> {
+                    service.createFriendshipRequest(user.getId(), friend.getId());
+                    return friend;
+                },
+                sent -> {
+                    showAlert("Friend request sent successfully!");
+                    loadSuggestionsList();
+                },
+                error -> showAlert("The friend request could not be sent."));
+    }
+
     /**
      * Shows an informational alert with the given message.
      * @param message the message to display in the alert
@@ -172,6 +256,7 @@ public class RequestsController {
      * @param actionEvent the action event triggered by the button
      */
     public void onProfile(ActionEvent actionEvent) {
+        async.cancelAll(); // Results for this view are no longer needed
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/MainView.fxml"));
             Parent root = loader.load();
@@ -195,6 +280,7 @@ public class RequestsController {
      * @param actionEvent the action event triggered by the button
      */
     public void onFriendsButtonClicked(ActionEvent actionEvent) {
+        async.cancelAll(); // Results for this view are no longer needed
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/FriendsView.fxml"));
             Parent root = loader.load();
@@ -218,6 +304,7 @@ public class RequestsController {
      * @param actionEvent the action event triggered by the button
      */
     public void onChat(ActionEvent actionEvent) {
+        async.cancelAll(); // Results for this view are no longer needed
         try {
             FXMLLoader loader = new FXMLLoader(getClass().getResource("/ChatView.fxml"));
             Parent root = loader.load();
@@ -0,0 +1,64 @@
+package domain;
+
+import java.util.List;
+
+public class CommunityDiameter {
+    private final List<Long> path;
+
+    private final int diameter;
+
+    private final boolean exact;
+
+    private final long elapsedNanos;
+
+    /**
+     * Constructor to initialize the diameter of a community.
+     *
+     * @param path The user IDs along the longest shortest path of the community.
+     * @param diameter The number of friendships along the path.
+     * @param exact Whether the diameter is exact or only a lower bound.
+     * @param elapsedNanos The time it took to compute the diameter, in nanoseconds.
+     */
+    public CommunityDiameter(List<Long> path, int diameter, boolean exact, long elapsedNanos) {
+        this.path = path;
+        this.diameter = diameter;
+        this.exact = exact;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Retrieves the users along the diameter of the community.
+     *
+     * @return The user IDs along the path, from one end to the other.
+     */
+    public List<Long> getPath() {
+        return path;
+    }
+
+    /**
+     * Retrieves the length of the diameter.
+     *
+     * @return The number of friendships along the path.
+     */
+    public int getDiameter() {
+        return diameter;
+    }
+
+    /**
+     * Checks whether the diameter is exact.
+     *
+     * @return true if the diameter is exact, false if it is a lower bound.
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * Retrieves the time it took to compute the diameter.
+     *
+     * @return The elapsed time in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
@@ -0,0 +1,45 @@
+package domain;
+
+public class CursorPage<E, K> {
+    private Iterable<E> elementsOnPage;
+
+    private K nextKey;
+
+    /**
+     * Constructor to initialize a cursor-based page with the given elements and the cursor of the next page.
+     *
+     * @param elementsOnPage An iterable collection of elements for this page.
+     * @param nextKey The key to pass as cursor to fetch the next page, or null if this is the last page.
+     */
+    public CursorPage(Iterable<E> elementsOnPage, K nextKey) {
+        this.elementsOnPage = elementsOnPage;
+        this.nextKey = nextKey;
+    }
+
+    /**
+     * Retrieves the elements that are displayed on the current page.
+     *
+     * @return An iterable collection of elements for the current page.
+     */
+    public Iterable<E> getElementsOnPage() {
+        return elementsOnPage;
+    }
+
+    /**
+     * Retrieves the cursor of the next page.
+     *
+     * @return The key of the last element on this page, or null if there is no next page.
+     */
+    public K getNextKey() {
+        return nextKey;
+    }
+
+    /**
+     * Checks whether another page follows this one.
+     *
+     * @return true if there are more elements after this page, false otherwise.
+     */
+    public boolean hasNext() {
+        return nextKey != null;
+    }
+}
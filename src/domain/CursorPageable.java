@@ -0,0 +1,40 @@
+package domain;
+
+public class CursorPageable<K> {
+    private int pageSize;
+
+    private K afterKey;
+
+    /**
+     * Constructor to initialize a cursor-based Pageable with the given page size and cursor.
+     *
+     * @param pageSize The number of elements per page, at least 1.
+     * @param afterKey The key of the last element seen, or null to start from the first page.
+     * @throws IllegalArgumentException if pageSize is less than 1.
+     */
+    public CursorPageable(int pageSize, K afterKey) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be at least 1: " + pageSize);
+        }
+        this.pageSize = pageSize;
+        this.afterKey = afterKey;
+    }
+
+    /**
+     * Retrieves the page size, i.e., the number of elements per page.
+     *
+     * @return The number of elements to display per page.
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Retrieves the key after which the requested page starts.
+     *
+     * @return The key of the last element seen, or null for the first page.
+     */
+    public K getAfterKey() {
+        return afterKey;
+    }
+}
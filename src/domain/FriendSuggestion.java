@@ -0,0 +1,49 @@
+package domain;
+
+public class FriendSuggestion {
+    private final User user;
+
+    private final int mutualFriends;
+
+    private final double score;
+
+    /**
+     * Constructor to initialize a friend suggestion.
+     *
+     * @param user The suggested user.
+     * @param mutualFriends The number of friends the suggested user shares with the current user.
+     * @param score The ranking score of the suggestion.
+     */
+    public FriendSuggestion(User user, int mutualFriends, double score) {
+        this.user = user;
+        this.mutualFriends = mutualFriends;
+        this.score = score;
+    }
+
+    /**
+     * Retrieves the suggested user.
+     *
+     * @return The suggested user.
+     */
+    public User getUser() {
+        return user;
+    }
+
+    /**
+     * Retrieves the number of friends in common.
+     *
+     * @return The number of mutual friends.
+     */
+    public int getMutualFriends() {
+        return mutualFriends;
+    }
+
+    /**
+     * Retrieves the ranking score of the suggestion.
+     *
+     * @return The score; higher is a better suggestion.
+     */
+    public double getScore() {
+        return score;
+    }
+}
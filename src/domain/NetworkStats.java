@@ -0,0 +1,62 @@
+package domain;
+
+public class NetworkStats {
+    private final long triangles;
+
+    private final double transitivity;
+
+    private final double averageClustering;
+
+    private final long elapsedNanos;
+
+    /**
+     * Constructor to initialize the clustering statistics of the friendship network.
+     *
+     * @param triangles The number of groups of three users who are all friends with each other.
+     * @param transitivity The share of pairs of friends of a user who are friends themselves, over the whole network.
+     * @param averageClustering The local clustering coefficient averaged over all users.
+     * @param elapsedNanos The time it took to compute the statistics, in nanoseconds.
+     */
+    public NetworkStats(long triangles, double transitivity, double averageClustering, long elapsedNanos) {
+        this.triangles = triangles;
+        this.transitivity = transitivity;
+        this.averageClustering = averageClustering;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Retrieves the number of triangles of the network.
+     *
+     * @return The number of groups of three mutual friends.
+     */
+    public long getTriangles() {
+        return triangles;
+    }
+
+    /**
+     * Retrieves the global clustering coefficient of the network.
+     *
+     * @return The transitivity, between 0 and 1.
+     */
+    public double getTransitivity() {
+        return transitivity;
+    }
+
+    /**
+     * Retrieves the average local clustering coefficient of the network.
+     *
+     * @return The average clustering coefficient, between 0 and 1.
+     */
+    public double getAverageClustering() {
+        return averageClustering;
+    }
+
+    /**
+     * Retrieves the time it took to compute the statistics.
+     *
+     * @return The elapsed time in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
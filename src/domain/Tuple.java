@@ -82,10 +82,14 @@ public class Tuple<E1, E2> {
 
     /**
      * Generates a hash code for the tuple based on its elements.
+     * Like equals, it ignores the order of the elements, but it orders the two element hashes before combining them,
+     * so that pairs with the same sum, such as (1,4) and (2,3), no longer collide.
      * @return a hash code value for this tuple
      */
     @Override
     public int hashCode() {
-        return Objects.hash(e1) + Objects.hash(e2);
+        int h1 = Objects.hashCode(e1);
+        int h2 = Objects.hashCode(e2);
+        return 31 * Math.min(h1, h2) + Math.max(h1, h2);
     }
 }
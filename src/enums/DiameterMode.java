@@ -0,0 +1,10 @@
+package enums;
+
+/**
+ * How the diameter of a community is computed.
+ */
+public enum DiameterMode {
+    EXACT,       // iFUB until the bounds meet, however many searches it takes
+    APPROXIMATE, // Double sweeps from a few sampled users, a lower bound on the diameter
+    AUTO         // iFUB with a budget of searches, falling back to its lower bound when exceeded
+}
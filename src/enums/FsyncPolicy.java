@@ -0,0 +1,10 @@
+package enums;
+
+/**
+ * When the change log of a file repository is forced to disk.
+ */
+public enum FsyncPolicy {
+    ALWAYS,   // flush and fsync after every record
+    PERIODIC, // buffer records and flush + fsync them in the background at a fixed interval
+    NEVER     // leave flushing to the buffer and the OS; the log is only forced on compaction and close
+}
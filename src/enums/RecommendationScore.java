@@ -0,0 +1,9 @@
+package enums;
+
+/**
+ * How friend suggestions are ranked.
+ */
+public enum RecommendationScore {
+    MUTUAL_FRIENDS, // Number of friends in common
+    ADAMIC_ADAR     // Friends in common weighted by 1 / log(their number of friends), so hubs count less
+}
@@ -0,0 +1,9 @@
+package enums;
+
+/**
+ * Format of the periodic metrics report.
+ */
+public enum ReportFormat {
+    TEXT, // one line per instrument, for people
+    JSON  // one JSON object per report, for tools
+}
@@ -0,0 +1,9 @@
+package enums;
+
+/**
+ * On-disk format of the snapshot file of a file repository.
+ */
+public enum SnapshotFormat {
+    TEXT,  // one entity per line, as written by saveEntity
+    BINARY // fixed-layout records read through a memory-mapped buffer
+}
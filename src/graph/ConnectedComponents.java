@@ -0,0 +1,172 @@
+package graph;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * Connected components of a CsrGraph, computed with a lock-free union-find.
+ * Edges are united in parallel: a root is always linked under a smaller root with a compare-and-set,
+ * and finds compress paths by halving, so no recursion or per-vertex object is involved.
+ * The result gives the component of every vertex, the size of every component and its members.
+ */
+public class ConnectedComponents {
+    public static final int NO_COMPONENT = -1; // Component of a removed vertex
+
+    private final int[] componentOf; // Component of each vertex, dense from 0
+    private final int[] memberOffsets; // Start of each component's members in members, plus the total at the end
+    private final int[] members; // Vertices grouped by component
+
+    private ConnectedComponents(int[] componentOf, int[] memberOffsets, int[] members) {
+        this.componentOf = componentOf;
+        this.memberOffsets = memberOffsets;
+        this.members = members;
+    }
+
+    /**
+     * Computes the connected components of a graph on the common ForkJoin pool.
+     * @param graph the graph snapshot
+     * @return the components of the graph
+     */
+    public static ConnectedComponents of(CsrGraph graph) {
+        return of(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Computes the connected components of a graph on the given ForkJoin pool.
+     * @param graph the graph snapshot
+     * @param pool the pool the edges are united on
+     * @return the components of the graph
+     */
+    public static ConnectedComponents of(CsrGraph graph, ForkJoinPool pool) {
+        int n = graph.vertexBound();
+        AtomicIntegerArray parent = new AtomicIntegerArray(n);
+        for (int v = 0; v < n; v++) {
+            parent.set(v, v);
+        }
+
+        int[] offsets = graph.offsets();
+        int[] targets = graph.targets();
+        pool.submit(() -> IntStream.range(0, n).parallel().forEach(u -> {
+            for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+                int v = targets[i];
+                if (v > u) { // Each undirected edge is stored twice, unite it once
+                    union(parent, u, v);
+                }
+            }
+        })).join();
+
+        // Number the roots densely, in vertex order
+        int[] componentOf = new int[n];
+        int count = 0;
+        for (int v = 0; v < n; v++) {
+            if (!graph.isPresent(v)) {
+                componentOf[v] = NO_COMPONENT;
+            } else {
+                int root = find(parent, v);
+                componentOf[v] = root == v ? count++ : componentOf[root]; // Roots are never larger than their members
+            }
+        }
+
+        // Group the vertices by component with a counting sort
+        int[] memberOffsets = new int[count + 1];
+        for (int v = 0; v < n; v++) {
+            if (componentOf[v] != NO_COMPONENT) {
+                memberOffsets[componentOf[v] + 1]++;
+            }
+        }
+        for (int c = 0; c < count; c++) {
+            memberOffsets[c + 1] += memberOffsets[c];
+        }
+        int[] members = new int[memberOffsets[count]];
+        int[] next = new int[count];
+        for (int v = 0; v < n; v++) {
+            int c = componentOf[v];
+            if (c != NO_COMPONENT) {
+                members[memberOffsets[c] + next[c]++] = v;
+            }
+        }
+        return new ConnectedComponents(componentOf, memberOffsets, members);
+    }
+
+    private static int find(AtomicIntegerArray parent, int v) {
+        while (true) {
+            int p = parent.get(v);
+            if (p == v) {
+                return v;
+            }
+            int grandparent = parent.get(p);
+            if (grandparent == p) {
+                return p;
+            }
+            parent.compareAndSet(v, p, grandparent); // Path halving, losing the race is harmless
+            v = grandparent;
+        }
+    }
+
+    private static void union(AtomicIntegerArray parent, int u, int v) {
+        while (true) {
+            int rootU = find(parent, u);
+            int rootV = find(parent, v);
+            if (rootU == rootV) {
+                return;
+            }
+            int larger = Math.max(rootU, rootV);
+            int smaller = Math.min(rootU, rootV);
+            if (parent.compareAndSet(larger, larger, smaller)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of components.
+     * @return the number of components
+     */
+    public int count() {
+        return memberOffsets.length - 1;
+    }
+
+    /**
+     * Gets the component of a vertex.
+     * @param v the vertex index
+     * @return the component, or NO_COMPONENT if the vertex was removed
+     */
+    public int componentOf(int v) {
+        return componentOf[v];
+    }
+
+    /**
+     * Gets the number of vertices in a component.
+     * @param component the component
+     * @return the size of the component
+     */
+    public int size(int component) {
+        return memberOffsets[component + 1] - memberOffsets[component];
+    }
+
+    /**
+     * Gets the vertices of a component.
+     * @param component the component
+     * @return the vertex indexes of the component, in ascending order
+     */
+    public int[] members(int component) {
+        int[] result = new int[size(component)];
+        System.arraycopy(members, memberOffsets[component], result, 0, result.length);
+        return result;
+    }
+
+    /**
+     * Gets the component with the most vertices.
+     * @return the largest component, or NO_COMPONENT if there are none
+     */
+    public int largest() {
+        int largest = NO_COMPONENT;
+        for (int c = 0; c < count(); c++) {
+            if (largest == NO_COMPONENT || size(c) > size(largest)) {
+                largest = c;
+            }
+        }
+        return largest;
+    }
+}
@@ -0,0 +1,79 @@
+package graph;
+
+/**
+ * Immutable snapshot of a FriendshipGraph in compressed sparse row form.
+ * The neighbors of vertex v are targets[offsets[v]] to targets[offsets[v + 1] - 1], in ascending order.
+ * Vertex indexes are the same as in the graph the snapshot was taken from.
+ */
+public class CsrGraph {
+    private final long[] ids; // User ID of each vertex
+    private final boolean[] present; // False for removed vertices
+    private final int[] offsets; // Start of each vertex's neighbors in targets, plus the total at the end
+    private final int[] targets; // Neighbors of all vertices, back to back
+
+    CsrGraph(long[] ids, boolean[] present, int[] offsets, int[] targets) {
+        this.ids = ids;
+        this.present = present;
+        this.offsets = offsets;
+        this.targets = targets;
+    }
+
+    /**
+     * Gets the exclusive upper bound of the vertex indexes.
+     * @return the number of vertex slots, including removed vertices
+     */
+    public int vertexBound() {
+        return ids.length;
+    }
+
+    /**
+     * Checks whether a vertex index belongs to a vertex that has not been removed.
+     * @param v the vertex index
+     * @return true if the vertex is present
+     */
+    public boolean isPresent(int v) {
+        return present[v];
+    }
+
+    /**
+     * Gets the user ID of a vertex.
+     * @param v the vertex index
+     * @return the user ID
+     */
+    public long idOf(int v) {
+        return ids[v];
+    }
+
+    /**
+     * Gets the number of neighbors of a vertex.
+     * @param v the vertex index
+     * @return the degree of the vertex
+     */
+    public int degree(int v) {
+        return offsets[v + 1] - offsets[v];
+    }
+
+    /**
+     * Gets the offsets array; must not be modified.
+     * @return the offsets, one per vertex plus the total number of targets
+     */
+    public int[] offsets() {
+        return offsets;
+    }
+
+    /**
+     * Gets the targets array; must not be modified.
+     * @return the neighbors of all vertices, back to back
+     */
+    public int[] targets() {
+        return targets;
+    }
+
+    /**
+     * Gets the number of undirected edges.
+     * @return the number of edges
+     */
+    public long edgeCount() {
+        return targets.length / 2;
+    }
+}
@@ -0,0 +1,285 @@
+package graph;
+
+import enums.DiameterMode;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Computes the diameter (longest shortest path) of the communities of a CsrGraph.
+ * Exact diameters use iFUB: a double sweep gives a lower bound and a central start vertex, then the
+ * vertices farthest from the center are searched level by level until no remaining level can beat the bound.
+ * On real networks this needs a handful of searches instead of one per vertex.
+ * Every search is an array-based BFS over buffers borrowed from the engine for one community, reset after each use,
+ * and communities are processed in parallel.
+ */
+public class DiameterEngine {
+    public static final int DEFAULT_SEARCH_BUDGET = 64; // Searches per community allowed in AUTO mode
+    public static final int DEFAULT_SAMPLES = 8; // Sampled start vertices in APPROXIMATE mode
+
+    /**
+     * Search buffers of one community computation, sized for the whole graph.
+     * Distances are -1 outside a search; every search resets the entries it touched.
+     */
+    private static final class Workspace {
+        private final int[] distance;
+        private final int[] queue;
+        private final int[] predecessor;
+        private final int[] order; // Copy of the BFS order from the center, kept while other searches run
+
+        private Workspace(int vertexBound) {
+            distance = new int[vertexBound];
+            Arrays.fill(distance, -1);
+            queue = new int[vertexBound];
+            predecessor = new int[vertexBound];
+            order = new int[vertexBound];
+        }
+    }
+
+    private final CsrGraph graph;
+    private final int searchBudget;
+    private final int samples;
+    private final ConcurrentLinkedQueue<Workspace> workspaces = new ConcurrentLinkedQueue<>(); // Idle buffers, at most one per concurrent task
+
+    /**
+     * Constructor for DiameterEngine with the default search budget and sample count.
+     * @param graph the graph snapshot
+     */
+    public DiameterEngine(CsrGraph graph) {
+        this(graph, DEFAULT_SEARCH_BUDGET, DEFAULT_SAMPLES);
+    }
+
+    /**
+     * Constructor for DiameterEngine.
+     * @param graph the graph snapshot
+     * @param searchBudget the number of searches per community after which AUTO mode settles for a lower bound
+     * @param samples the number of sampled start vertices in APPROXIMATE mode
+     */
+    public DiameterEngine(CsrGraph graph, int searchBudget, int samples) {
+        this.graph = graph;
+        this.searchBudget = searchBudget;
+        this.samples = samples;
+    }
+
+    /**
+     * Computes the diameter of every community in parallel on the common ForkJoin pool.
+     * @param components the communities of the graph
+     * @param mode how each diameter is computed
+     * @return the result of each community, indexed by component
+     */
+    public List<DiameterResult> diameters(ConnectedComponents components, DiameterMode mode) {
+        return diameters(components, mode, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Computes the diameter of every community in parallel on the given ForkJoin pool.
+     * @param components the communities of the graph
+     * @param mode how each diameter is computed
+     * @param pool the pool the communities are processed on
+     * @return the result of each community, indexed by component
+     */
+    public List<DiameterResult> diameters(ConnectedComponents components, DiameterMode mode, ForkJoinPool pool) {
+        return pool.submit(() -> IntStream.range(0, components.count()).parallel()
+                .mapToObj(c -> diameter(c, components.members(c), mode))
+                .collect(Collectors.toList())).join();
+    }
+
+    /**
+     * Finds the community with the largest diameter; ties go to the larger community.
+     * @param components the communities of the graph
+     * @param mode how each diameter is computed
+     * @return the result of that community, or null if the graph has no vertices
+     */
+    public DiameterResult largest(ConnectedComponents components, DiameterMode mode) {
+        DiameterResult best = null;
+        for (DiameterResult result : diameters(components, mode)) {
+            if (best == null || result.getDiameter() > best.getDiameter()
+                    || (result.getDiameter() == best.getDiameter()
+                        && components.size(result.getComponent()) > components.size(best.getComponent()))) {
+                best = result;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Computes the diameter of one community.
+     * @param component the component the members belong to
+     * @param members the vertices of the community
+     * @param mode how the diameter is computed
+     * @return the diameter and a path of that length
+     */
+    public DiameterResult diameter(int component, int[] members, DiameterMode mode) {
+        long start = System.nanoTime();
+        if (members.length <= 2) {
+            int[] path = members.length == 2 ? new int[]{members[0], members[1]} : members.clone();
+            return new DiameterResult(component, path.length - 1, path, true, System.nanoTime() - start);
+        }
+        // Buffers go back to the engine, not to the worker thread, so they are freed with the engine
+        Workspace workspace = workspaces.poll();
+        if (workspace == null) {
+            workspace = new Workspace(graph.vertexBound());
+        }
+        try {
+            int[] bound = mode == DiameterMode.APPROXIMATE ? sampledBound(members, workspace) : ifub(members, mode, workspace);
+            // bound = {diameter, one end, other end, exact ? 1 : 0}
+            int[] path = path(bound[1], bound[2], workspace);
+            return new DiameterResult(component, bound[0], path, bound[3] == 1, System.nanoTime() - start);
+        } finally {
+            workspaces.offer(workspace);
+        }
+    }
+
+    /**
+     * iFUB from the middle of a double sweep.
+     * @return the diameter bound, its two ends and whether it is exact
+     */
+    private int[] ifub(int[] members, DiameterMode mode, Workspace workspace) {
+        int highestDegree = members[0];
+        for (int v : members) {
+            if (graph.degree(v) > graph.degree(highestDegree)) {
+                highestDegree = v;
+            }
+        }
+
+        // Double sweep: the farthest vertex from a hub, then the farthest vertex from that one
+        int reached = bfs(highestDegree, workspace, false);
+        int a = workspace.queue[reached - 1];
+        reset(workspace, reached);
+        reached = bfs(a, workspace, true);
+        int b = workspace.queue[reached - 1];
+        int lowerBound = workspace.distance[b];
+        int bestFrom = a;
+        int bestTo = b;
+        int center = b;
+        for (int step = 0; step < lowerBound / 2; step++) {
+            center = workspace.predecessor[center]; // Walk back to the middle of the path from a to b
+        }
+        reset(workspace, reached);
+        int searches = 2;
+
+        // Order the vertices by distance from the center
+        reached = bfs(center, workspace, false);
+        int[] order = workspace.order;
+        System.arraycopy(workspace.queue, 0, order, 0, reached);
+        int eccentricity = workspace.distance[order[reached - 1]];
+        int[] levelEnd = new int[eccentricity + 1];
+        for (int i = 0; i < reached; i++) {
+            levelEnd[workspace.distance[order[i]]] = i + 1;
+        }
+        reset(workspace, reached);
+        searches++;
+        if (eccentricity > lowerBound) {
+            lowerBound = eccentricity;
+            bestFrom = center;
+            bestTo = order[reached - 1];
+        }
+
+        // Once every level above i is searched, no unsearched pair is farther apart than 2i
+        for (int level = eccentricity; level > 0 && lowerBound < 2 * level; level--) {
+            for (int i = levelEnd[level - 1]; i < levelEnd[level]; i++) {
+                if (mode == DiameterMode.AUTO && searches >= searchBudget) {
+                    return new int[]{lowerBound, bestFrom, bestTo, 0};
+                }
+                int from = order[i];
+                int fromReached = bfs(from, workspace, false);
+                int farthest = workspace.queue[fromReached - 1];
+                if (workspace.distance[farthest] > lowerBound) {
+                    lowerBound = workspace.distance[farthest];
+                    bestFrom = from;
+                    bestTo = farthest;
+                }
+                reset(workspace, fromReached);
+                searches++;
+            }
+        }
+        return new int[]{lowerBound, bestFrom, bestTo, 1};
+    }
+
+    /**
+     * Double sweeps from sampled vertices; exact only if the sweeps' upper bound meets the lower bound.
+     * @return the diameter bound, its two ends and whether it is exact
+     */
+    private int[] sampledBound(int[] members, Workspace workspace) {
+        Random random = new Random(members[0]); // Deterministic per community
+        int lowerBound = -1;
+        int upperBound = Integer.MAX_VALUE;
+        int bestFrom = members[0];
+        int bestTo = members[0];
+        for (int sample = 0; sample < samples; sample++) {
+            int source = members[random.nextInt(members.length)];
+            int reached = bfs(source, workspace, false);
+            int a = workspace.queue[reached - 1];
+            upperBound = Math.min(upperBound, 2 * workspace.distance[a]); // No path is longer than twice an eccentricity
+            reset(workspace, reached);
+
+            reached = bfs(a, workspace, false);
+            int b = workspace.queue[reached - 1];
+            if (workspace.distance[b] > lowerBound) {
+                lowerBound = workspace.distance[b];
+                bestFrom = a;
+                bestTo = b;
+            }
+            reset(workspace, reached);
+        }
+        return new int[]{lowerBound, bestFrom, bestTo, lowerBound == upperBound ? 1 : 0};
+    }
+
+    /**
+     * Breadth First Search from a vertex; the queue ends with the farthest vertex.
+     * @return the number of vertices reached
+     */
+    private int bfs(int source, Workspace workspace, boolean trackPredecessors) {
+        int[] offsets = graph.offsets();
+        int[] targets = graph.targets();
+        int[] distance = workspace.distance;
+        int[] queue = workspace.queue;
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = source;
+        distance[source] = 0;
+        if (trackPredecessors) {
+            workspace.predecessor[source] = -1;
+        }
+        while (head < tail) {
+            int current = queue[head++];
+            int next = distance[current] + 1;
+            for (int i = offsets[current]; i < offsets[current + 1]; i++) {
+                int neighbor = targets[i];
+                if (distance[neighbor] == -1) {
+                    distance[neighbor] = next;
+                    if (trackPredecessors) {
+                        workspace.predecessor[neighbor] = current;
+                    }
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        return tail;
+    }
+
+    private static void reset(Workspace workspace, int reached) {
+        for (int i = 0; i < reached; i++) {
+            workspace.distance[workspace.queue[i]] = -1;
+        }
+    }
+
+    /**
+     * Rebuilds a shortest path between two vertices.
+     * @return the vertices of the path, from the first to the second
+     */
+    private int[] path(int from, int to, Workspace workspace) {
+        int reached = bfs(from, workspace, true);
+        int[] path = new int[workspace.distance[to] + 1];
+        for (int i = path.length - 1, node = to; i >= 0; i--, node = workspace.predecessor[node]) {
+            path[i] = node;
+        }
+        reset(workspace, reached);
+        return path;
+    }
+}
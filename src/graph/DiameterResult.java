@@ -0,0 +1,54 @@
+package graph;
+
+/**
+ * Diameter of one community: its length, a longest shortest path and how it was obtained.
+ */
+public class DiameterResult {
+    private final int component; // Component the result belongs to
+    private final int diameter; // Number of edges of the longest shortest path found
+    private final int[] path; // Vertex indexes of the path, from one end to the other
+    private final boolean exact; // False if the diameter is only a lower bound
+    private final long elapsedNanos; // Time spent on the component
+
+    DiameterResult(int component, int diameter, int[] path, boolean exact, long elapsedNanos) {
+        this.component = component;
+        this.diameter = diameter;
+        this.path = path;
+        this.exact = exact;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getComponent() {
+        return component;
+    }
+
+    public int getDiameter() {
+        return diameter;
+    }
+
+    /**
+     * Gets the longest shortest path found.
+     * @return the vertex indexes of the path, diameter + 1 of them
+     */
+    public int[] getPath() {
+        return path.clone();
+    }
+
+    public boolean isExact() {
+        return exact;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "DiameterResult{" +
+                "component=" + component +
+                ", diameter=" + diameter +
+                ", exact=" + exact +
+                ", elapsedMillis=" + elapsedNanos / 1_000_000.0 +
+                '}';
+    }
+}
@@ -0,0 +1,236 @@
+package graph;
+
+import enums.RecommendationScore;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * "People you may know" suggestions over the graph of approved friendships.
+ * Candidates are the friends of a user's friends: a counter array accumulates, in one pass over those
+ * neighbor lists, the mutual friends of every candidate and its Adamic-Adar score.
+ * Friends with more than HUB_DEGREE friends are not expanded, since they would touch a large part of the graph
+ * for a tiny Adamic-Adar weight; the mutual counts of the suggestions are then made exact by intersecting
+ * the sorted neighbor arrays. The best suggestions are kept in a bounded min-heap.
+ * The top CACHE_SIZE suggestions of each user are cached until a friendship within two hops of the user changes.
+ */
+public class FriendRecommender {
+    public static final int HUB_DEGREE = 5_000; // Friends with more friends than this are not expanded
+    public static final int CACHE_SIZE = 50; // Suggestions cached per user and score
+
+    private final FriendshipGraph friends; // Approved friendships, used for scoring
+    private final FriendshipGraph existing; // Every friendship or request; its pairs are never suggested
+    private final Recommendation[][][] cache = new Recommendation[RecommendationScore.values().length][][];
+
+    // Scratch space of one computation, indexed by vertex
+    private int[] mutualCount = new int[0];
+    private double[] adamicAdar = new double[0];
+    private final IntList touched = new IntList();
+
+    /**
+     * Constructor for FriendRecommender.
+     * @param friends the graph of approved friendships
+     * @param existing the graph of every friendship, pending and rejected ones included
+     */
+    public FriendRecommender(FriendshipGraph friends, FriendshipGraph existing) {
+        this.friends = friends;
+        this.existing = existing;
+        for (int s = 0; s < cache.length; s++) {
+            cache[s] = new Recommendation[0][];
+        }
+    }
+
+    /**
+     * Suggests new friends for a user.
+     * @param userId the ID of the user
+     * @param limit the maximum number of suggestions
+     * @param scoreType how suggestions are ranked
+     * @return the suggestions, best first
+     */
+    public synchronized List<Recommendation> recommend(long userId, int limit, RecommendationScore scoreType) {
+        int u = friends.indexOf(userId);
+        if (u == LongIntHashMap.MISSING || limit <= 0) {
+            return Collections.emptyList();
+        }
+        Recommendation[][] scoreCache = cache[scoreType.ordinal()];
+        Recommendation[] result = u < scoreCache.length ? scoreCache[u] : null;
+        if (result == null || (result.length == CACHE_SIZE && limit > CACHE_SIZE)) {
+            result = compute(u, Math.max(limit, CACHE_SIZE), scoreType);
+            if (limit <= CACHE_SIZE) {
+                if (u >= scoreCache.length) {
+                    scoreCache = Arrays.copyOf(scoreCache, Math.max(friends.vertexBound(), u + 1));
+                    cache[scoreType.ordinal()] = scoreCache;
+                }
+                scoreCache[u] = result;
+            }
+        }
+        return Collections.unmodifiableList(Arrays.asList(result).subList(0, Math.min(limit, result.length)));
+    }
+
+    /**
+     * Drops the cached suggestions a change of the friendship between two users can affect:
+     * those of the two users and of their friends.
+     * @param userId1 the ID of the first user
+     * @param userId2 the ID of the second user
+     */
+    public synchronized void friendshipChanged(long userId1, long userId2) {
+        forget(userId1);
+        forget(userId2);
+    }
+
+    private void forget(long userId) {
+        int v = friends.indexOf(userId);
+        if (v == LongIntHashMap.MISSING) {
+            return; // Users without approved friends have no suggestions to forget
+        }
+        for (Recommendation[][] scoreCache : cache) {
+            if (v < scoreCache.length) {
+                scoreCache[v] = null;
+            }
+            int[] adjacent = friends.adjacency(v);
+            for (int i = 0, degree = friends.degree(v); i < degree; i++) {
+                if (adjacent[i] < scoreCache.length) {
+                    scoreCache[adjacent[i]] = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops every cached suggestion, e.g. after a user was removed.
+     */
+    public synchronized void clear() {
+        for (int s = 0; s < cache.length; s++) {
+            cache[s] = new Recommendation[0][];
+        }
+    }
+
+    private Recommendation[] compute(int u, int limit, RecommendationScore scoreType) {
+        ensureCapacity(friends.vertexBound());
+        int[] userFriends = friends.adjacency(u);
+        int userDegree = friends.degree(u);
+        long userId = friends.idOf(u);
+        boolean skippedHub = false;
+
+        // Accumulate every friend of a friend
+        for (int i = 0; i < userDegree; i++) {
+            int friend = userFriends[i];
+            int friendDegree = friends.degree(friend);
+            if (friendDegree > HUB_DEGREE) {
+                skippedHub = true;
+                continue;
+            }
+            double weight = 1.0 / Math.log(Math.max(2, friendDegree));
+            int[] friendsOfFriend = friends.adjacency(friend);
+            for (int j = 0; j < friendDegree; j++) {
+                int candidate = friendsOfFriend[j];
+                if (candidate == u) {
+                    continue;
+                }
+                if (mutualCount[candidate] == 0) {
+                    touched.add(candidate);
+                }
+                mutualCount[candidate]++;
+                adamicAdar[candidate] += weight;
+            }
+        }
+
+        // Keep the best candidates that are not friends yet
+        int[] heap = new int[limit];
+        int heapSize = 0;
+        for (int t = 0; t < touched.size(); t++) {
+            int candidate = touched.get(t);
+            if (Arrays.binarySearch(userFriends, 0, userDegree, candidate) >= 0
+                    || existing.hasEdge(userId, friends.idOf(candidate))) {
+                continue;
+            }
+            if (heapSize < limit) {
+                heap[heapSize] = candidate;
+                siftUp(heap, heapSize++, scoreType);
+            } else if (better(candidate, heap[0], scoreType)) {
+                heap[0] = candidate;
+                siftDown(heap, heapSize, scoreType);
+            }
+        }
+
+        Recommendation[] result = new Recommendation[heapSize];
+        for (int i = heapSize - 1; i >= 0; i--) {
+            int candidate = heap[0];
+            int mutual = mutualCount[candidate];
+            if (skippedHub) {
+                // Hubs were skipped above, so count the mutual friends exactly
+                mutual = SetIntersection.count(userFriends, userDegree, friends.adjacency(candidate), friends.degree(candidate));
+            }
+            double score = scoreType == RecommendationScore.ADAMIC_ADAR ? adamicAdar[candidate] : mutual;
+            result[i] = new Recommendation(candidate, mutual, score);
+            heap[0] = heap[--heapSize];
+            siftDown(heap, heapSize, scoreType);
+        }
+        if (skippedHub) {
+            // The exact counts can change the order found with the partial ones
+            Arrays.sort(result, Comparator.comparingDouble(Recommendation::getScore).reversed()
+                    .thenComparingInt(Recommendation::getVertex));
+        }
+
+        for (int t = 0; t < touched.size(); t++) {
+            mutualCount[touched.get(t)] = 0;
+            adamicAdar[touched.get(t)] = 0;
+        }
+        touched.clear();
+        return result;
+    }
+
+    /**
+     * Compares two candidates; ties go to the lower vertex index so results are stable.
+     */
+    private boolean better(int a, int b, RecommendationScore scoreType) {
+        double scoreA = scoreType == RecommendationScore.ADAMIC_ADAR ? adamicAdar[a] : mutualCount[a];
+        double scoreB = scoreType == RecommendationScore.ADAMIC_ADAR ? adamicAdar[b] : mutualCount[b];
+        return scoreA > scoreB || (scoreA == scoreB && a < b);
+    }
+
+    private void siftUp(int[] heap, int i, RecommendationScore scoreType) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!better(heap[parent], heap[i], scoreType)) {
+                break;
+            }
+            int swap = heap[parent];
+            heap[parent] = heap[i];
+            heap[i] = swap;
+            i = parent;
+        }
+    }
+
+    private void siftDown(int[] heap, int size, RecommendationScore scoreType) {
+        int i = 0;
+        while (true) {
+            int worst = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && better(heap[worst], heap[left], scoreType)) {
+                worst = left;
+            }
+            if (right < size && better(heap[worst], heap[right], scoreType)) {
+                worst = right;
+            }
+            if (worst == i) {
+                return;
+            }
+            int swap = heap[worst];
+            heap[worst] = heap[i];
+            heap[i] = swap;
+            i = worst;
+        }
+    }
+
+    private void ensureCapacity(int vertexBound) {
+        if (mutualCount.length < vertexBound) {
+            int capacity = Math.max(vertexBound, mutualCount.length + (mutualCount.length >> 1));
+            mutualCount = Arrays.copyOf(mutualCount, capacity);
+            adamicAdar = Arrays.copyOf(adamicAdar, capacity);
+        }
+    }
+}
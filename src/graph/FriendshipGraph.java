@@ -0,0 +1,325 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * Undirected friendship graph stored in primitive arrays.
+ * User IDs are mapped to dense int vertex indexes, and each vertex keeps its neighbors in a sorted int array,
+ * so an edge costs 8 bytes instead of two boxed list entries.
+ * Edges can be added and removed in place; a removed vertex keeps its index and is only marked absent,
+ * so indexes handed out earlier stay valid.
+ */
+public class FriendshipGraph {
+    private static final int[] NO_NEIGHBORS = new int[0];
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final LongIntHashMap index; // Vertex index of each user ID
+    private long[] ids; // User ID of each vertex
+    private boolean[] present; // False for removed vertices
+    private int[][] neighbors; // Sorted neighbors of each vertex, only the first degrees[v] entries are used
+    private int[] degrees; // Number of neighbors of each vertex
+    private int vertexBound = 0; // Number of vertex indexes handed out
+    private int vertexCount = 0; // Number of present vertices
+    private long edgeCount = 0; // Number of undirected edges
+
+    /**
+     * Constructor for an empty FriendshipGraph.
+     */
+    public FriendshipGraph() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructor for a FriendshipGraph sized for an expected number of vertices.
+     * @param expectedVertices the number of vertices the graph should hold without resizing
+     */
+    public FriendshipGraph(int expectedVertices) {
+        int capacity = Math.max(INITIAL_CAPACITY, expectedVertices);
+        index = new LongIntHashMap(capacity);
+        ids = new long[capacity];
+        present = new boolean[capacity];
+        neighbors = new int[capacity][];
+        degrees = new int[capacity];
+    }
+
+    /**
+     * Adds a vertex for a user, or restores it if it was removed.
+     * @param id the ID of the user
+     * @return the vertex index of the user
+     */
+    public int addVertex(long id) {
+        int v = index.get(id);
+        if (v == LongIntHashMap.MISSING) {
+            if (vertexBound == ids.length) {
+                int capacity = ids.length + (ids.length >> 1);
+                ids = Arrays.copyOf(ids, capacity);
+                present = Arrays.copyOf(present, capacity);
+                neighbors = Arrays.copyOf(neighbors, capacity);
+                degrees = Arrays.copyOf(degrees, capacity);
+            }
+            v = vertexBound++;
+            ids[v] = id;
+            neighbors[v] = NO_NEIGHBORS;
+            index.put(id, v);
+        }
+        if (!present[v]) {
+            present[v] = true;
+            vertexCount++;
+        }
+        return v;
+    }
+
+    /**
+     * Removes a user's vertex together with all of its edges.
+     * @param id the ID of the user
+     * @return true if the vertex was present
+     */
+    public boolean removeVertex(long id) {
+        int v = indexOf(id);
+        if (v == LongIntHashMap.MISSING) {
+            return false;
+        }
+        int[] adjacent = neighbors[v];
+        for (int i = 0; i < degrees[v]; i++) {
+            removeSorted(adjacent[i], v);
+        }
+        edgeCount -= degrees[v];
+        neighbors[v] = NO_NEIGHBORS;
+        degrees[v] = 0;
+        present[v] = false;
+        vertexCount--;
+        return true;
+    }
+
+    /**
+     * Adds an undirected edge between two users, adding their vertices if needed.
+     * @param id1 the ID of the first user
+     * @param id2 the ID of the second user
+     * @return true if the edge was added, false if it already existed or both IDs are the same
+     */
+    public boolean addEdge(long id1, long id2) {
+        if (id1 == id2) {
+            return false;
+        }
+        int u = addVertex(id1);
+        int v = addVertex(id2);
+        if (!insertSorted(u, v)) {
+            return false;
+        }
+        insertSorted(v, u);
+        edgeCount++;
+        return true;
+    }
+
+    /**
+     * Removes the undirected edge between two users.
+     * @param id1 the ID of the first user
+     * @param id2 the ID of the second user
+     * @return true if the edge existed
+     */
+    public boolean removeEdge(long id1, long id2) {
+        int u = indexOf(id1);
+        int v = indexOf(id2);
+        if (u == LongIntHashMap.MISSING || v == LongIntHashMap.MISSING || !removeSorted(u, v)) {
+            return false;
+        }
+        removeSorted(v, u);
+        edgeCount--;
+        return true;
+    }
+
+    /**
+     * Checks whether two users are connected by an edge.
+     * @param id1 the ID of the first user
+     * @param id2 the ID of the second user
+     * @return true if the edge exists
+     */
+    public boolean hasEdge(long id1, long id2) {
+        int u = indexOf(id1);
+        int v = indexOf(id2);
+        return u != LongIntHashMap.MISSING && v != LongIntHashMap.MISSING
+                && Arrays.binarySearch(neighbors[u], 0, degrees[u], v) >= 0;
+    }
+
+    private boolean insertSorted(int u, int v) {
+        int position = Arrays.binarySearch(neighbors[u], 0, degrees[u], v);
+        if (position >= 0) {
+            return false;
+        }
+        position = -position - 1;
+        int[] adjacent = neighbors[u];
+        if (degrees[u] == adjacent.length) {
+            adjacent = Arrays.copyOf(adjacent, Math.max(4, adjacent.length + (adjacent.length >> 1)));
+            neighbors[u] = adjacent;
+        }
+        System.arraycopy(adjacent, position, adjacent, position + 1, degrees[u] - position);
+        adjacent[position] = v;
+        degrees[u]++;
+        return true;
+    }
+
+    private boolean removeSorted(int u, int v) {
+        int position = Arrays.binarySearch(neighbors[u], 0, degrees[u], v);
+        if (position < 0) {
+            return false;
+        }
+        System.arraycopy(neighbors[u], position + 1, neighbors[u], position, degrees[u] - position - 1);
+        degrees[u]--;
+        return true;
+    }
+
+    /**
+     * Gets the vertex index of a user.
+     * @param id the ID of the user
+     * @return the vertex index, or LongIntHashMap.MISSING if the user has no present vertex
+     */
+    public int indexOf(long id) {
+        int v = index.get(id);
+        return v != LongIntHashMap.MISSING && present[v] ? v : LongIntHashMap.MISSING;
+    }
+
+    /**
+     * Checks whether a user has a vertex in the graph.
+     * @param id the ID of the user
+     * @return true if the vertex is present
+     */
+    public boolean containsVertex(long id) {
+        return indexOf(id) != LongIntHashMap.MISSING;
+    }
+
+    /**
+     * Gets the user ID of a vertex.
+     * @param v the vertex index
+     * @return the user ID
+     */
+    public long idOf(int v) {
+        return ids[v];
+    }
+
+    /**
+     * Checks whether a vertex index belongs to a vertex that has not been removed.
+     * @param v the vertex index
+     * @return true if the vertex is present
+     */
+    public boolean isPresent(int v) {
+        return present[v];
+    }
+
+    /**
+     * Gets the exclusive upper bound of the vertex indexes, for sizing per-vertex arrays.
+     * @return the number of vertex indexes handed out, including removed vertices
+     */
+    public int vertexBound() {
+        return vertexBound;
+    }
+
+    /**
+     * Gets the number of present vertices.
+     * @return the number of vertices
+     */
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Gets the number of undirected edges.
+     * @return the number of edges
+     */
+    public long edgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Gets the number of neighbors of a vertex.
+     * @param v the vertex index
+     * @return the degree of the vertex
+     */
+    public int degree(int v) {
+        return degrees[v];
+    }
+
+    /**
+     * Gets the internal neighbor array of a vertex, sorted ascending.
+     * Only the first degree(v) entries are neighbors, and the array must not be modified.
+     * @param v the vertex index
+     * @return the neighbor array of the vertex
+     */
+    public int[] adjacency(int v) {
+        return neighbors[v];
+    }
+
+    /**
+     * Gets the user IDs of a user's neighbors.
+     * @param id the ID of the user
+     * @return the IDs of the neighbors, empty if the user has no vertex
+     */
+    public long[] neighbors(long id) {
+        int v = indexOf(id);
+        if (v == LongIntHashMap.MISSING) {
+            return new long[0];
+        }
+        long[] result = new long[degrees[v]];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = ids[neighbors[v][i]];
+        }
+        return result;
+    }
+
+    /**
+     * Gets the user IDs of the neighbors two users have in common.
+     * @param id1 the ID of the first user
+     * @param id2 the ID of the second user
+     * @return the IDs of the common neighbors, in vertex order
+     */
+    public long[] commonNeighbors(long id1, long id2) {
+        int u = indexOf(id1);
+        int v = indexOf(id2);
+        if (u == LongIntHashMap.MISSING || v == LongIntHashMap.MISSING) {
+            return new long[0];
+        }
+        int[] common = new int[Math.min(degrees[u], degrees[v])];
+        int size = SetIntersection.intersect(neighbors[u], degrees[u], neighbors[v], degrees[v], common);
+        long[] result = new long[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = ids[common[i]];
+        }
+        return result;
+    }
+
+    /**
+     * Counts the neighbors a user has in common with each of several other users.
+     * @param id the ID of the user
+     * @param others the IDs of the other users
+     * @return the number of common neighbors with each other user, in the same order
+     */
+    public int[] commonNeighborCounts(long id, long[] others) {
+        int[] counts = new int[others.length];
+        int u = indexOf(id);
+        if (u == LongIntHashMap.MISSING) {
+            return counts;
+        }
+        for (int i = 0; i < others.length; i++) {
+            int v = indexOf(others[i]);
+            if (v != LongIntHashMap.MISSING) {
+                counts[i] = SetIntersection.count(neighbors[u], degrees[u], neighbors[v], degrees[v]);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Takes an immutable compressed sparse row snapshot of the graph.
+     * @return the snapshot, with the same vertex indexes as this graph
+     */
+    public CsrGraph toCsr() {
+        int[] offsets = new int[vertexBound + 1];
+        for (int v = 0; v < vertexBound; v++) {
+            offsets[v + 1] = offsets[v] + degrees[v];
+        }
+        int[] targets = new int[offsets[vertexBound]];
+        for (int v = 0; v < vertexBound; v++) {
+            System.arraycopy(neighbors[v], 0, targets, offsets[v], degrees[v]);
+        }
+        return new CsrGraph(Arrays.copyOf(ids, vertexBound), Arrays.copyOf(present, vertexBound), offsets, targets);
+    }
+}
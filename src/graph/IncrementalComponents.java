@@ -0,0 +1,272 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * Connected components of a FriendshipGraph kept up to date while the graph changes.
+ * All graph changes go through this class, which updates the graph and the components together.
+ * Every vertex carries the label of its component and every label keeps the list of its members.
+ * Adding an edge between two components relabels the smaller one into the larger one, so a vertex
+ * is relabeled at most O(log n) times over all insertions.
+ * Removing an edge or a vertex only marks its component as dirty; dirty components are split again
+ * by a traversal restricted to their own members the next time a query needs them.
+ * With no pending removals, count and componentOf are O(1).
+ */
+public class IncrementalComponents {
+    private static final int[] NO_MEMBERS = new int[0];
+
+    private final FriendshipGraph graph;
+    private int[] label = new int[0]; // Component label of each vertex, -1 for removed vertices
+    private int[][] members = new int[0][]; // Members of each label; a label is the index of one of its members
+    private int[] memberCount = new int[0]; // Number of entries used in each members array
+    private boolean[] dirty = new boolean[0]; // Labels whose component may have been split
+    private IntList dirtyLabels = new IntList(); // Dirty labels waiting for a repair
+    private int count = 0; // Number of labels in use
+    private int[] queue = new int[0]; // Traversal queue reused by every repair
+    private int[] visitStamp = new int[0]; // Repair in which each vertex was last visited
+    private int stamp = 0;
+
+    /**
+     * Constructor for IncrementalComponents.
+     * The components of the vertices and edges already in the graph are computed once.
+     * @param graph the graph whose components are tracked
+     */
+    public IncrementalComponents(FriendshipGraph graph) {
+        this.graph = graph;
+        ensureCapacity(graph.vertexBound());
+        Arrays.fill(label, -1);
+        ConnectedComponents initial = ConnectedComponents.of(graph.toCsr());
+        for (int c = 0; c < initial.count(); c++) {
+            int[] component = initial.members(c);
+            int componentLabel = component[0];
+            for (int v : component) {
+                label[v] = componentLabel;
+            }
+            members[componentLabel] = component;
+            memberCount[componentLabel] = component.length;
+            count++;
+        }
+    }
+
+    /**
+     * Adds a vertex for a user as a component of its own.
+     * @param id the ID of the user
+     * @return the vertex index of the user
+     */
+    public int addVertex(long id) {
+        repair(); // A pending repair may still hold the label this vertex would get
+        boolean existed = graph.containsVertex(id);
+        int v = graph.addVertex(id);
+        if (!existed) {
+            ensureCapacity(graph.vertexBound());
+            label[v] = v;
+            members[v] = new int[]{v};
+            memberCount[v] = 1;
+            count++;
+        }
+        return v;
+    }
+
+    /**
+     * Removes a user's vertex and its edges; the component it belonged to is split lazily.
+     * @param id the ID of the user
+     * @return true if the vertex was present
+     */
+    public boolean removeVertex(long id) {
+        int v = graph.indexOf(id);
+        if (!graph.removeVertex(id)) {
+            return false;
+        }
+        markDirty(label[v]);
+        return true;
+    }
+
+    /**
+     * Adds an edge between two users, adding their vertices if needed, and merges their components.
+     * @param id1 the ID of the first user
+     * @param id2 the ID of the second user
+     * @return true if the edge was added
+     */
+    public boolean addEdge(long id1, long id2) {
+        if (id1 == id2) {
+            return false;
+        }
+        int u = addVertex(id1);
+        int v = addVertex(id2);
+        if (!graph.addEdge(id1, id2)) {
+            return false;
+        }
+        merge(label[u], label[v]);
+        return true;
+    }
+
+    /**
+     * Removes the edge between two users; their component is split lazily.
+     * @param id1 the ID of the first user
+     * @param id2 the ID of the second user
+     * @return true if the edge existed
+     */
+    public boolean removeEdge(long id1, long id2) {
+        if (!graph.removeEdge(id1, id2)) {
+            return false;
+        }
+        markDirty(label[graph.indexOf(id1)]);
+        return true;
+    }
+
+    /**
+     * Gets the number of components.
+     * @return the number of components
+     */
+    public int count() {
+        repair();
+        return count;
+    }
+
+    /**
+     * Gets the component of a user.
+     * @param id the ID of the user
+     * @return the label of the user's component, or -1 if the user has no vertex
+     */
+    public int componentOf(long id) {
+        int v = graph.indexOf(id);
+        if (v == LongIntHashMap.MISSING) {
+            return -1;
+        }
+        repair();
+        return label[v];
+    }
+
+    /**
+     * Gets the user IDs of the members of a user's component.
+     * @param id the ID of the user
+     * @return the IDs of the members, empty if the user has no vertex
+     */
+    public long[] membersOf(long id) {
+        int componentLabel = componentOf(id);
+        if (componentLabel == -1) {
+            return new long[0];
+        }
+        long[] result = new long[memberCount[componentLabel]];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = graph.idOf(members[componentLabel][i]);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the size of a user's component.
+     * @param id the ID of the user
+     * @return the number of members, 0 if the user has no vertex
+     */
+    public int sizeOf(long id) {
+        int componentLabel = componentOf(id);
+        return componentLabel == -1 ? 0 : memberCount[componentLabel];
+    }
+
+    private void merge(int a, int b) {
+        if (a == b) {
+            return;
+        }
+        int large = memberCount[a] >= memberCount[b] ? a : b;
+        int small = large == a ? b : a;
+        int[] moved = members[small];
+        for (int i = 0; i < memberCount[small]; i++) {
+            label[moved[i]] = large;
+            append(large, moved[i]);
+        }
+        members[small] = NO_MEMBERS;
+        memberCount[small] = 0;
+        if (dirty[small]) {
+            dirty[small] = false;
+            markDirty(large); // The merged component may still contain the split
+        }
+        count--;
+    }
+
+    private void append(int componentLabel, int v) {
+        int[] list = members[componentLabel];
+        if (memberCount[componentLabel] == list.length) {
+            list = Arrays.copyOf(list, Math.max(4, list.length << 1));
+            members[componentLabel] = list;
+        }
+        list[memberCount[componentLabel]++] = v;
+    }
+
+    private void markDirty(int componentLabel) {
+        if (!dirty[componentLabel]) {
+            dirty[componentLabel] = true;
+            dirtyLabels.add(componentLabel);
+        }
+    }
+
+    /**
+     * Splits every dirty component into its actual components.
+     * Only the members of the dirty components are traversed.
+     */
+    private void repair() {
+        for (int d = 0; d < dirtyLabels.size(); d++) {
+            int dirtyLabel = dirtyLabels.get(d);
+            if (!dirty[dirtyLabel]) {
+                continue; // Merged away or already repaired
+            }
+            dirty[dirtyLabel] = false;
+            int[] oldMembers = members[dirtyLabel];
+            int oldCount = memberCount[dirtyLabel];
+            members[dirtyLabel] = NO_MEMBERS;
+            memberCount[dirtyLabel] = 0;
+            count--;
+
+            stamp++;
+            for (int i = 0; i < oldCount; i++) {
+                int start = oldMembers[i];
+                if (!graph.isPresent(start)) {
+                    label[start] = -1;
+                    continue;
+                }
+                if (visitStamp[start] == stamp) {
+                    continue;
+                }
+                // The first unvisited member names a new component
+                int head = 0;
+                int tail = 0;
+                queue[tail++] = start;
+                visitStamp[start] = stamp;
+                while (head < tail) {
+                    int current = queue[head++];
+                    int[] adjacent = graph.adjacency(current);
+                    for (int j = 0, degree = graph.degree(current); j < degree; j++) {
+                        int neighbor = adjacent[j];
+                        if (visitStamp[neighbor] != stamp) {
+                            visitStamp[neighbor] = stamp;
+                            queue[tail++] = neighbor;
+                        }
+                    }
+                }
+                members[start] = Arrays.copyOf(queue, tail);
+                memberCount[start] = tail;
+                for (int j = 0; j < tail; j++) {
+                    label[queue[j]] = start;
+                }
+                count++;
+            }
+        }
+        dirtyLabels.clear();
+    }
+
+    private void ensureCapacity(int vertexBound) {
+        if (vertexBound <= label.length) {
+            return;
+        }
+        int capacity = Math.max(vertexBound, label.length + (label.length >> 1));
+        int oldLength = label.length;
+        label = Arrays.copyOf(label, capacity);
+        Arrays.fill(label, oldLength, capacity, -1);
+        members = Arrays.copyOf(members, capacity);
+        Arrays.fill(members, oldLength, capacity, NO_MEMBERS);
+        memberCount = Arrays.copyOf(memberCount, capacity);
+        dirty = Arrays.copyOf(dirty, capacity);
+        queue = new int[capacity];
+        visitStamp = Arrays.copyOf(visitStamp, capacity);
+    }
+}
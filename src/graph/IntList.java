@@ -0,0 +1,72 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive ints, used where a List of Integer would box every element.
+ */
+public class IntList {
+    private int[] elements;
+    private int size = 0;
+
+    /**
+     * Constructor for an empty IntList.
+     */
+    public IntList() {
+        this(8);
+    }
+
+    /**
+     * Constructor for an empty IntList with the given initial capacity.
+     * @param capacity the number of elements the list can hold before growing
+     */
+    public IntList(int capacity) {
+        elements = new int[Math.max(1, capacity)];
+    }
+
+    /**
+     * Appends an element.
+     * @param value the element to append
+     */
+    public void add(int value) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, elements.length << 1);
+        }
+        elements[size++] = value;
+    }
+
+    /**
+     * Gets an element.
+     * @param index the position of the element
+     * @return the element at the given position
+     */
+    public int get(int index) {
+        if (index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return elements[index];
+    }
+
+    /**
+     * Gets the number of elements.
+     * @return the number of elements
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes every element, keeping the capacity.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Copies the elements into a new array.
+     * @return the elements, in insertion order
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+}
@@ -0,0 +1,122 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from primitive long keys to non-negative int values.
+ * Keys and values live in two flat arrays with linear probing, so no key or entry is ever boxed.
+ * Used to translate user IDs into dense vertex indexes.
+ */
+public class LongIntHashMap {
+    public static final int MISSING = -1; // Returned by get for absent keys, also marks free slots
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private int[] values;
+    private int size = 0;
+    private int mask;
+    private int resizeThreshold;
+
+    /**
+     * Constructor for an empty LongIntHashMap.
+     */
+    public LongIntHashMap() {
+        this(16);
+    }
+
+    /**
+     * Constructor for a LongIntHashMap sized for an expected number of keys.
+     * @param expectedSize the number of keys the map should hold without resizing
+     */
+    public LongIntHashMap(int expectedSize) {
+        allocate(Integer.highestOneBit(Math.max(4, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, MISSING);
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L; // Fibonacci hashing spreads sequential IDs
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    /**
+     * Gets the value of a key.
+     * @param key the key to look up
+     * @return the value of the key, or MISSING if the key is absent
+     */
+    public int get(long key) {
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            if (values[i] == MISSING) {
+                return MISSING;
+            }
+            if (keys[i] == key) {
+                return values[i];
+            }
+        }
+    }
+
+    /**
+     * Checks whether a key is present.
+     * @param key the key to look up
+     * @return true if the key has a value
+     */
+    public boolean containsKey(long key) {
+        return get(key) != MISSING;
+    }
+
+    /**
+     * Associates a value with a key, replacing any previous value.
+     * @param key the key
+     * @param value the value, which must not be negative
+     * @throws IllegalArgumentException if the value is negative
+     */
+    public void put(long key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Values must not be negative");
+        }
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            if (values[i] == MISSING) {
+                keys[i] = key;
+                values[i] = value;
+                if (++size > resizeThreshold) {
+                    rehash();
+                }
+                return;
+            }
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+        }
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(keys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != MISSING) {
+                int j = slot(oldKeys[i]);
+                while (values[j] != MISSING) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Gets the number of keys in the map.
+     * @return the number of keys
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,261 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Breadth First Search over a CsrGraph for hop-distance queries.
+ * Full searches are direction-optimizing: small frontiers are expanded top-down, pushing to their neighbors,
+ * and large frontiers bottom-up, with every unvisited vertex looking for a parent in the frontier.
+ * Frontiers and visited sets are bitsets, and each level is processed in parallel on a ForkJoin pool.
+ * Point-to-point distances use a bidirectional search that always expands the smaller side
+ * and only allocates for the vertices it reaches, so a query on a fresh snapshot costs no O(n) setup.
+ */
+public class ParallelBfs {
+    public static final int UNREACHABLE = -1;
+    private static final int ALPHA = 14; // Go bottom-up once the frontier's edges exceed 1/ALPHA of the unexplored ones
+    private static final int BETA = 24; // Go back top-down once the frontier is smaller than 1/BETA of the vertices
+
+    private final CsrGraph graph;
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructor for ParallelBfs on the common ForkJoin pool.
+     * @param graph the graph snapshot
+     */
+    public ParallelBfs(CsrGraph graph) {
+        this(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor for ParallelBfs.
+     * @param graph the graph snapshot
+     * @param pool the pool full searches run on
+     */
+    public ParallelBfs(CsrGraph graph, ForkJoinPool pool) {
+        this.graph = graph;
+        this.pool = pool;
+    }
+
+    /**
+     * Gets the graph snapshot the searches run on.
+     * @return the graph
+     */
+    public CsrGraph graph() {
+        return graph;
+    }
+
+    /**
+     * Computes the hop distance from a vertex to every vertex within a maximum number of hops.
+     * @param source the vertex the search starts from
+     * @param maxHops the number of levels to expand, or Integer.MAX_VALUE for the whole component
+     * @return the distance of each vertex, UNREACHABLE for vertices farther than maxHops or disconnected
+     */
+    public int[] distances(int source, int maxHops) {
+        int n = graph.vertexBound();
+        int words = (n + 63) >>> 6;
+        int[] distance = new int[n];
+        Arrays.fill(distance, UNREACHABLE);
+        AtomicLongArray visited = new AtomicLongArray(words);
+        AtomicLongArray frontier = new AtomicLongArray(words);
+
+        distance[source] = 0;
+        visited.set(source >>> 6, 1L << source);
+        frontier.set(source >>> 6, 1L << source);
+        long frontierSize = 1;
+        long frontierEdges = graph.degree(source);
+        long unexploredEdges = graph.targets().length - frontierEdges;
+        boolean bottomUp = false;
+
+        for (int level = 1; level <= maxHops && frontierSize > 0; level++) {
+            if (!bottomUp && frontierEdges > unexploredEdges / ALPHA) {
+                bottomUp = true;
+            } else if (bottomUp && frontierSize < n / BETA) {
+                bottomUp = false;
+            }
+
+            AtomicLongArray next = new AtomicLongArray(words);
+            int depth = level;
+            if (bottomUp) {
+                pool.submit(() -> IntStream.range(0, words).parallel()
+                        .forEach(w -> bottomUpWord(w, frontier, visited, next, distance, depth))).join();
+            } else {
+                pool.submit(() -> IntStream.range(0, words).parallel()
+                        .forEach(w -> topDownWord(w, frontier, visited, next, distance, depth))).join();
+            }
+
+            // Measure the new frontier and publish it as visited
+            frontierSize = 0;
+            frontierEdges = 0;
+            for (int w = 0; w < words; w++) {
+                long bits = next.get(w);
+                frontier.set(w, bits);
+                if (bits != 0) {
+                    visited.set(w, visited.get(w) | bits);
+                    frontierSize += Long.bitCount(bits);
+                    for (long rest = bits; rest != 0; rest &= rest - 1) {
+                        frontierEdges += graph.degree((w << 6) + Long.numberOfTrailingZeros(rest));
+                    }
+                }
+            }
+            unexploredEdges -= frontierEdges;
+        }
+        return distance;
+    }
+
+    /**
+     * Expands the frontier vertices of one word to their unvisited neighbors.
+     */
+    private void topDownWord(int w, AtomicLongArray frontier, AtomicLongArray visited,
+                             AtomicLongArray next, int[] distance, int depth) {
+        int[] offsets = graph.offsets();
+        int[] targets = graph.targets();
+        for (long bits = frontier.get(w); bits != 0; bits &= bits - 1) {
+            int u = (w << 6) + Long.numberOfTrailingZeros(bits);
+            for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+                int v = targets[i];
+                long mask = 1L << v;
+                if ((visited.get(v >>> 6) & mask) == 0 && claim(next, v >>> 6, mask)) {
+                    distance[v] = depth;
+                }
+            }
+        }
+    }
+
+    /**
+     * Lets every unvisited vertex of one word look for a neighbor in the frontier.
+     * Only this word of the next frontier is written, so no other task races on it.
+     */
+    private void bottomUpWord(int w, AtomicLongArray frontier, AtomicLongArray visited,
+                              AtomicLongArray next, int[] distance, int depth) {
+        int[] offsets = graph.offsets();
+        int[] targets = graph.targets();
+        int base = w << 6;
+        long unvisited = ~visited.get(w);
+        if (base + 64 > graph.vertexBound()) {
+            unvisited &= (1L << (graph.vertexBound() - base)) - 1; // Ignore bits past the last vertex
+        }
+        long found = 0;
+        for (long bits = unvisited; bits != 0; bits &= bits - 1) {
+            int v = base + Long.numberOfTrailingZeros(bits);
+            for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+                int u = targets[i];
+                if ((frontier.get(u >>> 6) & (1L << u)) != 0) {
+                    found |= 1L << v;
+                    distance[v] = depth;
+                    break;
+                }
+            }
+        }
+        if (found != 0) {
+            next.set(w, found);
+        }
+    }
+
+    /**
+     * Sets a bit of a bitset unless another thread set it first.
+     * @return true if this call set the bit
+     */
+    private static boolean claim(AtomicLongArray bitset, int word, long mask) {
+        while (true) {
+            long current = bitset.get(word);
+            if ((current & mask) != 0) {
+                return false;
+            }
+            if (bitset.compareAndSet(word, current, current | mask)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gets the vertices within a number of hops of a vertex, excluding the vertex itself.
+     * @param source the vertex the search starts from
+     * @param maxHops the maximum number of hops
+     * @return the vertex indexes reached, in ascending order
+     */
+    public int[] withinHops(int source, int maxHops) {
+        int[] distance = distances(source, maxHops);
+        IntList reached = new IntList();
+        for (int v = 0; v < distance.length; v++) {
+            if (distance[v] > 0) {
+                reached.add(v);
+            }
+        }
+        return reached.toArray();
+    }
+
+    /**
+     * Computes the hop distance between two vertices with a bidirectional search.
+     * Each step expands a whole level of the side whose frontier has fewer edges,
+     * and the search stops at the first level where the two sides meet.
+     * @param source the first vertex
+     * @param target the second vertex
+     * @return the number of hops between them, or UNREACHABLE if they are not connected
+     */
+    public int distance(int source, int target) {
+        if (source == target) {
+            return 0;
+        }
+        int[] offsets = graph.offsets();
+        int[] targets = graph.targets();
+        // Distances of the reached vertices only, keyed by vertex; both die with the call
+        LongIntHashMap forward = new LongIntHashMap();
+        LongIntHashMap backward = new LongIntHashMap();
+        IntList forwardQueue = new IntList();
+        IntList backwardQueue = new IntList();
+
+        forward.put(source, 0);
+        backward.put(target, 0);
+        forwardQueue.add(source);
+        backwardQueue.add(target);
+        int forwardHead = 0, backwardHead = 0;
+        int best = UNREACHABLE;
+
+        while (best == UNREACHABLE && forwardHead < forwardQueue.size() && backwardHead < backwardQueue.size()) {
+            boolean expandForward = frontierEdges(forwardQueue, forwardHead)
+                    <= frontierEdges(backwardQueue, backwardHead);
+            IntList queue = expandForward ? forwardQueue : backwardQueue;
+            LongIntHashMap own = expandForward ? forward : backward;
+            LongIntHashMap other = expandForward ? backward : forward;
+            int head = expandForward ? forwardHead : backwardHead;
+            int levelEnd = queue.size();
+
+            for (; head < levelEnd; head++) {
+                int u = queue.get(head);
+                int next = own.get(u) + 1;
+                for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+                    int v = targets[i];
+                    int rest = other.get(v);
+                    if (rest != LongIntHashMap.MISSING) {
+                        int length = next + rest;
+                        if (best == UNREACHABLE || length < best) {
+                            best = length;
+                        }
+                    }
+                    if (!own.containsKey(v)) {
+                        own.put(v, next);
+                        queue.add(v);
+                    }
+                }
+            }
+
+            if (expandForward) {
+                forwardHead = head;
+            } else {
+                backwardHead = head;
+            }
+        }
+        return best;
+    }
+
+    private long frontierEdges(IntList queue, int head) {
+        long edges = 0;
+        for (int i = head; i < queue.size(); i++) {
+            edges += graph.degree(queue.get(i));
+        }
+        return edges;
+    }
+}
@@ -0,0 +1,28 @@
+package graph;
+
+/**
+ * A suggested friend: the suggested vertex, the friends it shares with the user and its score.
+ */
+public class Recommendation {
+    private final int vertex;
+    private final int mutualFriends;
+    private final double score;
+
+    Recommendation(int vertex, int mutualFriends, double score) {
+        this.vertex = vertex;
+        this.mutualFriends = mutualFriends;
+        this.score = score;
+    }
+
+    public int getVertex() {
+        return vertex;
+    }
+
+    public int getMutualFriends() {
+        return mutualFriends;
+    }
+
+    public double getScore() {
+        return score;
+    }
+}
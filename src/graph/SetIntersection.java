@@ -0,0 +1,163 @@
+package graph;
+
+/**
+ * Intersection of sorted int arrays, such as the neighbor arrays of a FriendshipGraph.
+ * Arrays of similar length are merged with a branch-free loop the JIT can compile to conditional moves;
+ * when one array is much longer than the other, each element of the short one is found in the long one
+ * by galloping (exponential then binary search), which costs O(m log(n / m)) instead of O(n + m).
+ * Every method takes explicit lengths, so partially filled arrays can be passed without copying.
+ */
+public final class SetIntersection {
+    public static final int GALLOP_RATIO = 32; // Gallop when one array is this many times longer than the other
+
+    private SetIntersection() {
+    }
+
+    /**
+     * Counts the elements two sorted arrays have in common.
+     * @param a the first array, sorted ascending without duplicates
+     * @param lengthA the number of elements of a to use
+     * @param b the second array, sorted ascending without duplicates
+     * @param lengthB the number of elements of b to use
+     * @return the size of the intersection
+     */
+    public static int count(int[] a, int lengthA, int[] b, int lengthB) {
+        return count(a, 0, lengthA, b, 0, lengthB);
+    }
+
+    /**
+     * Counts the elements two sorted array ranges have in common.
+     * @param a the first array
+     * @param fromA the first position of the range of a, inclusive
+     * @param toA the last position of the range of a, exclusive
+     * @param b the second array
+     * @param fromB the first position of the range of b, inclusive
+     * @param toB the last position of the range of b, exclusive
+     * @return the size of the intersection
+     */
+    public static int count(int[] a, int fromA, int toA, int[] b, int fromB, int toB) {
+        int lengthA = toA - fromA;
+        int lengthB = toB - fromB;
+        if (lengthA > lengthB) {
+            return count(b, fromB, toB, a, fromA, toA);
+        }
+        if (lengthA == 0) {
+            return 0;
+        }
+        if ((long) lengthA * GALLOP_RATIO < lengthB) {
+            return gallop(a, fromA, toA, b, fromB, toB, null);
+        }
+        return merge(a, fromA, toA, b, fromB, toB, null);
+    }
+
+    /**
+     * Writes the elements two sorted arrays have in common.
+     * @param a the first array, sorted ascending without duplicates
+     * @param lengthA the number of elements of a to use
+     * @param b the second array, sorted ascending without duplicates
+     * @param lengthB the number of elements of b to use
+     * @param out receives the common elements in ascending order; needs room for min(lengthA, lengthB) elements
+     * @return the number of elements written
+     */
+    public static int intersect(int[] a, int lengthA, int[] b, int lengthB, int[] out) {
+        return intersect(a, 0, lengthA, b, 0, lengthB, out);
+    }
+
+    /**
+     * Writes the elements two sorted array ranges have in common.
+     * @param a the first array
+     * @param fromA the first position of the range of a, inclusive
+     * @param toA the last position of the range of a, exclusive
+     * @param b the second array
+     * @param fromB the first position of the range of b, inclusive
+     * @param toB the last position of the range of b, exclusive
+     * @param out receives the common elements in ascending order; needs room for the shorter range
+     * @return the number of elements written
+     */
+    public static int intersect(int[] a, int fromA, int toA, int[] b, int fromB, int toB, int[] out) {
+        int lengthA = toA - fromA;
+        int lengthB = toB - fromB;
+        if (lengthA > lengthB) {
+            return intersect(b, fromB, toB, a, fromA, toA, out);
+        }
+        if (lengthA == 0) {
+            return 0;
+        }
+        if ((long) lengthA * GALLOP_RATIO < lengthB) {
+            return gallop(a, fromA, toA, b, fromB, toB, out);
+        }
+        return merge(a, fromA, toA, b, fromB, toB, out);
+    }
+
+    /**
+     * Merges two ranges, writing the common elements to out unless it is null.
+     */
+    private static int merge(int[] a, int i, int toA, int[] b, int j, int toB, int[] out) {
+        int size = 0;
+        if (out == null) {
+            while (i < toA && j < toB) {
+                int x = a[i];
+                int y = b[j];
+                // No data-dependent branch: both cursors advance by comparison results
+                size += x == y ? 1 : 0;
+                i += x <= y ? 1 : 0;
+                j += x >= y ? 1 : 0;
+            }
+        } else {
+            while (i < toA && j < toB) {
+                int x = a[i];
+                int y = b[j];
+                out[size] = x; // Overwritten unless the elements match
+                size += x == y ? 1 : 0;
+                i += x <= y ? 1 : 0;
+                j += x >= y ? 1 : 0;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Looks up every element of the short range in the long one, writing matches to out unless it is null.
+     */
+    private static int gallop(int[] small, int fromSmall, int toSmall, int[] large, int fromLarge, int toLarge, int[] out) {
+        int size = 0;
+        int position = fromLarge;
+        for (int i = fromSmall; i < toSmall && position < toLarge; i++) {
+            position = gallop(large, position, toLarge, small[i]);
+            if (position < toLarge && large[position] == small[i]) {
+                if (out != null) {
+                    out[size] = small[i];
+                }
+                size++;
+                position++;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Finds the first position at or after from whose element is not smaller than the key.
+     * @return the position, or to if every remaining element is smaller
+     */
+    private static int gallop(int[] array, int from, int to, int key) {
+        int step = 1;
+        int low = from;
+        int high = from;
+        while (high < to && array[high] < key) {
+            low = high + 1;
+            high = from + step;
+            step <<= 1;
+        }
+        high = Math.min(high, to);
+        // Binary search in [low, high)
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (array[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,164 @@
+package graph;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Triangles of a CsrGraph and the clustering metrics derived from them.
+ * Every edge is oriented from the endpoint of lower degree to the one of higher degree (ties by index),
+ * which bounds every out-degree by O(sqrt(m)); each triangle is then found exactly once, at its lowest
+ * vertex, by intersecting two sorted out-neighbor arrays. Vertices are processed in parallel.
+ * Besides the graph itself, only the oriented arrays (one int per edge) and one counter per vertex are kept.
+ */
+public class TriangleCounts {
+    private final CsrGraph graph;
+    private final long[] trianglesOf; // Triangles each vertex belongs to
+    private final long triangles; // Triangles of the graph
+    private final long wedges; // Paths of length two, i.e. connected triples centered on a vertex
+
+    private TriangleCounts(CsrGraph graph, long[] trianglesOf, long triangles, long wedges) {
+        this.graph = graph;
+        this.trianglesOf = trianglesOf;
+        this.triangles = triangles;
+        this.wedges = wedges;
+    }
+
+    /**
+     * Counts the triangles of a graph on the common ForkJoin pool.
+     * @param graph the graph snapshot
+     * @return the triangle counts
+     */
+    public static TriangleCounts of(CsrGraph graph) {
+        return of(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Counts the triangles of a graph on the given ForkJoin pool.
+     * @param graph the graph snapshot
+     * @param pool the pool the vertices are processed on
+     * @return the triangle counts
+     */
+    public static TriangleCounts of(CsrGraph graph, ForkJoinPool pool) {
+        int n = graph.vertexBound();
+        int[] offsets = graph.offsets();
+        int[] targets = graph.targets();
+
+        // Keep, for every vertex, only the neighbors that rank above it
+        int[] outOffsets = new int[n + 1];
+        pool.submit(() -> IntStream.range(0, n).parallel().forEach(u -> {
+            int count = 0;
+            for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+                if (ranksAbove(graph, targets[i], u)) {
+                    count++;
+                }
+            }
+            outOffsets[u + 1] = count;
+        })).join();
+        int maxOutDegree = 0;
+        for (int u = 0; u < n; u++) {
+            maxOutDegree = Math.max(maxOutDegree, outOffsets[u + 1]);
+            outOffsets[u + 1] += outOffsets[u];
+        }
+        int[] outTargets = new int[outOffsets[n]];
+        pool.submit(() -> IntStream.range(0, n).parallel().forEach(u -> {
+            int position = outOffsets[u];
+            for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+                if (ranksAbove(graph, targets[i], u)) {
+                    outTargets[position++] = targets[i]; // Stays sorted by index
+                }
+            }
+        })).join();
+
+        // Each triangle u < v < w (by rank) is found once, from u through v
+        AtomicLongArray perVertex = new AtomicLongArray(n);
+        int bufferSize = maxOutDegree;
+        ThreadLocal<int[]> buffers = ThreadLocal.withInitial(() -> new int[bufferSize]);
+        long triangles = pool.submit(() -> IntStream.range(0, n).parallel().mapToLong(u -> {
+            int[] common = buffers.get();
+            long found = 0;
+            for (int i = outOffsets[u]; i < outOffsets[u + 1]; i++) {
+                int v = outTargets[i];
+                int size = SetIntersection.intersect(outTargets, outOffsets[u], outOffsets[u + 1],
+                        outTargets, outOffsets[v], outOffsets[v + 1], common);
+                if (size > 0) {
+                    found += size;
+                    perVertex.addAndGet(v, size);
+                    for (int k = 0; k < size; k++) {
+                        perVertex.incrementAndGet(common[k]);
+                    }
+                }
+            }
+            if (found > 0) {
+                perVertex.addAndGet(u, found);
+            }
+            return found;
+        }).sum()).join();
+
+        long[] trianglesOf = new long[n];
+        long wedges = 0;
+        for (int v = 0; v < n; v++) {
+            trianglesOf[v] = perVertex.get(v);
+            long degree = graph.degree(v);
+            wedges += degree * (degree - 1) / 2;
+        }
+        return new TriangleCounts(graph, trianglesOf, triangles, wedges);
+    }
+
+    private static boolean ranksAbove(CsrGraph graph, int v, int u) {
+        int degreeV = graph.degree(v);
+        int degreeU = graph.degree(u);
+        return degreeV > degreeU || (degreeV == degreeU && v > u);
+    }
+
+    /**
+     * Gets the number of triangles of the graph.
+     * @return the number of triangles
+     */
+    public long triangles() {
+        return triangles;
+    }
+
+    /**
+     * Gets the number of triangles a vertex belongs to.
+     * @param v the vertex index
+     * @return the number of triangles of the vertex
+     */
+    public long trianglesOf(int v) {
+        return trianglesOf[v];
+    }
+
+    /**
+     * Gets the local clustering coefficient of a vertex: the share of pairs of its neighbors that are connected.
+     * @param v the vertex index
+     * @return the clustering coefficient, 0 for vertices with fewer than two neighbors
+     */
+    public double clusteringCoefficient(int v) {
+        long degree = graph.degree(v);
+        return degree < 2 ? 0 : 2.0 * trianglesOf[v] / (degree * (degree - 1));
+    }
+
+    /**
+     * Gets the average local clustering coefficient over the present vertices.
+     * @return the average clustering coefficient
+     */
+    public double averageClusteringCoefficient() {
+        double sum = 0;
+        int vertices = 0;
+        for (int v = 0; v < trianglesOf.length; v++) {
+            if (graph.isPresent(v)) {
+                sum += clusteringCoefficient(v);
+                vertices++;
+            }
+        }
+        return vertices == 0 ? 0 : sum / vertices;
+    }
+
+    /**
+     * Gets the transitivity of the graph: three times the triangles over the connected triples.
+     * @return the transitivity, 0 for graphs without connected triples
+     */
+    public double transitivity() {
+        return wedges == 0 ? 0 : 3.0 * triangles / wedges;
+    }
+}
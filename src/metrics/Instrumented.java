@@ -0,0 +1,152 @@
+package metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wraps objects behind their interfaces so that every call is measured, without touching the wrapped classes.
+ * Repositories get one latency histogram and one error counter per method; JDBC statements count the
+ * statements executed, the rows read and the SQL errors, including those the repositories swallow.
+ */
+public final class Instrumented {
+
+    private Instrumented() {
+    }
+
+    /**
+     * Wraps a repository, or any other object used through an interface, so that every method call is timed.
+     * Calls to a method m are recorded in the histogram "name.m"; exceptions thrown by it count in "name.m.errors".
+     * The interface may be generic: the type of the result is taken from the target, e.g.
+     * {@code wrap(UserLookupRepo.class, users, ...)} returns a {@code UserLookupRepo<Long, User>}.
+     * @param type the interface the callers use
+     * @param target the wrapped object
+     * @param name the prefix of the instrument names, e.g. "repository.users"
+     * @param registry where the measurements go
+     * @param <T> the type the callers use the target as
+     * @return the instrumented object
+     * @throws IllegalArgumentException if type is not an interface implemented by the target
+     */
+    @SuppressWarnings("unchecked") // The proxy implements the interface that T is a parameterization of
+    public static <T> T wrap(Class<? super T> type, T target, String name, MetricsRegistry registry) {
+        if (!type.isInterface() || !type.isInstance(target)) {
+            throw new IllegalArgumentException(type.getName() + " is not an interface of " + target.getClass().getName());
+        }
+        // Resolved once, so a call only costs a read-only map lookup on top of the timing
+        Map<Method, LatencyHistogram> timers = new HashMap<>();
+        for (Method method : type.getMethods()) {
+            timers.put(method, registry.histogram(name + "." + method.getName()));
+        }
+        Map<Method, LongAdder> errors = new ConcurrentHashMap<>();
+        InvocationHandler handler = (proxy, method, args) -> {
+            LatencyHistogram timer = timers.get(method);
+            if (timer == null) {
+                return method.getDeclaringClass() == Object.class
+                        ? invokeObjectMethod(proxy, target, method, args)
+                        : invoke(target, method, args);
+            }
+            if (!registry.isEnabled()) {
+                return invoke(target, method, args);
+            }
+            long start = System.nanoTime();
+            try {
+                return invoke(target, method, args);
+            } catch (Throwable e) {
+                errors.computeIfAbsent(method, m -> registry.counter(name + "." + m.getName() + ".errors")).increment();
+                throw e;
+            } finally {
+                timer.recordSince(start);
+            }
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    /**
+     * Wraps a JDBC statement so that executions and rows read are counted.
+     * Instruments: "sql.execute" (latency), "sql.statements", "sql.batches", "sql.rowsRead", "sql.errors".
+     * @param type the statement interface handed to the caller, e.g. PreparedStatement
+     * @param statement the wrapped statement
+     * @param registry where the measurements go
+     * @param <T> the type of the statement
+     * @return the instrumented statement
+     */
+    public static <T extends Statement> T statement(Class<T> type, T statement, MetricsRegistry registry) {
+        LatencyHistogram timer = registry.histogram("sql.execute");
+        LongAdder statements = registry.counter("sql.statements");
+        LongAdder batches = registry.counter("sql.batches");
+        LongAdder sqlErrors = registry.counter("sql.errors");
+        LongAdder rowsRead = registry.counter("sql.rowsRead");
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return invokeObjectMethod(proxy, statement, method, args);
+            }
+            String methodName = method.getName();
+            if (!registry.isEnabled()) {
+                return invoke(statement, method, args);
+            }
+            if (!methodName.startsWith("execute")) {
+                Object result = invoke(statement, method, args);
+                // Result sets fetched after execute() are counted too
+                return result instanceof ResultSet && methodName.equals("getResultSet")
+                        ? resultSet((ResultSet) result, rowsRead, registry) : result;
+            }
+            long start = System.nanoTime();
+            try {
+                Object result = invoke(statement, method, args);
+                if (methodName.startsWith("executeBatch") || methodName.startsWith("executeLargeBatch")) {
+                    batches.increment();
+                } else {
+                    statements.increment();
+                }
+                return result instanceof ResultSet ? resultSet((ResultSet) result, rowsRead, registry) : result;
+            } catch (SQLException e) {
+                sqlErrors.increment();
+                throw e;
+            } finally {
+                timer.recordSince(start);
+            }
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static ResultSet resultSet(ResultSet resultSet, LongAdder rowsRead, MetricsRegistry registry) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return invokeObjectMethod(proxy, resultSet, method, args);
+            }
+            Object result = invoke(resultSet, method, args);
+            if (Boolean.TRUE.equals(result) && method.getName().equals("next") && registry.isEnabled()) {
+                rowsRead.increment();
+            }
+            return result;
+        };
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static Object invokeObjectMethod(Object proxy, Object target, Method method, Object[] args) throws Throwable {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return invoke(target, method, args);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-linear buckets, in the manner of HdrHistogram:
+ * values below 64 get a bucket each, larger values share 32 buckets per power of two,
+ * so every recorded value is known to within about 3% whatever its magnitude.
+ * Recording is a few atomic increments; percentiles are computed when a report is taken.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS; // Buckets per power of two
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS; // Enough for any non-negative long
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records one value.
+     * @param value the value, usually a duration in nanoseconds; negative values count as 0
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * Records the time elapsed since a start obtained from {@link System#nanoTime()}.
+     * @param startNanos the start of the measured call
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Gets the number of recorded values.
+     * @return the number of values
+     */
+    public long count() {
+        return count.sum();
+    }
+
+    /**
+     * Gets the sum of the recorded values.
+     * @return the sum
+     */
+    public long sum() {
+        return sum.sum();
+    }
+
+    /**
+     * Gets the largest recorded value.
+     * @return the maximum, 0 if nothing was recorded
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * Gets the mean of the recorded values.
+     * @return the mean, 0 if nothing was recorded
+     */
+    public double mean() {
+        long n = count();
+        return n == 0 ? 0 : (double) sum() / n;
+    }
+
+    /**
+     * Gets the value below which the given share of the recorded values fall.
+     * @param percentile the share, between 0 and 100
+     * @return the highest value of the bucket holding the percentile, at most the maximum; 0 if nothing was recorded
+     */
+    public long percentile(double percentile) {
+        long total = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), max());
+            }
+        }
+        return max();
+    }
+
+    private static int bucketOf(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS; // Keeps value >> shift in [32, 64)
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    private static long highestValueOf(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long subBucket = bucket % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
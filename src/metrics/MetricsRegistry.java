@@ -0,0 +1,187 @@
+package metrics;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Named latency histograms, counters and gauges, and their reports as text, JSON or Prometheus exposition format.
+ * Instruments are created on first use and live as long as the registry; callers on hot paths
+ * should look them up once and keep the reference.
+ * Latencies are recorded in nanoseconds and reported in milliseconds (seconds for Prometheus).
+ */
+public class MetricsRegistry {
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, DoubleSupplier> gauges = new ConcurrentHashMap<>();
+    private volatile boolean enabled = true; // Instrumented calls skip measuring while false
+
+    /**
+     * Gets the histogram with the given name, creating it if needed.
+     * @param name the name, dot-separated, e.g. "service.login"
+     * @return the histogram
+     */
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    /**
+     * Gets the counter with the given name, creating it if needed.
+     * @param name the name, dot-separated, e.g. "sql.statements"
+     * @return the counter
+     */
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * Registers a gauge, whose value is read whenever a report is taken.
+     * @param name the name, dot-separated, e.g. "pool.active"
+     * @param value supplies the current value
+     */
+    public void gauge(String name, DoubleSupplier value) {
+        gauges.put(name, value);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Turns measuring on or off; instrumented calls still go through while off, unmeasured.
+     * @param enabled true to measure
+     */
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Writes every instrument as one human-readable line, sorted by name.
+     * Histograms and counters that recorded nothing yet are left out.
+     * @return the report
+     */
+    public String toText() {
+        StringBuilder text = new StringBuilder();
+        new TreeMap<>(histograms).forEach((name, histogram) -> {
+            if (histogram.count() > 0) {
+                text.append(String.format(Locale.ROOT,
+                        "%-45s count=%d mean=%.3fms p50=%.3fms p90=%.3fms p99=%.3fms p999=%.3fms max=%.3fms%n",
+                        name, histogram.count(), millis(histogram.mean()), millis(histogram.percentile(50)),
+                        millis(histogram.percentile(90)), millis(histogram.percentile(99)),
+                        millis(histogram.percentile(99.9)), millis(histogram.max())));
+            }
+        });
+        new TreeMap<>(counters).forEach((name, counter) -> {
+            if (counter.sum() > 0) {
+                text.append(String.format(Locale.ROOT, "%-45s %d%n", name, counter.sum()));
+            }
+        });
+        new TreeMap<>(gauges).forEach((name, gauge) ->
+                text.append(String.format(Locale.ROOT, "%-45s %.3f%n", name, read(gauge))));
+        return text.toString();
+    }
+
+    /**
+     * Writes every instrument as a JSON object with "histograms", "counters" and "gauges" members.
+     * @return the report
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\"histograms\":{");
+        String separator = "";
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(histograms).entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            json.append(separator).append('"').append(entry.getKey()).append("\":{")
+                    .append("\"count\":").append(histogram.count())
+                    .append(",\"meanMs\":").append(number(millis(histogram.mean())));
+            for (double percentile : PERCENTILES) {
+                json.append(",\"p").append(label(percentile).replace(".", "")).append("Ms\":")
+                        .append(number(millis(histogram.percentile(percentile))));
+            }
+            json.append(",\"maxMs\":").append(number(millis(histogram.max()))).append('}');
+            separator = ",";
+        }
+        json.append("},\"counters\":{");
+        separator = "";
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(counters).entrySet()) {
+            json.append(separator).append('"').append(entry.getKey()).append("\":").append(entry.getValue().sum());
+            separator = ",";
+        }
+        json.append("},\"gauges\":{");
+        separator = "";
+        for (Map.Entry<String, DoubleSupplier> entry : new TreeMap<>(gauges).entrySet()) {
+            double value = read(entry.getValue());
+            json.append(separator).append('"').append(entry.getKey()).append("\":")
+                    .append(Double.isNaN(value) ? "null" : number(value));
+            separator = ",";
+        }
+        return json.append("}}").toString();
+    }
+
+    /**
+     * Writes every instrument in the Prometheus text exposition format.
+     * Histograms become summaries in seconds, counters get a "_total" suffix, dots become underscores.
+     * @return the report
+     */
+    public String toPrometheus() {
+        StringBuilder text = new StringBuilder();
+        new TreeMap<>(histograms).forEach((name, histogram) -> {
+            String metric = prometheusName(name) + "_seconds";
+            text.append("# TYPE ").append(metric).append(" summary\n");
+            for (double percentile : PERCENTILES) {
+                text.append(metric).append("{quantile=\"").append(percentile / 100).append("\"} ")
+                        .append(number(histogram.percentile(percentile) / 1e9)).append('\n');
+            }
+            text.append(metric).append("_sum ").append(number(histogram.sum() / 1e9)).append('\n');
+            text.append(metric).append("_count ").append(histogram.count()).append('\n');
+        });
+        new TreeMap<>(counters).forEach((name, counter) -> {
+            String metric = prometheusName(name) + "_total";
+            text.append("# TYPE ").append(metric).append(" counter\n");
+            text.append(metric).append(' ').append(counter.sum()).append('\n');
+        });
+        new TreeMap<>(gauges).forEach((name, gauge) -> {
+            String metric = prometheusName(name);
+            text.append("# TYPE ").append(metric).append(" gauge\n");
+            text.append(metric).append(' ').append(number(read(gauge))).append('\n');
+        });
+        return text.toString();
+    }
+
+    private static double read(DoubleSupplier gauge) {
+        try {
+            return gauge.getAsDouble();
+        } catch (RuntimeException e) {
+            return Double.NaN; // A failing gauge must not break the whole report
+        }
+    }
+
+    private static double millis(double nanos) {
+        return nanos / 1e6;
+    }
+
+    private static String label(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+    }
+
+    private static String number(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        return value == Math.rint(value) && Math.abs(value) < 1e15
+                ? String.valueOf((long) value)
+                : String.format(Locale.ROOT, "%.6g", value);
+    }
+
+    private static String prometheusName(String name) {
+        StringBuilder metric = new StringBuilder(name.length());
+        for (char c : name.toCharArray()) {
+            metric.append(Character.isLetterOrDigit(c) && c < 128 ? c : '_');
+        }
+        return metric.toString();
+    }
+}
@@ -0,0 +1,121 @@
+package metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import enums.ReportFormat;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Publishes the instruments of a metrics registry: as a report printed at a fixed period,
+ * and as a local HTTP endpoint serving the Prometheus format on /metrics and JSON on /metrics.json.
+ * Both run on daemon threads, so they never keep the application alive.
+ */
+public class MetricsReporter implements AutoCloseable {
+    private final MetricsRegistry registry;
+    private ScheduledExecutorService scheduler; // Prints the periodic report, null until started
+    private HttpServer server; // Serves the endpoint, null until started
+    private ExecutorService serverExecutor; // Handles the endpoint's requests
+
+    /**
+     * Constructor for MetricsReporter.
+     * @param registry the registry whose instruments are published
+     */
+    public MetricsReporter(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Prints a report of every instrument at a fixed period.
+     * @param periodSeconds the time between two reports
+     * @param format the format of the report
+     * @param out where the reports are printed
+     */
+    public synchronized void startPeriodicReport(long periodSeconds, ReportFormat format, PrintStream out) {
+        if (scheduler != null) {
+            throw new IllegalStateException("Periodic report already started");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(() -> {
+            try {
+                if (format == ReportFormat.JSON) {
+                    out.println(registry.toJson());
+                } else {
+                    out.print("--- metrics " + LocalDateTime.now() + " ---\n" + registry.toText());
+                }
+                out.flush();
+            } catch (RuntimeException e) {
+                e.printStackTrace(); // Keep reporting; an exception would cancel the schedule
+            }
+        }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Serves the instruments over HTTP on the loopback interface only.
+     * @param port the port to listen on, 0 for any free port
+     * @return the port actually listened on
+     * @throws IOException if the port cannot be bound
+     */
+    public synchronized int startHttpEndpoint(int port) throws IOException {
+        if (server != null) {
+            throw new IllegalStateException("HTTP endpoint already started");
+        }
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics.json", exchange -> respond(exchange, "application/json", registry::toJson));
+        server.createContext("/metrics", exchange -> respond(exchange, "text/plain; version=0.0.4", registry::toPrometheus));
+        serverExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-endpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(serverExecutor);
+        server.start();
+        return server.getAddress().getPort();
+    }
+
+    private static void respond(HttpExchange exchange, String contentType, Supplier<String> body) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] bytes = body.get().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Stops the periodic report and the HTTP endpoint.
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        if (server != null) {
+            server.stop(0);
+            serverExecutor.shutdownNow();
+            server = null;
+        }
+    }
+}
@@ -3,46 +3,191 @@ package repository;
 import domain.Entity;
 import domain.validators.ValidationException;
 import domain.validators.Validator;
+import enums.FsyncPolicy;
+import enums.SnapshotFormat;
 
 import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
 import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Abstract class for a file-based repository that extends the in-memory repository.
- * Provides methods for loading and saving entities to a file.
+ * Entities are kept in a snapshot file plus an append-only change log next to it ("file.log").
+ * Every save, update and delete appends one record to the log; once the log grows past the size of
+ * the repository it is compacted into a new snapshot, so each change costs amortized O(1) I/O.
+ * The snapshot is either text or, for repositories that provide a BinaryCodec, a binary file that is
+ * memory-mapped on startup instead of being parsed line by line.
  * @param <ID> the type of the unique identifier for the entities
  * @param <E> the type of entities stored in the repository, extending Entity<ID>
  */
-public abstract class AbstractFileRepository<ID, E extends Entity<ID>> extends InMemoryRepository<ID, E> {
-    private String filename; // The name of the file where entities are stored
+public abstract class AbstractFileRepository<ID, E extends Entity<ID>> extends InMemoryRepository<ID, E> implements AutoCloseable {
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1_000;
+    private static final int MIN_COMPACTION_THRESHOLD = 1_000; // Small logs are never worth compacting
+
+    static final char ADD = 'A'; // Change log operations, also read by SnapshotConverter
+    static final char UPDATE = 'U';
+    static final char DELETE = 'D';
+
+    private String filename; // The name of the file where the snapshot of the entities is stored
+    private final String logFilename; // The name of the file where changes since the snapshot are appended
+    private final FsyncPolicy fsyncPolicy; // When the log is forced to disk
+    private final SnapshotFormat snapshotFormat; // Format of the snapshot file
+    private FileOutputStream logStream;
+    private BufferedWriter logWriter;
+    private long logRecords = 0; // Records appended since the last compaction
+    private boolean dirty = false; // Records written but not yet forced to disk
+    private ScheduledExecutorService flusher; // Forces the log to disk for the PERIODIC policy
+    private final Thread shutdownHook = new Thread(this::flushQuietly); // Flushes the log at exit until close()
 
     /**
      * Constructor for AbstractFileRepository.
+     * The change log is flushed in the background every second.
      * @param validator the validator used for validating entities before saving or updating
      * @param fileName the name of the file to load and save data
      */
     public AbstractFileRepository(Validator<E> validator, String fileName) {
+        this(validator, fileName, FsyncPolicy.PERIODIC);
+    }
+
+    /**
+     * Constructor for AbstractFileRepository with an explicit fsync policy.
+     * @param validator the validator used for validating entities before saving or updating
+     * @param fileName the name of the file to load and save data
+     * @param fsyncPolicy when appended changes are forced to disk
+     */
+    public AbstractFileRepository(Validator<E> validator, String fileName, FsyncPolicy fsyncPolicy) {
+        this(validator, fileName, fsyncPolicy, SnapshotFormat.TEXT);
+    }
+
+    /**
+     * Constructor for AbstractFileRepository with an explicit fsync policy and snapshot format.
+     * @param validator the validator used for validating entities before saving or updating
+     * @param fileName the name of the file to load and save data
+     * @param fsyncPolicy when appended changes are forced to disk
+     * @param snapshotFormat the format the snapshot file is read and compacted in
+     * @throws UnsupportedOperationException if the format is BINARY and the repository has no binary codec
+     */
+    public AbstractFileRepository(Validator<E> validator, String fileName, FsyncPolicy fsyncPolicy,
+                                  SnapshotFormat snapshotFormat) {
         super(validator);
+        if (snapshotFormat == SnapshotFormat.BINARY && binaryCodec() == null) {
+            throw new UnsupportedOperationException(getClass().getSimpleName() + " has no binary snapshot format");
+        }
         this.filename = fileName;
-        this.loadData(); // Load existing data from the file
+        this.logFilename = fileName + ".log";
+        this.fsyncPolicy = fsyncPolicy;
+        this.snapshotFormat = snapshotFormat;
+        this.loadData(); // Load existing data from the snapshot and replay the change log
+        this.openLog(true);
+
+        if (fsyncPolicy == FsyncPolicy.PERIODIC) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "file-repository-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleAtFixedRate(this::flushQuietly, DEFAULT_FLUSH_INTERVAL_MILLIS,
+                    DEFAULT_FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
     }
 
     /**
-     * Loads entities from the file and adds them to the repository.
+     * Loads entities from the snapshot file, then replays the change log on top of them.
+     * A torn record at the end of the log (from a crash mid-write) is ignored.
      */
     private void loadData() {
-        try (BufferedReader br = new BufferedReader(new FileReader(this.filename))) {
-            String line;
-            // Read each line from the file and create an entity
-            while ((line = br.readLine()) != null) {
-                E entity = createEntity(line);
-                super.save(entity); // Save the entity to the in-memory repository
+        if (snapshotFormat == SnapshotFormat.BINARY) {
+            loadBinarySnapshot();
+        } else if (Files.exists(Paths.get(this.filename))) {
+            try (BufferedReader br = Files.newBufferedReader(Paths.get(this.filename), StandardCharsets.UTF_8)) {
+                String line;
+                // Read each line from the file and create an entity
+                while ((line = br.readLine()) != null) {
+                    E entity = createEntity(line);
+                    super.save(entity); // Save the entity to the in-memory repository
+                }
+            } catch (IOException e) {
+                e.printStackTrace(); // Print stack trace for any IO exception
+            }
+        }
+
+        if (Files.exists(Paths.get(this.logFilename))) {
+            try (BufferedReader br = new BufferedReader(new InputStreamReader(
+                    new FileInputStream(this.logFilename), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = br.readLine()) != null) {
+                    replay(line);
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Loads the binary snapshot through a read-only memory mapping.
+     * The entity map is sized from the snapshot header, so loading never rehashes.
+     */
+    private void loadBinarySnapshot() {
+        Path snapshot = Paths.get(this.filename);
+        if (!Files.exists(snapshot)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot too large to map: " + snapshot);
             }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            BinaryCodec<E> codec = binaryCodec();
+            this.entities = new HashMap<>(Math.max(16, (int) (codec.count(buffer) / 0.75f) + 1));
+            codec.read(buffer, super::save);
         } catch (IOException e) {
-            e.printStackTrace(); // Print stack trace for any IO exception
+            e.printStackTrace();
         }
     }
 
+    /**
+     * Applies one change log record to the in-memory repository.
+     * @param record the record, made of an operation letter, a space and the entity line
+     */
+    private void replay(String record) {
+        if (record.length() < 2) {
+            return;
+        }
+        E entity;
+        try {
+            entity = createEntity(record.substring(2));
+        } catch (RuntimeException e) {
+            return; // Torn or corrupt record
+        }
+        switch (record.charAt(0)) {
+            case ADD:
+                super.save(entity);
+                break;
+            case UPDATE:
+                super.update(entity);
+                break;
+            case DELETE:
+                super.delete(entity.getId());
+                break;
+            default:
+                break;
+        }
+        logRecords++;
+    }
+
     /**
      * Abstract method to create an entity from a string representation.
      * @param line the string representation of the entity
@@ -57,6 +202,15 @@ public abstract class AbstractFileRepository<ID, E extends Entity<ID>> extends I
      */
     public abstract String saveEntity(E entity);
 
+    /**
+     * Gives the codec used for binary snapshots.
+     * Called from the constructor, so implementations must not depend on subclass fields.
+     * @return the binary codec of the repository, or null if it only supports text snapshots
+     */
+    protected BinaryCodec<E> binaryCodec() {
+        return null;
+    }
+
     /**
      * Finds an entity by its unique identifier.
      * @param id the unique identifier of the entity to find
@@ -86,24 +240,127 @@ public abstract class AbstractFileRepository<ID, E extends Entity<ID>> extends I
     public Optional<E> save(E entity) {
         Optional<E> existingEntity = super.save(entity); // Save the entity in memory
         if (existingEntity.isEmpty()) {
-            this.writeToFile(); // Write changes to the file if saved successfully
+            this.append(ADD, entity); // Record the change in the log if saved successfully
         }
         return existingEntity; // Return the existing entity or null
     }
 
     /**
-     * Writes all entities in the repository to the file.
+     * Appends a change record to the log and compacts the log once it outgrows the repository.
+     * @param operation the operation letter of the record
+     * @param entity the entity the operation applies to
      */
-    private void writeToFile() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(this.filename))) {
-            for (E entity : this.entities.values()) {
-                String entityStr = this.saveEntity(entity); // Get string representation of the entity
-                writer.write(entityStr); // Write to the file
-                writer.newLine(); // Add a new line
+    private synchronized void append(char operation, E entity) {
+        try {
+            logWriter.write(operation);
+            logWriter.write(' ');
+            logWriter.write(this.saveEntity(entity));
+            logWriter.newLine();
+            logRecords++;
+            dirty = true;
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                flush();
             }
         } catch (IOException e) {
             throw new RuntimeException(e); // Throw a runtime exception if writing fails
         }
+
+        if (logRecords > Math.max(MIN_COMPACTION_THRESHOLD, this.entities.size())) {
+            compact();
+        }
+    }
+
+    /**
+     * Writes all entities into a new snapshot and empties the change log.
+     * The snapshot is written to a temporary file and moved over the old one,
+     * so a crash never leaves a half-written snapshot behind.
+     */
+    public synchronized void compact() {
+        try {
+            writeSnapshot(Paths.get(this.filename), snapshotFormat);
+
+            logWriter.close();
+            openLog(false);
+            logRecords = 0;
+            dirty = false;
+        } catch (IOException e) {
+            throw new RuntimeException(e); // Throw a runtime exception if writing fails
+        }
+    }
+
+    /**
+     * Writes the current entities to another file, e.g. to convert a text snapshot to a binary one.
+     * The change log of this repository is left untouched.
+     * @param fileName the name of the file to write
+     * @param format the format to write the snapshot in
+     * @throws IOException if writing fails
+     * @throws UnsupportedOperationException if the format is BINARY and the repository has no binary codec
+     */
+    public synchronized void exportSnapshot(String fileName, SnapshotFormat format) throws IOException {
+        if (format == SnapshotFormat.BINARY && binaryCodec() == null) {
+            throw new UnsupportedOperationException(getClass().getSimpleName() + " has no binary snapshot format");
+        }
+        writeSnapshot(Paths.get(fileName), format);
+    }
+
+    /**
+     * Writes all entities to a temporary file, forces it to disk and atomically moves it into place.
+     * @param snapshot the path of the snapshot to replace
+     * @param format the format to write the snapshot in
+     * @throws IOException if writing fails
+     */
+    private void writeSnapshot(Path snapshot, SnapshotFormat format) throws IOException {
+        Path temporary = Paths.get(snapshot + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temporary.toFile())) {
+            if (format == SnapshotFormat.BINARY) {
+                DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+                binaryCodec().write(this.entities.values(), data);
+                data.flush();
+            } else {
+                BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                for (E entity : this.entities.values()) {
+                    String entityStr = this.saveEntity(entity); // Get string representation of the entity
+                    writer.write(entityStr); // Write to the file
+                    writer.newLine(); // Add a new line
+                }
+                writer.flush();
+            }
+            out.getFD().sync();
+        }
+        Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Opens the change log for writing.
+     * @param append true to keep the existing records, false to start an empty log
+     */
+    private void openLog(boolean append) {
+        try {
+            logStream = new FileOutputStream(this.logFilename, append);
+            logWriter = new BufferedWriter(new OutputStreamWriter(logStream, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Flushes buffered log records and forces them to disk.
+     * @throws IOException if writing fails
+     */
+    private synchronized void flush() throws IOException {
+        if (dirty) {
+            logWriter.flush();
+            logStream.getFD().sync();
+            dirty = false;
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
     }
 
     /**
@@ -114,9 +371,7 @@ public abstract class AbstractFileRepository<ID, E extends Entity<ID>> extends I
     @Override
     public Optional<E> delete(ID id) {
         Optional<E> deletedEntity = super.delete(id); // Delete from the in-memory repository
-        if (deletedEntity.isPresent()) {
-            this.writeToFile(); // Write changes to the file if deleted successfully
-        }
+        deletedEntity.ifPresent(entity -> this.append(DELETE, entity)); // Record the change if deleted successfully
         return deletedEntity; // Return the deleted entity or null
     }
 
@@ -128,9 +383,30 @@ public abstract class AbstractFileRepository<ID, E extends Entity<ID>> extends I
     @Override
     public Optional<E> update(E entity) {
         Optional<E> updatedEntity = super.update(entity); // Update in the in-memory repository
-        if (updatedEntity == null) {
-            this.writeToFile(); // Write changes to the file if updated successfully
+        if (updatedEntity.isPresent()) {
+            this.append(UPDATE, entity); // Record the change if updated successfully
         }
         return updatedEntity; // Return the updated entity or null
     }
+
+    /**
+     * Forces pending changes to disk, stops the background flusher and unregisters the shutdown hook.
+     */
+    @Override
+    public synchronized void close() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook); // A closed repository is no longer kept reachable by the hook
+        } catch (IllegalStateException e) {
+            // The JVM is already shutting down; the hook may be running, and flushing twice is harmless
+        }
+        try {
+            flush();
+            logWriter.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
 }
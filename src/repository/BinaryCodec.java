@@ -0,0 +1,36 @@
+package repository;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Encodes the entities of a file repository into a binary snapshot and decodes them back.
+ * Snapshots are read from a memory-mapped buffer, so decoding never goes through text parsing.
+ * @param <E> the type of entities in the snapshot
+ */
+public interface BinaryCodec<E> {
+    /**
+     * Writes a complete snapshot of the given entities.
+     * @param entities the entities to write
+     * @param out the stream the snapshot is written to
+     * @throws IOException if writing fails
+     */
+    void write(Collection<E> entities, DataOutputStream out) throws IOException;
+
+    /**
+     * Reads the number of entities stored in a snapshot from its header.
+     * @param snapshot the snapshot, positioned at its start
+     * @return the number of entities in the snapshot
+     */
+    int count(ByteBuffer snapshot);
+
+    /**
+     * Decodes every entity of a snapshot.
+     * @param snapshot the snapshot, positioned at its start
+     * @param sink receives each decoded entity
+     */
+    void read(ByteBuffer snapshot, Consumer<E> sink);
+}
@@ -0,0 +1,442 @@
+package repository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Streaming bulk loader for the users, friendships and Messages tables.
+ * One thread parses the input file into chunks of batchSize rows, and loader threads insert each chunk
+ * as one JDBC batch in its own transaction, on a connection from the pool. The queue between them is bounded,
+ * so memory stays at a few chunks however large the file is.
+ * With the PostgreSQL driver, add reWriteBatchedInserts=true to the JDBC URL so each batch is sent as
+ * multi-row INSERT statements.
+ * Input formats, chosen by file extension:
+ * <ul>
+ *     <li>users: "id;firstName;lastName;email;password" (users.txt) or CSV "id,firstName,lastName,email,password";
+ *     email and password may be missing. Emails are unique, so a user without one gets the placeholder
+ *     "user-&lt;id&gt;@users.invalid", the one migrations/dedupe_user_emails.sql gives to blank emails</li>
+ *     <li>friendships: "id1 id2 date [status]" (friendship.txt) or CSV "id1,id2,date[,status]"</li>
+ *     <li>messages: CSV "fromId,toId,date,message"</li>
+ * </ul>
+ * CSV files may start with a header line, and CSV fields may be quoted. Malformed lines, and friendships whose pair is already stored, are skipped and counted.
+ * The repositories and the Service read the imported rows the next time they are created.
+ */
+public class BulkImporter {
+
+    /**
+     * Receives the progress of an import after each committed chunk.
+     */
+    @FunctionalInterface
+    public interface ProgressListener {
+        /**
+         * Called after a chunk was committed, from a loader thread.
+         * @param table the table being loaded
+         * @param loaded the number of rows inserted so far
+         * @param skipped the number of malformed lines and already stored rows skipped so far
+         */
+        void onProgress(String table, long loaded, long skipped);
+    }
+
+    /**
+     * Turns the fields of an input line into the parameters of the INSERT statement.
+     */
+    @FunctionalInterface
+    private interface RowParser {
+        Object[] parse(String[] fields);
+    }
+
+    public static final int DEFAULT_BATCH_SIZE = 5_000;
+    public static final int DEFAULT_LOADERS = 4;
+
+    private static final String INSERT_USER =
+            "INSERT INTO users (user_id, firstname, lastname, email, pasword) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_FRIENDSHIP =
+            "INSERT INTO friendships (user_id_1, user_id_2, date, request) VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT ((LEAST(user_id_1, user_id_2)), (GREATEST(user_id_1, user_id_2))) DO NOTHING";
+    private static final String INSERT_MESSAGE =
+            "INSERT INTO Messages (id_from, id_to, date, message) VALUES (?, ?, ?, ?)";
+    private static final List<Object[]> END = new ArrayList<>(); // Tells a loader that no chunks follow
+
+    private final ConnectionPool pool;
+    private final int batchSize; // Rows per JDBC batch and transaction
+    private final int loaders; // Threads inserting chunks in parallel
+    private ProgressListener progressListener = (table, loaded, skipped) -> { };
+
+    /**
+     * Constructor for a BulkImporter with the default batch size and number of loader threads.
+     * @param pool the pool providing database connections
+     */
+    public BulkImporter(ConnectionPool pool) {
+        this(pool, DEFAULT_BATCH_SIZE, DEFAULT_LOADERS);
+    }
+
+    /**
+     * Constructor for a BulkImporter.
+     * @param pool the pool providing database connections
+     * @param batchSize the number of rows inserted per batch and transaction
+     * @param loaders the number of threads inserting batches in parallel, at most the pool's maximum size
+     * @throws IllegalArgumentException if batchSize or loaders is not positive
+     */
+    public BulkImporter(ConnectionPool pool, int batchSize, int loaders) {
+        if (batchSize <= 0 || loaders <= 0) {
+            throw new IllegalArgumentException("batchSize and loaders must be positive");
+        }
+        this.pool = pool;
+        this.batchSize = batchSize;
+        this.loaders = Math.min(loaders, pool.getMaxSize());
+    }
+
+    /**
+     * Sets the listener notified after each committed chunk.
+     * @param progressListener the listener
+     */
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Loads users, keeping the IDs of the file, and moves the ID sequence past the largest one.
+     * @param file the users file
+     * @return the number of users inserted
+     * @throws IOException if the file cannot be read
+     * @throws SQLException if a batch fails; the chunks committed before it stay in the database
+     */
+    public long importUsers(Path file) throws IOException, SQLException {
+        long loaded = load(file, ';', "users", INSERT_USER, 3, fields -> {
+            long id = Long.parseLong(fields[0].trim());
+            String email = fields.length > 3 ? fields[3].trim() : "";
+            return new Object[]{id, fields[1], fields[2],
+                    email.isEmpty() ? placeholderEmail(id) : email, fields.length > 4 ? fields[4] : ""};
+        });
+        try (Connection connection = pool.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("SELECT setval(pg_get_serial_sequence('users', 'user_id'), " +
+                    "(SELECT COALESCE(MAX(user_id), 0) + 1 FROM users), false)");
+        }
+        return loaded;
+    }
+
+    /**
+     * Gives the email of an imported user that has none; the .invalid domain can never be a real address.
+     * @param id the ID of the user
+     * @return the placeholder email
+     */
+    static String placeholderEmail(long id) {
+        return "user-" + id + "@users.invalid";
+    }
+
+    /**
+     * Loads friendships; the users they reference must already exist.
+     * @param file the friendships file
+     * @return the number of friendships inserted
+     * @throws IOException if the file cannot be read
+     * @throws SQLException if a batch fails; the chunks committed before it stay in the database
+     */
+    public long importFriendships(Path file) throws IOException, SQLException {
+        return load(file, ' ', "friendships", INSERT_FRIENDSHIP, 3, fields -> new Object[]{
+                Long.parseLong(fields[0].trim()), Long.parseLong(fields[1].trim()),
+                Timestamp.valueOf(LocalDateTime.parse(fields[2].trim())),
+                fields.length > 3 ? fields[3].trim() : "PENDING"});
+    }
+
+    /**
+     * Loads messages from a CSV file; the users they reference must already exist.
+     * @param file the messages file
+     * @return the number of messages inserted
+     * @throws IOException if the file cannot be read
+     * @throws SQLException if a batch fails; the chunks committed before it stay in the database
+     */
+    public long importMessages(Path file) throws IOException, SQLException {
+        return load(file, ',', "Messages", INSERT_MESSAGE, 4, fields -> new Object[]{
+                Long.parseLong(fields[0].trim()), Long.parseLong(fields[1].trim()),
+                Timestamp.valueOf(LocalDateTime.parse(fields[2].trim())), fields[3]});
+    }
+
+    /**
+     * Streams a file into a table: this thread parses chunks, the loader threads insert them.
+     * @param textSeparator the field separator of the text format; CSV files always use commas
+     * @param minimumFields the number of fields a line needs to be parsed
+     */
+    private long load(Path file, char textSeparator, String table, String sql, int minimumFields, RowParser parser)
+            throws IOException, SQLException {
+        boolean csv = file.getFileName().toString().toLowerCase().endsWith(".csv");
+        char separator = csv ? ',' : textSeparator;
+        BlockingQueue<List<Object[]>> chunks = new ArrayBlockingQueue<>(2 * loaders);
+        AtomicLong loaded = new AtomicLong();
+        AtomicLong skipped = new AtomicLong();
+        AtomicReference<SQLException> failure = new AtomicReference<>();
+
+        List<Thread> threads = new ArrayList<>(loaders);
+        for (int i = 0; i < loaders; i++) {
+            Thread thread = new Thread(() -> insertChunks(chunks, table, sql, loaded, skipped, failure),
+                    "bulk-import-" + table + "-" + i);
+            thread.start();
+            threads.add(thread);
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            List<Object[]> chunk = new ArrayList<>(batchSize);
+            String line;
+            boolean first = true;
+            while ((line = reader.readLine()) != null && failure.get() == null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                String[] fields = split(line, separator, csv);
+                try {
+                    if (fields.length < minimumFields) {
+                        throw new IllegalArgumentException("Too few fields");
+                    }
+                    chunk.add(parser.parse(fields));
+                } catch (RuntimeException e) {
+                    if (!(csv && first)) { // The first CSV line may be a header
+                        skipped.incrementAndGet();
+                    }
+                }
+                first = false;
+                if (chunk.size() == batchSize) {
+                    chunks.put(chunk);
+                    chunk = new ArrayList<>(batchSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                chunks.put(chunk);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, new SQLException("Import interrupted", e));
+        } finally {
+            // The end markers must reach every loader even if this thread was interrupted, or they wait forever;
+            // the interrupt is kept and restored once they have all finished
+            boolean interrupted = Thread.interrupted();
+            for (int i = 0; i < loaders; i++) {
+                interrupted |= putEnd(chunks);
+            }
+            for (Thread thread : threads) {
+                interrupted |= join(thread);
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        progressListener.onProgress(table, loaded.get(), skipped.get()); // Final counts, including trailing skipped lines
+        return loaded.get();
+    }
+
+    /**
+     * Body of a loader thread: inserts chunks until the end marker, stopping at the first failure of any loader.
+     */
+    private void insertChunks(BlockingQueue<List<Object[]>> chunks, String table, String sql,
+                              AtomicLong loaded, AtomicLong skipped, AtomicReference<SQLException> failure) {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            connection.setAutoCommit(false);
+            try {
+                List<Object[]> chunk;
+                while ((chunk = chunks.take()) != END) {
+                    if (failure.get() != null) {
+                        continue; // Drain the queue so the reader is never blocked
+                    }
+                    for (Object[] row : chunk) {
+                        for (int i = 0; i < row.length; i++) {
+                            statement.setObject(i + 1, row[i]);
+                        }
+                        statement.addBatch();
+                    }
+                    int inserted;
+                    try {
+                        inserted = insertedRows(statement.executeBatch());
+                        connection.commit();
+                    } catch (SQLException e) {
+                        rollback(connection, e); // The connection goes back to the pool without the failed chunk
+                        throw e;
+                    }
+                    skipped.addAndGet(chunk.size() - inserted); // Rows the database ignored, such as a pair already stored
+                    progressListener.onProgress(table, loaded.addAndGet(inserted), skipped.get());
+                }
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            failure.compareAndSet(null, e);
+            drain(chunks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Counts the rows a batch inserted; a statement whose count the driver does not report counts as one row.
+     */
+    private static int insertedRows(int[] updateCounts) {
+        int inserted = 0;
+        for (int count : updateCounts) {
+            inserted += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+        }
+        return inserted;
+    }
+
+    /**
+     * Takes chunks until the end marker, so a failed loader does not leave the reader blocked on a full queue.
+     */
+    private static void drain(BlockingQueue<List<Object[]>> chunks) {
+        try {
+            while (chunks.take() != END) {
+                // Discard the chunk
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Rolls back the open transaction of a loader after a failure; an error of the rollback itself is attached to the failure.
+     */
+    private static void rollback(Connection connection, SQLException failure) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    /**
+     * Queues an end marker, waiting for room in the queue even if interrupted.
+     * @return true if the thread was interrupted while waiting
+     */
+    private static boolean putEnd(BlockingQueue<List<Object[]>> chunks) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                chunks.put(END);
+                return interrupted;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+    }
+
+    /**
+     * Waits for a loader thread to finish, even if interrupted.
+     * @return true if the thread was interrupted while waiting
+     */
+    private static boolean join(Thread thread) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                thread.join();
+                return interrupted;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+    }
+
+    /**
+     * Splits a line into fields. CSV fields may be enclosed in double quotes, with "" standing for a quote;
+     * in the text formats the last field keeps any further separators.
+     */
+    static String[] split(String line, char separator, boolean csv) {
+        List<String> fields = new ArrayList<>();
+        if (!csv) {
+            int start = 0;
+            int end;
+            while ((end = line.indexOf(separator, start)) >= 0) {
+                fields.add(line.substring(start, end));
+                start = end + 1;
+            }
+            fields.add(line.substring(start));
+            return fields.toArray(new String[0]);
+        }
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == separator) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+
+    /**
+     * Command-line entry point.
+     * Usage: BulkImporter url username password users|friendships|messages file [batchSize] [loaders]
+     */
+    public static void main(String[] args) {
+        if (args.length < 5) {
+            System.err.println("Usage: BulkImporter <url> <username> <password> users|friendships|messages <file> [batchSize] [loaders]");
+            System.exit(1);
+        }
+        int batchSize = args.length > 5 ? Integer.parseInt(args[5]) : DEFAULT_BATCH_SIZE;
+        int loaders = args.length > 6 ? Integer.parseInt(args[6]) : DEFAULT_LOADERS;
+        try (ConnectionPool pool = new ConnectionPool(args[0], args[1], args[2])) {
+            BulkImporter importer = new BulkImporter(pool, batchSize, loaders);
+            long start = System.nanoTime();
+            AtomicLong reported = new AtomicLong();
+            importer.setProgressListener((table, loaded, skipped) -> {
+                long previous = reported.get();
+                // Report about every 100,000 rows
+                if (loaded / 100_000 > previous / 100_000 && reported.compareAndSet(previous, loaded)) {
+                    System.out.printf("%s: %,d rows loaded, %,d skipped, %.1f s%n",
+                            table, loaded, skipped, (System.nanoTime() - start) / 1e9);
+                }
+            });
+
+            Path file = Paths.get(args[4]);
+            long loaded;
+            switch (args[3]) {
+                case "users":
+                    loaded = importer.importUsers(file);
+                    break;
+                case "friendships":
+                    loaded = importer.importFriendships(file);
+                    break;
+                case "messages":
+                    loaded = importer.importMessages(file);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown table: " + args[3]);
+            }
+            System.out.printf("Loaded %,d rows in %.1f s%n", loaded, (System.nanoTime() - start) / 1e9);
+        } catch (IOException | SQLException | IllegalArgumentException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
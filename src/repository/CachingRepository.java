@@ -0,0 +1,133 @@
+package repository;
+
+import domain.Entity;
+
+import java.util.Optional;
+
+/**
+ * Repository decorator that keeps recently and frequently used entities in a WTinyLfuCache.
+ * findOne is answered from the cache when possible; save, update and delete go to the underlying
+ * repository first and then drop the entity from the cache, so the next lookup reads the stored version.
+ * A lookup that misses only caches what it read if no write completed while it was reading, so a row
+ * loaded just before a concurrent update or delete is never put back into the cache after the invalidation.
+ * @param <ID> the type of the entity IDs
+ * @param <E> the type of the entities
+ */
+public class CachingRepository<ID, E extends Entity<ID>> implements Repository<ID, E> {
+    protected final Repository<ID, E> repository; // The repository the entities are stored in
+    protected final WTinyLfuCache<ID, E> cache;
+    private long writes; // Completed writes, guarded by the cache's lock
+
+    /**
+     * Constructor for CachingRepository.
+     * @param repository the repository to decorate
+     * @param maximumSize the maximum number of cached entities
+     */
+    public CachingRepository(Repository<ID, E> repository, int maximumSize) {
+        this.repository = repository;
+        this.cache = new WTinyLfuCache<>(maximumSize);
+    }
+
+    /**
+     * Finds an entity by its ID, reading the underlying repository only on a cache miss.
+     * @param id the ID of the entity, must not be null
+     * @return an Optional containing the entity, or an empty Optional if it does not exist
+     * @throws IllegalArgumentException if id is null
+     */
+    @Override
+    public Optional<E> findOne(ID id) {
+        if (id == null) {
+            throw new IllegalArgumentException("id must not be null");
+        }
+        E cached = cache.get(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long seen = writeCount();
+        Optional<E> entity = repository.findOne(id);
+        entity.ifPresent(e -> fill(e, seen));
+        return entity;
+    }
+
+    /**
+     * Retrieves every entity from the underlying repository; the cache is left as it is,
+     * so a full scan does not push out the entities looked up most often.
+     * @return all entities
+     */
+    @Override
+    public Iterable<E> findAll() {
+        return repository.findAll();
+    }
+
+    @Override
+    public Optional<E> save(E entity) {
+        Optional<E> result = repository.save(entity);
+        invalidate(entity);
+        return result;
+    }
+
+    @Override
+    public Optional<E> delete(ID id) {
+        Optional<E> result = repository.delete(id);
+        if (id != null) {
+            invalidate(id);
+        }
+        return result;
+    }
+
+    @Override
+    public Optional<E> update(E entity) {
+        Optional<E> result = repository.update(entity);
+        invalidate(entity);
+        return result;
+    }
+
+    private void invalidate(E entity) {
+        if (entity != null && entity.getId() != null) {
+            invalidate(entity.getId());
+        }
+    }
+
+    /**
+     * Records a completed write and drops the written entity from the cache, in one step under the cache's lock.
+     * @param id the ID of the written entity
+     */
+    private void invalidate(ID id) {
+        synchronized (cache) {
+            writes++;
+            cache.invalidate(id);
+        }
+    }
+
+    /**
+     * Gets the number of writes completed so far; read it before loading entities that are then passed to fill.
+     * @return the number of completed writes
+     */
+    protected long writeCount() {
+        synchronized (cache) {
+            return writes;
+        }
+    }
+
+    /**
+     * Caches an entity read from the underlying repository, unless a write completed since the read started,
+     * in which case the entity may already be stale and the next lookup reads it again.
+     * @param entity the entity that was read
+     * @param seen the write count taken before the read
+     */
+    protected void fill(E entity, long seen) {
+        synchronized (cache) {
+            if (writes == seen) {
+                cache.put(entity.getId(), entity);
+            }
+        }
+    }
+
+    /**
+     * Gets the cache, e.g. to read its hit, miss and eviction counters.
+     * @return the cache of this repository
+     */
+    public WTinyLfuCache<ID, E> getCache() {
+        return cache;
+    }
+}
@@ -0,0 +1,77 @@
+package repository;
+
+import domain.User;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Caching decorator for user repositories.
+ * Besides findOne, batch lookups by ID are served from the cache, and only the missing users are read
+ * from the underlying repository, in a single call.
+ */
+public class CachingUserRepository extends CachingRepository<Long, User> implements UserLookupRepo<Long, User> {
+    private final UserLookupRepo<Long, User> users;
+
+    /**
+     * Constructor for CachingUserRepository.
+     * @param users the user repository to decorate
+     * @param maximumSize the maximum number of cached users
+     */
+    public CachingUserRepository(UserLookupRepo<Long, User> users, int maximumSize) {
+        super(users, maximumSize);
+        this.users = users;
+    }
+
+    /**
+     * Finds a user by email in the underlying repository and caches the result by ID.
+     * @param email the email address to look up
+     * @return an Optional containing the user, or an empty Optional if there is none
+     */
+    @Override
+    public Optional<User> findByEmail(String email) {
+        long seen = writeCount();
+        Optional<User> user = users.findByEmail(email);
+        user.ifPresent(u -> fill(u, seen));
+        return user;
+    }
+
+    /**
+     * Retrieves the users with the given IDs, reading only the uncached ones from the underlying repository.
+     * @param ids the IDs of the users to retrieve
+     * @return the found users, in the order of the given IDs
+     */
+    @Override
+    public List<User> findAllById(Collection<Long> ids) {
+        Map<Long, User> found = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : ids) {
+            User cached = cache.get(id);
+            if (cached != null) {
+                found.put(id, cached);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (!missing.isEmpty()) {
+            long seen = writeCount();
+            for (User user : users.findAllById(missing)) {
+                fill(user, seen);
+                found.put(user.getId(), user);
+            }
+        }
+
+        List<User> result = new ArrayList<>(found.size());
+        for (Long id : ids) {
+            User user = found.get(id);
+            if (user != null) {
+                result.add(user);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,607 @@
+package repository;
+
+import metrics.Instrumented;
+import metrics.MetricsRegistry;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of JDBC connections shared by the database repositories.
+ * Connections are validated before being handed out, idle connections are closed after a timeout,
+ * and callers wait at most a configured amount of time when every connection is in use.
+ * Closing a connection obtained from the pool returns it to the pool instead of closing it.
+ * Prepared statements are cached per physical connection by SQL text: closing one returns it to the cache,
+ * and preparing the same SQL again on that connection reuses it instead of parsing it anew.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    /**
+     * Opens new physical connections for the pool.
+     * Allows the pool to run against any JDBC source, including an embedded stand-in database.
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        /**
+         * Opens a new physical connection.
+         * @return the opened connection
+         * @throws SQLException if the connection cannot be opened
+         */
+        Connection create() throws SQLException;
+    }
+
+    public static final int DEFAULT_MAX_SIZE = 10;
+    public static final long DEFAULT_MAX_WAIT_MILLIS = 5_000;
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 60_000;
+    public static final int DEFAULT_VALIDATION_TIMEOUT_SECONDS = 2;
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 64; // Idle prepared statements kept per connection
+    // Executions of one statement after which the PostgreSQL driver switches to a named server-side statement,
+    // planned once; the driver's default is 5, but cached statements make repeated executions the norm
+    public static final int DEFAULT_PREPARE_THRESHOLD = 2;
+
+    private final ConnectionFactory factory; // Opens physical connections
+    private final int maxSize; // Maximum number of open connections
+    private final long maxWaitMillis; // Maximum time a caller waits for a free connection
+    private final long idleTimeoutMillis; // Idle connections older than this are closed
+    private final int validationTimeoutSeconds; // Timeout used by Connection.isValid
+    private final int statementCacheSize; // Idle prepared statements kept per connection, 0 to disable the cache
+    private final Map<Connection, StatementCache> statementCaches = // By physical connection, compared by identity
+            Collections.synchronizedMap(new IdentityHashMap<>());
+    private final Semaphore permits; // One permit per connection that may be handed out
+    private final Deque<IdleConnection> idle = new ArrayDeque<>(); // Most recently used connection first
+    private final ScheduledExecutorService reaper;
+
+    private final AtomicInteger active = new AtomicInteger(); // Connections currently borrowed
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong discardedCount = new AtomicLong();
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+    private volatile boolean closed = false;
+    private volatile MetricsRegistry metrics; // Receives SQL statement counts when set
+
+    /**
+     * A physical connection waiting in the pool together with the moment it was returned.
+     */
+    private static final class IdleConnection {
+        private final Connection connection;
+        private final long returnedAt;
+
+        private IdleConnection(Connection connection, long returnedAt) {
+            this.connection = connection;
+            this.returnedAt = returnedAt;
+        }
+    }
+
+    /**
+     * Creates a pool with default limits for a database reached through DriverManager.
+     * Connections are opened with the PostgreSQL driver's prepareThreshold set to {@link #DEFAULT_PREPARE_THRESHOLD};
+     * a threshold given in the URL takes precedence.
+     * @param url the database URL
+     * @param username the database username
+     * @param password the database password
+     */
+    public ConnectionPool(String url, String username, String password) {
+        this(() -> DriverManager.getConnection(url, connectionProperties(username, password)), DEFAULT_MAX_SIZE,
+                DEFAULT_MAX_WAIT_MILLIS, DEFAULT_IDLE_TIMEOUT_MILLIS, DEFAULT_VALIDATION_TIMEOUT_SECONDS);
+    }
+
+    private static Properties connectionProperties(String username, String password) {
+        Properties properties = new Properties();
+        properties.setProperty("user", username);
+        properties.setProperty("password", password);
+        properties.setProperty("prepareThreshold", String.valueOf(DEFAULT_PREPARE_THRESHOLD));
+        return properties;
+    }
+
+    /**
+     * Creates a pool with explicit limits.
+     * @param factory the factory used to open physical connections
+     * @param maxSize the maximum number of connections open at the same time
+     * @param maxWaitMillis how long a caller waits for a free connection before failing
+     * @param idleTimeoutMillis how long a connection may stay unused before being closed
+     * @param validationTimeoutSeconds the timeout passed to {@link Connection#isValid(int)}
+     * @throws IllegalArgumentException if a limit is not positive
+     */
+    public ConnectionPool(ConnectionFactory factory, int maxSize, long maxWaitMillis,
+                          long idleTimeoutMillis, int validationTimeoutSeconds) {
+        this(factory, maxSize, maxWaitMillis, idleTimeoutMillis, validationTimeoutSeconds, DEFAULT_STATEMENT_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a pool with explicit limits and statement cache size.
+     * @param factory the factory used to open physical connections
+     * @param maxSize the maximum number of connections open at the same time
+     * @param maxWaitMillis how long a caller waits for a free connection before failing
+     * @param idleTimeoutMillis how long a connection may stay unused before being closed
+     * @param validationTimeoutSeconds the timeout passed to {@link Connection#isValid(int)}
+     * @param statementCacheSize the idle prepared statements kept per connection, 0 to disable the cache
+     * @throws IllegalArgumentException if a limit is not positive
+     */
+    public ConnectionPool(ConnectionFactory factory, int maxSize, long maxWaitMillis,
+                          long idleTimeoutMillis, int validationTimeoutSeconds, int statementCacheSize) {
+        if (maxSize <= 0 || maxWaitMillis < 0 || idleTimeoutMillis <= 0 || validationTimeoutSeconds < 0
+                || statementCacheSize < 0) {
+            throw new IllegalArgumentException("Invalid connection pool limits");
+        }
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.maxWaitMillis = maxWaitMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.reaper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "connection-pool-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, idleTimeoutMillis / 2);
+        reaper.scheduleAtFixedRate(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection from the pool, opening a new one if no valid idle connection exists.
+     * Blocks for at most the configured maximum wait when the pool is exhausted.
+     * @return a connection whose {@code close()} returns it to the pool
+     * @throws SQLException if no connection becomes available in time or a new one cannot be opened
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+        long waited = System.nanoTime() - start;
+        totalWaitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+        if (!acquired) {
+            timeoutCount.incrementAndGet();
+            throw new SQLException("Timed out after " + maxWaitMillis + " ms waiting for a database connection");
+        }
+
+        try {
+            Connection physical = takeValidIdle();
+            if (physical == null) {
+                physical = factory.create();
+                createdCount.incrementAndGet();
+            }
+            active.incrementAndGet();
+            borrowCount.incrementAndGet();
+            return wrap(physical);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Takes the most recently returned idle connection that is still fresh and valid.
+     * Stale or broken connections found on the way are closed.
+     * @return a usable physical connection, or null if none is idle
+     */
+    private Connection takeValidIdle() {
+        while (true) {
+            IdleConnection candidate;
+            synchronized (idle) {
+                candidate = idle.pollFirst();
+            }
+            if (candidate == null) {
+                return null;
+            }
+            if (isExpired(candidate, System.currentTimeMillis()) || !isValid(candidate.connection)) {
+                discard(candidate.connection);
+                continue;
+            }
+            return candidate.connection;
+        }
+    }
+
+    /**
+     * Checks whether a physical connection is still usable.
+     * @param connection the connection to check
+     * @return true if the connection answered the validation request
+     */
+    private boolean isValid(Connection connection) {
+        try {
+            return !connection.isClosed() && connection.isValid(validationTimeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private boolean isExpired(IdleConnection idleConnection, long now) {
+        return now - idleConnection.returnedAt > idleTimeoutMillis;
+    }
+
+    /**
+     * Gives a borrowed physical connection back to the pool.
+     * Connections left in a transaction are rolled back; broken ones are discarded.
+     * @param physical the physical connection being returned
+     */
+    private void release(Connection physical) {
+        active.decrementAndGet();
+        try {
+            boolean reusable = !closed && !physical.isClosed();
+            if (reusable && !physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            if (reusable) {
+                synchronized (idle) {
+                    idle.addFirst(new IdleConnection(physical, System.currentTimeMillis()));
+                }
+            } else {
+                discard(physical);
+            }
+        } catch (SQLException e) {
+            discard(physical);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Closes idle connections that exceeded the idle timeout.
+     * The least recently used connections sit at the tail of the idle deque.
+     */
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        while (true) {
+            IdleConnection oldest;
+            synchronized (idle) {
+                oldest = idle.peekLast();
+                if (oldest == null || !isExpired(oldest, now)) {
+                    return;
+                }
+                idle.pollLast();
+            }
+            discard(oldest.connection);
+        }
+    }
+
+    private void discard(Connection physical) {
+        discardedCount.incrementAndGet();
+        StatementCache statements = statementCaches.remove(physical);
+        if (statements != null) {
+            statements.closeAll();
+        }
+        try {
+            physical.close();
+        } catch (SQLException ignored) {
+            // The connection is being thrown away anyway
+        }
+    }
+
+    /**
+     * Wraps a physical connection so that closing it returns it to the pool.
+     * Closing the wrapper more than once has no further effect.
+     * @param physical the physical connection
+     * @return the pooled connection handed out to callers
+     */
+    private Connection wrap(Connection physical) {
+        InvocationHandler handler = new InvocationHandler() {
+            private boolean returned = false;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close":
+                        if (!returned) {
+                            returned = true;
+                            release(physical);
+                        }
+                        return null;
+                    case "isClosed":
+                        return returned || physical.isClosed();
+                    default:
+                        if (returned) {
+                            throw new SQLException("Connection has already been returned to the pool");
+                        }
+                        Object result;
+                        if (statementCacheSize > 0 && method.getName().equals("prepareStatement")) {
+                            result = prepareCached((Connection) proxy, physical, method, args);
+                        } else {
+                            try {
+                                result = method.invoke(physical, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        }
+                        MetricsRegistry registry = metrics;
+                        if (registry != null && result instanceof Statement) {
+                            return instrument(method.getReturnType(), (Statement) result, registry);
+                        }
+                        return result;
+                }
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, handler);
+    }
+
+    /**
+     * Prepares a statement through the connection's statement cache.
+     * @param pooled the connection handed to the caller, returned by the statement's getConnection
+     * @param physical the physical connection the statement belongs to
+     * @param method the prepareStatement overload called
+     * @param args its arguments, the SQL text first
+     * @return a statement whose close returns it to the cache
+     * @throws Throwable if the statement cannot be prepared
+     */
+    private PreparedStatement prepareCached(Connection pooled, Connection physical, Method method, Object[] args)
+            throws Throwable {
+        StatementCache cache = statementCaches.computeIfAbsent(physical, c -> new StatementCache(statementCacheSize));
+        // Overloads taking generated-key or result-set options prepare different statements for the same SQL
+        String key = args.length == 1 ? (String) args[0] : Arrays.deepToString(args);
+        PreparedStatement statement = cache.take(key);
+        if (statement != null && !statement.isClosed()) {
+            statementCacheHits.incrementAndGet();
+        } else {
+            statementCacheMisses.incrementAndGet();
+            try {
+                statement = (PreparedStatement) method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+        return cachedStatement(pooled, cache, key, statement);
+    }
+
+    /**
+     * Wraps a prepared statement so that closing it clears it and gives it back to its cache.
+     * Result sets the caller left open are closed, as closing a statement would.
+     * @param pooled the connection handed to the caller
+     * @param cache the cache the statement returns to
+     * @param key the key of the statement in the cache
+     * @param physical the prepared statement
+     * @return the statement handed out to the caller
+     */
+    private static PreparedStatement cachedStatement(Connection pooled, StatementCache cache, String key,
+                                                     PreparedStatement physical) {
+        InvocationHandler handler = new InvocationHandler() {
+            private boolean returned = false;
+            private final List<ResultSet> results = new ArrayList<>(1); // Result sets opened by the caller
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                switch (method.getName()) {
+                    case "close":
+                        if (!returned) {
+                            returned = true;
+                            giveBack();
+                        }
+                        return null;
+                    case "isClosed":
+                        return returned || physical.isClosed();
+                    case "getConnection":
+                        return pooled;
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        if (returned) {
+                            throw new SQLException("Statement has already been closed");
+                        }
+                        Object result;
+                        try {
+                            result = method.invoke(physical, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                        if (result instanceof ResultSet) {
+                            results.add((ResultSet) result);
+                        }
+                        return result;
+                }
+            }
+
+            private void giveBack() throws SQLException {
+                try {
+                    for (ResultSet result : results) {
+                        result.close();
+                    }
+                    results.clear();
+                    physical.clearParameters();
+                    physical.clearBatch();
+                    physical.clearWarnings();
+                } catch (SQLException e) {
+                    physical.close(); // A statement that cannot be reset is not reused
+                    return;
+                }
+                if (!cache.offer(key, physical)) {
+                    physical.close();
+                }
+            }
+        };
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, handler);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Statement> T instrument(Class<?> type, Statement statement, MetricsRegistry registry) {
+        return Instrumented.statement((Class<T>) type, (T) statement, registry);
+    }
+
+    /**
+     * Reports the pool's state and every statement run on its connections to a metrics registry:
+     * gauges "pool.active", "pool.idle" and "pool.waiting", and the SQL instruments of {@link Instrumented#statement}.
+     * @param metrics the registry
+     */
+    public void setMetrics(MetricsRegistry metrics) {
+        metrics.gauge("pool.active", this::getActiveCount);
+        metrics.gauge("pool.idle", this::getIdleCount);
+        metrics.gauge("pool.waiting", this::getWaitingCount);
+        metrics.gauge("pool.timeouts", this::getTimeoutCount);
+        metrics.gauge("pool.statementCache.hits", this::getStatementCacheHitCount);
+        metrics.gauge("pool.statementCache.misses", this::getStatementCacheMissCount);
+        this.metrics = metrics;
+    }
+
+    /**
+     * Gets the number of connections currently borrowed from the pool.
+     * @return the number of active connections
+     */
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    /**
+     * Gets the number of open connections waiting in the pool.
+     * @return the number of idle connections
+     */
+    public int getIdleCount() {
+        synchronized (idle) {
+            return idle.size();
+        }
+    }
+
+    /**
+     * Gets the maximum number of connections the pool keeps open.
+     * @return the pool size limit
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Gets the number of threads currently blocked waiting for a connection.
+     * @return the number of waiting threads
+     */
+    public int getWaitingCount() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * Gets the number of successful borrows since the pool was created.
+     * @return the borrow count
+     */
+    public long getBorrowCount() {
+        return borrowCount.get();
+    }
+
+    /**
+     * Gets the average time callers waited for a connection.
+     * @return the average wait in milliseconds
+     */
+    public double getAverageWaitMillis() {
+        long borrows = borrowCount.get() + timeoutCount.get();
+        return borrows == 0 ? 0 : totalWaitNanos.get() / 1_000_000.0 / borrows;
+    }
+
+    /**
+     * Gets the longest time a caller waited for a connection.
+     * @return the maximum wait in milliseconds
+     */
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    /**
+     * Gets the number of borrow attempts that gave up after the maximum wait.
+     * @return the timeout count
+     */
+    public long getTimeoutCount() {
+        return timeoutCount.get();
+    }
+
+    /**
+     * Gets the number of physical connections opened since the pool was created.
+     * @return the created connection count
+     */
+    public long getCreatedCount() {
+        return createdCount.get();
+    }
+
+    /**
+     * Gets the number of physical connections closed because they were stale, broken or evicted.
+     * @return the discarded connection count
+     */
+    public long getDiscardedCount() {
+        return discardedCount.get();
+    }
+
+    /**
+     * Gets the number of prepared statements served from the statement cache.
+     * @return the statement cache hit count
+     */
+    public long getStatementCacheHitCount() {
+        return statementCacheHits.get();
+    }
+
+    /**
+     * Gets the number of prepared statements that had to be prepared on the connection.
+     * @return the statement cache miss count
+     */
+    public long getStatementCacheMissCount() {
+        return statementCacheMisses.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionPool active: " + getActiveCount() +
+                ", idle: " + getIdleCount() +
+                ", waiting: " + getWaitingCount() +
+                ", avgWaitMs: " + String.format("%.3f", getAverageWaitMillis()) +
+                ", maxWaitMs: " + String.format("%.3f", getMaxWaitMillis()) +
+                ", timeouts: " + getTimeoutCount() +
+                ", statementCacheHits: " + getStatementCacheHitCount() +
+                ", statementCacheMisses: " + getStatementCacheMissCount();
+    }
+
+    /**
+     * Closes every idle connection and stops the idle reaper.
+     * Connections still borrowed are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        reaper.shutdownNow();
+        while (true) {
+            IdleConnection idleConnection;
+            synchronized (idle) {
+                idleConnection = idle.pollFirst();
+            }
+            if (idleConnection == null) {
+                return;
+            }
+            discard(idleConnection.connection);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package repository;
+
+import domain.Entity;
+
+import java.util.List;
+
+public interface ConversationRepo<ID, E extends Entity<ID>> extends Repository<ID, E> {
+
+    /**
+     * Retrieves the conversation between two users, in either direction, ordered by date.
+     *
+     * @param userId1 The ID of the first user of the conversation.
+     * @param userId2 The ID of the second user of the conversation.
+     * @return The entities exchanged between the two users, oldest first.
+     */
+    List<E> findConversation(Long userId1, Long userId2);
+}
@@ -0,0 +1,77 @@
+package repository;
+
+/**
+ * Count-min sketch estimating how often keys were accessed recently, with 4-bit counters.
+ * Each key maps to one counter in each of four rows; its estimate is the smallest of the four.
+ * Sixteen counters are packed in a long, so the sketch costs 8 bytes per cached entry.
+ * Once the sketch has counted ten increments per entry of the cache, every counter is halved,
+ * so entries that were popular long ago lose their advantage.
+ */
+class FrequencySketch {
+    private static final long[] SEEDS = { // Odd multipliers giving each row its own hash
+            0x97cb3127a1f2e5b3L, 0xc2b2ae3d27d4eb4fL, 0x9e3779b97f4a7c15L, 0xbf58476d1ce4e5b9L};
+    private static final long HALVE_MASK = 0x7777_7777_7777_7777L; // Clears the bit shifted in from the next counter
+    private static final int MAX_COUNT = 15;
+
+    private final long[] table;
+    private final int sampleSize; // Increments between two halvings
+    private int additions = 0;
+
+    /**
+     * Constructor for a sketch sized for a cache.
+     * @param maximumSize the maximum number of entries of the cache
+     */
+    FrequencySketch(int maximumSize) {
+        int counters = Math.max(8, Math.min(maximumSize, 1 << 26));
+        table = new long[Integer.highestOneBit(counters - 1) << 1]; // One long, 16 counters, per entry rounded to a power of two
+        sampleSize = 10 * Math.max(1, maximumSize);
+    }
+
+    /**
+     * Records an access to a key.
+     * @param hash the hash code of the key
+     */
+    void increment(int hash) {
+        boolean added = false;
+        for (int row = 0; row < SEEDS.length; row++) {
+            long rowHash = rowHash(hash, row);
+            int index = (int) (rowHash >>> 32) & (table.length - 1);
+            int shift = (int) (rowHash & 15) << 2;
+            if (((table[index] >>> shift) & MAX_COUNT) < MAX_COUNT) {
+                table[index] += 1L << shift;
+                added = true;
+            }
+        }
+        if (added && ++additions == sampleSize) {
+            halve();
+        }
+    }
+
+    /**
+     * Estimates how often a key was accessed recently.
+     * @param hash the hash code of the key
+     * @return the estimated number of accesses, at most 15
+     */
+    int frequency(int hash) {
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < SEEDS.length; row++) {
+            long rowHash = rowHash(hash, row);
+            int index = (int) (rowHash >>> 32) & (table.length - 1);
+            int shift = (int) (rowHash & 15) << 2;
+            frequency = Math.min(frequency, (int) ((table[index] >>> shift) & MAX_COUNT));
+        }
+        return frequency;
+    }
+
+    private long rowHash(int hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        return h ^ (h >>> 29);
+    }
+
+    private void halve() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & HALVE_MASK;
+        }
+        additions >>>= 1;
+    }
+}
@@ -0,0 +1,71 @@
+package repository;
+
+import domain.Friendship;
+import domain.Tuple;
+import enums.Friendshiprequest;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Binary snapshot of friendships as fixed-size records.
+ * Layout: magic (int), count (int), then per friendship
+ * idUser1 (long), idUser2 (long), date as epoch seconds in UTC (long) and nanoseconds (int), status ordinal (byte).
+ * Snapshots of the first version, with the date in epoch millis, are still read.
+ */
+public class FriendshipBinaryCodec implements BinaryCodec<Friendship> {
+    private static final int MAGIC = 0x46524e32; // "FRN2"
+    private static final int MILLIS_MAGIC = 0x46524e44; // "FRND", dates truncated to milliseconds
+    private static final int HEADER_SIZE = 8;
+    public static final int RECORD_SIZE = 8 + 8 + 8 + 4 + 1;
+    private static final int MILLIS_RECORD_SIZE = 8 + 8 + 8 + 1;
+    private static final Friendshiprequest[] STATUSES = Friendshiprequest.values();
+
+    @Override
+    public void write(Collection<Friendship> entities, DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(entities.size());
+        for (Friendship friendship : entities) {
+            out.writeLong(friendship.getIdUser1());
+            out.writeLong(friendship.getIdUser2());
+            Instant date = friendship.getDate().toInstant(ZoneOffset.UTC);
+            out.writeLong(date.getEpochSecond());
+            out.writeInt(date.getNano());
+            out.writeByte(friendship.getFriendshiprequest().ordinal());
+        }
+    }
+
+    @Override
+    public int count(ByteBuffer snapshot) {
+        if (snapshot.getInt(0) != MAGIC && snapshot.getInt(0) != MILLIS_MAGIC) {
+            throw new IllegalArgumentException("Not a friendship snapshot");
+        }
+        return snapshot.getInt(4);
+    }
+
+    @Override
+    public void read(ByteBuffer snapshot, Consumer<Friendship> sink) {
+        int count = count(snapshot);
+        boolean millis = snapshot.getInt(0) == MILLIS_MAGIC;
+        int recordSize = millis ? MILLIS_RECORD_SIZE : RECORD_SIZE;
+        int position = HEADER_SIZE;
+        for (int i = 0; i < count; i++, position += recordSize) {
+            long id1 = snapshot.getLong(position);
+            long id2 = snapshot.getLong(position + 8);
+            Instant date = millis
+                    ? Instant.ofEpochMilli(snapshot.getLong(position + 16))
+                    : Instant.ofEpochSecond(snapshot.getLong(position + 16), snapshot.getInt(position + 24));
+            Friendshiprequest status = STATUSES[snapshot.get(position + recordSize - 1)];
+
+            Friendship friendship = new Friendship(id1, id2, LocalDateTime.ofInstant(date, ZoneOffset.UTC), status);
+            friendship.setId(new Tuple<>(id1, id2));
+            sink.accept(friendship);
+        }
+    }
+}
@@ -12,4 +12,21 @@ public interface FriendshipPagingRepo<ID, E extends Entity<ID>> extends PagingRe
      * @return A Page object containing a subset of friends and the total number of friends for the user.
      */
     Page<E> getUsersFriends(Pageable pageable, User user);
+
+    /**
+     * Retrieves the page of a user's friends that follows the given cursor, ordered by friend ID.
+     *
+     * @param pageable The page size and the ID of the last friend seen (null for the first page).
+     * @param user The user whose friends are to be retrieved.
+     * @return A CursorPage containing the friendships of the page and the friend ID to continue from.
+     */
+    CursorPage<E, Long> getUsersFriendsAfter(CursorPageable<Long> pageable, User user);
+
+    /**
+     * Counts the approved friends of a user.
+     *
+     * @param user The user whose friends are counted.
+     * @return The number of friends of the user.
+     */
+    int countUsersFriends(User user);
 }
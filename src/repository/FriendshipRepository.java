@@ -3,6 +3,9 @@ package repository;
 import domain.Friendship;
 import domain.Tuple;
 import domain.validators.Validator;
+import enums.Friendshiprequest;
+import enums.FsyncPolicy;
+import enums.SnapshotFormat;
 
 import java.time.LocalDateTime;
 
@@ -11,6 +14,8 @@ import java.time.LocalDateTime;
  * Provides methods for creating and saving Friendship entities from/to a file.
  */
 public class FriendshipRepository extends AbstractFileRepository<Tuple<Long, Long>, Friendship> {
+    private static final FriendshipBinaryCodec CODEC = new FriendshipBinaryCodec(); // Binary snapshot format
+
     /**
      * Constructor for FriendshipRepository.
      * @param validator the validator used for validating Friendship entities before saving or updating
@@ -20,17 +25,58 @@ public class FriendshipRepository extends AbstractFileRepository<Tuple<Long, Lon
         super(validator, filename);
     }
 
+    /**
+     * Constructor for FriendshipRepository with an explicit fsync policy for the change log.
+     * @param validator the validator used for validating Friendship entities before saving or updating
+     * @param filename the name of the file to load and save Friendship data
+     * @param fsyncPolicy when appended changes are forced to disk
+     */
+    public FriendshipRepository(Validator<Friendship> validator, String filename, FsyncPolicy fsyncPolicy) {
+        super(validator, filename, fsyncPolicy);
+    }
+
+    /**
+     * Constructor for FriendshipRepository with an explicit fsync policy and snapshot format.
+     * @param validator the validator used for validating Friendship entities before saving or updating
+     * @param filename the name of the file to load and save Friendship data
+     * @param fsyncPolicy when appended changes are forced to disk
+     * @param snapshotFormat the format the snapshot file is read and compacted in
+     */
+    public FriendshipRepository(Validator<Friendship> validator, String filename, FsyncPolicy fsyncPolicy, SnapshotFormat snapshotFormat) {
+        super(validator, filename, fsyncPolicy, snapshotFormat);
+    }
+
+    /**
+     * Gives the codec used when the snapshot is stored in binary.
+     * @return the Friendship binary codec
+     */
+    @Override
+    protected BinaryCodec<Friendship> binaryCodec() {
+        return CODEC;
+    }
+
     /**
      * Creates a Friendship entity from a string representation.
-     * @param line the string representation of the Friendship in the format "idUser1 idUser2"
+     * @param line the string representation of the Friendship in the format "idUser1 idUser2 date [status]"
      * @return the created Friendship entity
      */
     @Override
     public Friendship createEntity(String line) {
-        Long id1 = Long.parseLong(line.split(" ")[0]); // Parse the first user ID from the string
-        Long id2 = Long.parseLong(line.split(" ")[1]);// Parse the second user ID from the string
-        LocalDateTime date = LocalDateTime.parse(line.split(" ")[2]);
-        Friendship friendship = new Friendship(id1, id2, date); // Create Friendship with both user IDs
+        return parse(line);
+    }
+
+    /**
+     * Parses a Friendship from its line in the snapshot or change log, without a repository.
+     * @param line the string representation of the Friendship in the format "idUser1 idUser2 date [status]"
+     * @return the parsed Friendship entity
+     */
+    static Friendship parse(String line) {
+        String[] split = line.split(" ");
+        Long id1 = Long.parseLong(split[0]); // Parse the first user ID from the string
+        Long id2 = Long.parseLong(split[1]);// Parse the second user ID from the string
+        LocalDateTime date = LocalDateTime.parse(split[2]);
+        Friendshiprequest status = split.length > 3 ? Friendshiprequest.valueOf(split[3]) : Friendshiprequest.PENDING;
+        Friendship friendship = new Friendship(id1, id2, date, status); // Create Friendship with both user IDs
         friendship.setId(new Tuple<>(id1, id2)); // Set the composite ID using a Tuple
         return friendship; // Return the created Friendship
     }
@@ -38,12 +84,13 @@ public class FriendshipRepository extends AbstractFileRepository<Tuple<Long, Lon
     /**
      * Gets the string representation of a Friendship entity for saving to a file.
      * @param friendship the Friendship entity to save
-     * @return the string representation of the Friendship in the format "idUser1 idUser2"
+     * @return the string representation of the Friendship in the format "idUser1 idUser2 date status"
      */
     @Override
     public String saveEntity(Friendship friendship) {
         Long u1 = friendship.getIdUser1(); // Get the first user ID
         Long u2 = friendship.getIdUser2(); // Get the second user ID
-        return u1.toString() + " " + u2.toString(); // Return the string representation
+        return u1.toString() + " " + u2.toString() + " " + friendship.getDate() + " " +
+                friendship.getFriendshiprequest(); // Return the string representation
     }
 }
@@ -8,48 +8,41 @@ import java.time.LocalDateTime;
 import java.util.*;
 
 public class FriendshipsRepoBD implements FriendshipPagingRepo<Tuple<Long, Long>, Friendship> {
-    private static String url;
-    private static String username;
-    private static String password;
+    // Matches a pair of users in either direction; probes friendships_pair_idx with the smaller ID first
+    private static final String SAME_PAIR = "LEAST(user_id_1, user_id_2) = ? AND GREATEST(user_id_1, user_id_2) = ?";
+    // Conflict target of friendships_pair_idx, so inserting a pair stored in either direction does nothing
+    private static final String PAIR_INDEX = "((LEAST(user_id_1, user_id_2)), (GREATEST(user_id_1, user_id_2)))";
+
+    private final ConnectionPool pool; // Shared pool of database connections
 
     /**
-     * Constructor for initializing the Friendships repository with database connection details.
-     * @param url the database URL
-     * @param username the database username
-     * @param password the database password
+     * Constructor for initializing the Friendships repository with a connection pool.
+     * @param pool the pool providing database connections
      */
-    public FriendshipsRepoBD(String url, String username, String password) {
-        this.url = url;
-        this.username = username;
-        this.password = password;
+    public FriendshipsRepoBD(ConnectionPool pool) {
+        this.pool = pool;
     }
 
 
     /**
-     * Finds a friendship between two users.
+     * Finds a friendship between two users, in either direction, with one probe of the pair index.
+     * The friendship keeps the direction it was stored with.
      * @param id a Tuple of the users ids
      * @return an Optional containing the Friendship if it exists, or an empty Optional if not
      */
     @Override
     public Optional<Friendship> findOne(Tuple<Long, Long> id) {
         Friendship friendship = null;
-        try (Connection connection = DriverManager.getConnection(url, username, password);
+        try (Connection connection = pool.getConnection();
              PreparedStatement statement = connection.prepareStatement(
-                     "SELECT * FROM friendships WHERE (user_id_1 = ? AND user_id_2 = ?) OR (user_id_1 = ? AND user_id_2 = ?)")) {
-
-            statement.setLong(1, id.getLeft());
-            statement.setLong(2, id.getRight());
-            statement.setLong(3, id.getRight());
-            statement.setLong(4, id.getLeft());
+                     "SELECT user_id_1, user_id_2, date, request FROM friendships WHERE " + SAME_PAIR)) {
 
-            ResultSet resultSet = statement.executeQuery();
+            setPair(statement, 1, id.getLeft(), id.getRight());
 
-            if (resultSet.next()) {
-                Long user1 = resultSet.getLong("user_id_1");
-                Long user2 = resultSet.getLong("user_id_2");
-                LocalDateTime date = resultSet.getTimestamp("date").toLocalDateTime();
-                Friendshiprequest friendshiprequest = Friendshiprequest.valueOf(resultSet.getString("request"));
-                friendship = new Friendship(user1, user2, date,friendshiprequest);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    friendship = readFriendship(resultSet);
+                }
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -57,6 +50,35 @@ public class FriendshipsRepoBD implements FriendshipPagingRepo<Tuple<Long, Long>
         return Optional.ofNullable(friendship);
     }
 
+    /**
+     * Binds an unordered pair of users to the two parameters of {@link #SAME_PAIR}, smaller ID first.
+     * @param statement the statement to bind
+     * @param index the index of the first of the two parameters
+     * @param userId1 the ID of one user
+     * @param userId2 the ID of the other user
+     * @throws SQLException if a parameter cannot be set
+     */
+    private static void setPair(PreparedStatement statement, int index, long userId1, long userId2) throws SQLException {
+        statement.setLong(index, Math.min(userId1, userId2));
+        statement.setLong(index + 1, Math.max(userId1, userId2));
+    }
+
+    /**
+     * Creates a Friendship from the current row of a result set, with its ID in the stored direction.
+     * @param resultSet the result set positioned on a friendships row
+     * @return the friendship
+     * @throws SQLException if a column cannot be read
+     */
+    private static Friendship readFriendship(ResultSet resultSet) throws SQLException {
+        Long user1 = resultSet.getLong("user_id_1");
+        Long user2 = resultSet.getLong("user_id_2");
+        LocalDateTime date = resultSet.getTimestamp("date").toLocalDateTime();
+        Friendshiprequest friendshiprequest = Friendshiprequest.valueOf(resultSet.getString("request"));
+        Friendship friendship = new Friendship(user1, user2, date, friendshiprequest);
+        friendship.setId(new Tuple<>(user1, user2));
+        return friendship;
+    }
+
     /**
      * Retrieves all friendships.
      * @return a Set containing all friendships
@@ -64,19 +86,12 @@ public class FriendshipsRepoBD implements FriendshipPagingRepo<Tuple<Long, Long>
     @Override
     public Iterable<Friendship> findAll() {
         Set<Friendship> friendships = new HashSet<>();
-        try (Connection connection = DriverManager.getConnection(url, username, password);
+        try (Connection connection = pool.getConnection();
              PreparedStatement statement = connection.prepareStatement("SELECT * FROM friendships");
              ResultSet resultSet = statement.executeQuery()) {
 
             while (resultSet.next()) {
-                Long user1 = resultSet.getLong("user_id_1");
-                Long user2 = resultSet.getLong("user_id_2");
-                LocalDateTime date = resultSet.getTimestamp("date").toLocalDateTime();
-                Friendshiprequest friendshiprequest = Friendshiprequest.valueOf(resultSet.getString("request"));
-                Friendship friendship = new Friendship(user1, user2, date,friendshiprequest);
-                friendships.add(friendship);
-                friendship.setId(new Tuple<>(user1, user2));
-
+                friendships.add(readFriendship(resultSet));
             }
         } catch (SQLException e) {
             e.printStackTrace();
@@ -86,14 +101,16 @@ public class FriendshipsRepoBD implements FriendshipPagingRepo<Tuple<Long, Long>
 
     /**
      * Saves a new friendship between two users.
+     * The pair must not be stored yet in either direction; the unique pair index enforces it.
      * @param friendship the Friendship object to save
-     * @return an empty Optional if the save was successful, or the Friendship if it failed
+     * @return an empty Optional if the save was successful, or the Friendship if it failed or already exists
      */
     @Override
     public Optional<Friendship> save(Friendship friendship) {
         int rowsAffected = -1;
-        try (Connection connection = DriverManager.getConnection(url, username, password);
-             PreparedStatement statement = connection.prepareStatement("INSERT INTO friendships (user_id_1, user_id_2,date, request) VALUES (?, ?, ?, ?)")) {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement("INSERT INTO friendships (user_id_1, user_id_2, date, request) VALUES (?, ?, ?, ?) " +
+                     "ON CONFLICT " + PAIR_INDEX + " DO NOTHING")) {
 
             statement.setLong(1, friendship.getIdUser1());
             statement.setLong(2, friendship.getIdUser2());
@@ -108,64 +125,59 @@ public class FriendshipsRepoBD implements FriendshipPagingRepo<Tuple<Long, Long>
     }
 
     /**
-     * Updates an existing friendship. Friendships typically don't need updates.
+     * Updates the date and status of an existing friendship, found by its pair of users in either direction.
+     * The stored direction, who asked whom, is left unchanged.
      * @param friendship the Friendship object to update
      * @return an empty Optional if the update was successful, or the Friendship if it failed
      */
     @Override
     public Optional<Friendship> update(Friendship friendship) {
         int rez = -1;
-        try (Connection connection = DriverManager.getConnection(url,username,password);
-            PreparedStatement statement = connection.prepareStatement("UPDATE friendships SET  date = ?, request= ? WHERE user_id_1 = ? and user_id_2 = ?")) {
+        try (Connection connection = pool.getConnection();
+            PreparedStatement statement = connection.prepareStatement("UPDATE friendships SET date = ?, request = ? WHERE " + SAME_PAIR)) {
             statement.setTimestamp(1, Timestamp.valueOf(friendship.getDate()));
             statement.setString(2,friendship.getFriendshiprequest().toString());
-            statement.setLong(3,friendship.getIdUser1());
-            statement.setLong(4,friendship.getIdUser2());
+            setPair(statement, 3, friendship.getIdUser1(), friendship.getIdUser2());
             rez = statement.executeUpdate();
         } catch (SQLException e) {
-        e.printStackTrace();
-
-            if (rez > 0) {
-                return Optional.empty();
-            }
+            e.printStackTrace();
         }
 
-        return Optional.of(friendship);
+        return rez > 0 ? Optional.empty() : Optional.of(friendship);
     }
 
 
 
     /**
-     * Deletes a friendship between two users.
+     * Deletes a friendship between two users, in either direction.
+     * The row is found through the pair index and returned by the same statement, so no lookup precedes the delete.
      * @param id the Tuple of user IDs representing the friendship
      * @return an Optional containing the deleted Friendship if successful, or an empty Optional if not
      */
     @Override
     public Optional<Friendship> delete(Tuple<Long, Long> id) {
-        Optional<Friendship> friendshipToDelete = findOne(id);
-        int rowsAffected = -1;
+        Friendship deleted = null;
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "DELETE FROM friendships WHERE " + SAME_PAIR + " RETURNING user_id_1, user_id_2, date, request")) {
 
-        if (friendshipToDelete.isPresent()) {
-            try (Connection connection = DriverManager.getConnection(url, username, password);
-                 PreparedStatement statement = connection.prepareStatement("DELETE FROM friendships WHERE (user_id_1 = ? AND user_id_2 = ?) OR (user_id_1 = ? AND user_id_2 = ?)")) {
-
-                statement.setLong(1, id.getLeft());
-                statement.setLong(2, id.getRight());
-                statement.setLong(3, id.getRight());
-                statement.setLong(4, id.getLeft());
-                rowsAffected = statement.executeUpdate();
-            } catch (SQLException e) {
-                e.printStackTrace();
+            setPair(statement, 1, id.getLeft(), id.getRight());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    deleted = readFriendship(resultSet);
+                }
             }
+        } catch (SQLException e) {
+            e.printStackTrace();
         }
 
-        return rowsAffected > 0 ? friendshipToDelete : Optional.empty();
+        return Optional.ofNullable(deleted);
     }
 
     /**
-     * Retrieves a paginated list of friendships for a specific user from the database.
-     * The method fetches a subset of friendships based on the specified page number and page size,
-     * filtering for friendships that are approved and belong to the given user.
+     * Retrieves a paginated list of friendships for a specific user from the database, ordered by friend ID.
+     * Only approved friendships are returned, from either side of the pair. They are read from the
+     * user_friends view, which both partial indexes on approved friendships serve with a range scan.
      * It also retrieves the total count of such friendships to help with pagination.
      *
      * @param pageable the pagination details (page number and page size)
@@ -176,30 +188,21 @@ public class FriendshipsRepoBD implements FriendshipPagingRepo<Tuple<Long, Long>
     public Page<Friendship> getUsersFriends(Pageable pageable, User user) {
         List<Friendship> friendshipList = new ArrayList<>();
 
-        try(Connection connection = DriverManager.getConnection(url,username,password);
-            PreparedStatement pageStatement = connection.prepareStatement("SELECT * FROM friendships WHERE ( request LIKE 'APROOVED' AND user_id_1 = ? or user_id_2 = ?)" + "LIMIT ? OFFSET ?");
-            PreparedStatement countStatemnt = connection.prepareStatement("SELECT COUNT(*) AS count FROM friendships WHERE request LIKE 'APROOVED' AND user_id_1 = ? or user_id_2 = ?")
+        try(Connection connection = pool.getConnection();
+            PreparedStatement pageStatement = connection.prepareStatement(
+                    "SELECT user_id_1, user_id_2, date, request FROM user_friends WHERE user_id = ? ORDER BY friend_id LIMIT ? OFFSET ?");
+            PreparedStatement countStatement = connection.prepareStatement("SELECT COUNT(*) AS count FROM user_friends WHERE user_id = ?")
         ){
             pageStatement.setLong(1,user.getId());
-            pageStatement.setLong(2,user.getId());
-            pageStatement.setInt(3,pageable.getPageSize());
-            pageStatement.setInt(4,pageable.getPageSize()*pageable.getPageNumber());
-            countStatemnt.setLong(1,user.getId());
-            countStatemnt.setLong(2,user.getId());
+            pageStatement.setInt(2,pageable.getPageSize());
+            pageStatement.setInt(3,pageable.getPageSize()*pageable.getPageNumber());
+            countStatement.setLong(1,user.getId());
 
             try(ResultSet pageResultSet = pageStatement.executeQuery();
-                ResultSet countResultSet = countStatemnt.executeQuery()
+                ResultSet countResultSet = countStatement.executeQuery()
             ){
                 while(pageResultSet.next()){
-                    Long id1 = pageResultSet.getLong("user_id_1");
-                    Long id2 = pageResultSet.getLong("user_id_2");
-                    LocalDateTime date = pageResultSet.getTimestamp("date").toLocalDateTime();
-                    Friendshiprequest friend_req_status = Friendshiprequest.valueOf(pageResultSet.getString("request"));
-
-                    Friendship friendship = new Friendship(id1, id2, date, friend_req_status);
-                    friendship.setId(new Tuple<>(id1, id2));
-                    friendshipList.add(friendship);
-
+                    friendshipList.add(readFriendship(pageResultSet));
                 }
                 int count = 0;
                 if(countResultSet.next()){
@@ -214,7 +217,7 @@ public class FriendshipsRepoBD implements FriendshipPagingRepo<Tuple<Long, Long>
     }
 
     /**
-     * Retrieves a paginated list of all approved friendships from the database.
+     * Retrieves a paginated list of all approved friendships from the database, ordered by (user_id_1, user_id_2).
      * The method fetches a subset of friendships based on the specified page number and page size,
      * filtering for friendships that are approved.
      * It also retrieves the total count of approved friendships to help with pagination.
@@ -226,9 +229,10 @@ public class FriendshipsRepoBD implements FriendshipPagingRepo<Tuple<Long, Long>
     public Page<Friendship> findAllOnPage(Pageable pageable) {
         List<Friendship> friendshipList = new ArrayList<>();
 
-        try(Connection connection = DriverManager.getConnection(url,username,password);
-            PreparedStatement pageStatement = connection.prepareStatement("SELECT * FROM friendships WHERE request LIKE 'APROOVED'" + "LIMIT ? OFFSET ?");
-            PreparedStatement countStatement = connection.prepareStatement("SELECT COUNT(*) AS count FROM friendships WHERE request LIKE 'APROOVED'")
+        try(Connection connection = pool.getConnection();
+            PreparedStatement pageStatement = connection.prepareStatement("SELECT * FROM friendships WHERE request = 'APROOVED' " +
+                    "ORDER BY user_id_1, user_id_2 LIMIT ? OFFSET ?");
+            PreparedStatement countStatement = connection.prepareStatement("SELECT COUNT(*) AS count FROM friendships WHERE request = 'APROOVED'")
         ){
             pageStatement.setInt(1,pageable.getPageSize());
             pageStatement.setInt(2,pageable.getPageNumber()*pageable.getPageSize());
@@ -237,14 +241,7 @@ public class FriendshipsRepoBD implements FriendshipPagingRepo<Tuple<Long, Long>
                 ResultSet countResultSet = countStatement.executeQuery()
             ){
                 while(pageResultSet.next()){
-                    Long id1 = pageResultSet.getLong("user_id_1");
-                    Long id2 = pageResultSet.getLong("user_id_2");
-                    LocalDateTime date = pageResultSet.getTimestamp("date").toLocalDateTime();
-                    Friendshiprequest friend_req_status = Friendshiprequest.valueOf(pageResultSet.getString("request"));
-
-                    Friendship friendship = new Friendship(id1, id2, date, friend_req_status);
-                    friendship.setId(new Tuple<>(id1, id2));
-                    friendshipList.add(friendship);
+                    friendshipList.add(readFriendship(pageResultSet));
                 }
                 int count = 0;
                 if(countResultSet.next()){
@@ -257,4 +254,107 @@ public class FriendshipsRepoBD implements FriendshipPagingRepo<Tuple<Long, Long>
         }
         return null;
     }
+
+    /**
+     * Retrieves the page of approved friendships that follows the given key, ordered by (user_id_1, user_id_2).
+     * The page is located with a row comparison on the key instead of LIMIT/OFFSET,
+     * and one extra row is fetched to know whether another page follows.
+     *
+     * @param pageable the page size and the key of the last friendship seen (null for the first page)
+     * @return a CursorPage containing the friendships of the page and the key to continue from
+     */
+    @Override
+    public CursorPage<Friendship, Tuple<Long, Long>> findAllAfter(CursorPageable<Tuple<Long, Long>> pageable) {
+        List<Friendship> friendshipList = new ArrayList<>();
+        Tuple<Long, Long> after = pageable.getAfterKey();
+
+        try(Connection connection = pool.getConnection();
+            PreparedStatement pageStatement = connection.prepareStatement("SELECT * FROM friendships WHERE request = 'APROOVED' AND (user_id_1, user_id_2) > (?, ?) " +
+                    "ORDER BY user_id_1, user_id_2 LIMIT ?")
+        ){
+            pageStatement.setLong(1, after == null ? Long.MIN_VALUE : after.getLeft());
+            pageStatement.setLong(2, after == null ? Long.MIN_VALUE : after.getRight());
+            pageStatement.setInt(3, pageable.getPageSize() + 1);
+
+            try(ResultSet pageResultSet = pageStatement.executeQuery()){
+                while(pageResultSet.next()){
+                    friendshipList.add(readFriendship(pageResultSet));
+                }
+            }
+        }catch (SQLException e){
+            e.printStackTrace();
+        }
+
+        if (friendshipList.size() > pageable.getPageSize()) {
+            friendshipList.remove(friendshipList.size() - 1);
+            Friendship last = friendshipList.get(friendshipList.size() - 1);
+            return new CursorPage<>(friendshipList, new Tuple<>(last.getIdUser1(), last.getIdUser2()));
+        }
+        return new CursorPage<>(friendshipList, null);
+    }
+
+    /**
+     * Retrieves the page of a user's approved friendships that follows the given friend ID, ordered by friend ID.
+     * Each side of the friendship is read from the user_friends view with its own range scan and the two are merged,
+     * so the cost of a page does not depend on how deep it is.
+     *
+     * @param pageable the page size and the ID of the last friend seen (null for the first page)
+     * @param user the user whose friendships are to be fetched
+     * @return a CursorPage containing the friendships of the page and the friend ID to continue from
+     */
+    @Override
+    public CursorPage<Friendship, Long> getUsersFriendsAfter(CursorPageable<Long> pageable, User user) {
+        List<Friendship> friendshipList = new ArrayList<>();
+        List<Long> friendIds = new ArrayList<>();
+        long after = pageable.getAfterKey() == null ? Long.MIN_VALUE : pageable.getAfterKey();
+
+        try(Connection connection = pool.getConnection();
+            PreparedStatement pageStatement = connection.prepareStatement(
+                    "SELECT user_id_1, user_id_2, date, request, friend_id FROM user_friends " +
+                    "WHERE user_id = ? AND friend_id > ? ORDER BY friend_id LIMIT ?")
+        ){
+            pageStatement.setLong(1, user.getId());
+            pageStatement.setLong(2, after);
+            pageStatement.setInt(3, pageable.getPageSize() + 1);
+
+            try(ResultSet pageResultSet = pageStatement.executeQuery()){
+                while(pageResultSet.next()){
+                    friendshipList.add(readFriendship(pageResultSet));
+                    friendIds.add(pageResultSet.getLong("friend_id"));
+                }
+            }
+        }catch (SQLException e){
+            e.printStackTrace();
+        }
+
+        if (friendshipList.size() > pageable.getPageSize()) {
+            friendshipList.remove(friendshipList.size() - 1);
+            return new CursorPage<>(friendshipList, friendIds.get(friendshipList.size() - 1));
+        }
+        return new CursorPage<>(friendshipList, null);
+    }
+
+    /**
+     * Counts the approved friendships of a user.
+     *
+     * @param user the user whose friendships are counted
+     * @return the number of approved friendships of the user
+     */
+    @Override
+    public int countUsersFriends(User user) {
+        try(Connection connection = pool.getConnection();
+            PreparedStatement countStatement = connection.prepareStatement(
+                    "SELECT COUNT(*) AS count FROM user_friends WHERE user_id = ?")
+        ){
+            countStatement.setLong(1, user.getId());
+            try(ResultSet countResultSet = countStatement.executeQuery()){
+                if(countResultSet.next()){
+                    return countResultSet.getInt("count");
+                }
+            }
+        }catch (SQLException e){
+            e.printStackTrace();
+        }
+        return 0;
+    }
 }
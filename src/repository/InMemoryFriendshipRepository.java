@@ -0,0 +1,175 @@
+package repository;
+
+import domain.CursorPage;
+import domain.CursorPageable;
+import domain.Friendship;
+import domain.Page;
+import domain.Pageable;
+import domain.Tuple;
+import domain.User;
+import domain.validators.Validator;
+import enums.Friendshiprequest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * In-memory friendship repository with the paging queries of FriendshipsRepoBD, for running the Service
+ * without a database. A friendship is found from either direction, since its Tuple key is unordered, and approved friendships are indexed
+ * in key order and per user by friend ID, so every page is read from a sorted index.
+ */
+public class InMemoryFriendshipRepository extends InMemoryRepository<Tuple<Long, Long>, Friendship>
+        implements FriendshipPagingRepo<Tuple<Long, Long>, Friendship> {
+    private static final Comparator<Tuple<Long, Long>> BY_USERS =
+            Comparator.comparing((Tuple<Long, Long> key) -> key.getLeft()).thenComparing(Tuple::getRight);
+
+    private final NavigableMap<Tuple<Long, Long>, Friendship> approved = new TreeMap<>(BY_USERS); // Approved friendships by key
+    private final Map<Long, NavigableMap<Long, Friendship>> approvedByUser = new HashMap<>(); // Approved friendships of each user by friend ID
+
+    /**
+     * Constructor for InMemoryFriendshipRepository.
+     * @param validator the validator used for validating friendships before saving or updating
+     */
+    public InMemoryFriendshipRepository(Validator<Friendship> validator) {
+        super(validator);
+    }
+
+    @Override
+    public Optional<Friendship> save(Friendship entity) {
+        Optional<Friendship> existing = super.save(entity);
+        if (existing.isEmpty()) {
+            index(entity);
+        }
+        return existing;
+    }
+
+    @Override
+    public Optional<Friendship> update(Friendship entity) {
+        Friendship previous = entity == null ? null : entities.get(entity.getId());
+        Optional<Friendship> updated = super.update(entity);
+        if (updated.isPresent()) {
+            unindex(previous);
+            index(entity);
+        }
+        return updated;
+    }
+
+    @Override
+    public Optional<Friendship> delete(Tuple<Long, Long> id) {
+        Optional<Friendship> friendship = findOne(id);
+        friendship.ifPresent(f -> {
+            super.delete(f.getId());
+            unindex(f);
+        });
+        return friendship;
+    }
+
+    private void index(Friendship friendship) {
+        if (friendship.getFriendshiprequest() != Friendshiprequest.APROOVED) {
+            return;
+        }
+        approved.put(friendship.getId(), friendship);
+        approvedByUser.computeIfAbsent(friendship.getIdUser1(), k -> new TreeMap<>()).put(friendship.getIdUser2(), friendship);
+        approvedByUser.computeIfAbsent(friendship.getIdUser2(), k -> new TreeMap<>()).put(friendship.getIdUser1(), friendship);
+    }
+
+    private void unindex(Friendship friendship) {
+        if (friendship == null || approved.remove(friendship.getId()) == null) {
+            return;
+        }
+        approvedByUser.get(friendship.getIdUser1()).remove(friendship.getIdUser2()); // Both exist while the friendship is approved
+        approvedByUser.get(friendship.getIdUser2()).remove(friendship.getIdUser1());
+    }
+
+    /**
+     * Retrieves a page of approved friendships.
+     * @param pageable the page number and size
+     * @return the friendships of the page and the number of approved friendships
+     */
+    @Override
+    public Page<Friendship> findAllOnPage(Pageable pageable) {
+        return page(approved.values().iterator(), approved.size(), pageable);
+    }
+
+    /**
+     * Retrieves the approved friendships that follow the given key, in key order.
+     * @param pageable the page size and the last key seen (null for the first page)
+     * @return the friendships of the page and the key to continue from
+     */
+    @Override
+    public CursorPage<Friendship, Tuple<Long, Long>> findAllAfter(CursorPageable<Tuple<Long, Long>> pageable) {
+        NavigableMap<Tuple<Long, Long>, Friendship> rest =
+                pageable.getAfterKey() == null ? approved : approved.tailMap(pageable.getAfterKey(), false);
+        List<Friendship> friendships = new ArrayList<>(pageable.getPageSize());
+        Tuple<Long, Long> lastKey = null;
+        for (Map.Entry<Tuple<Long, Long>, Friendship> entry : rest.entrySet()) {
+            if (friendships.size() == pageable.getPageSize()) {
+                return new CursorPage<>(friendships, lastKey);
+            }
+            friendships.add(entry.getValue());
+            lastKey = entry.getKey();
+        }
+        return new CursorPage<>(friendships, null);
+    }
+
+    /**
+     * Retrieves a page of a user's approved friendships, ordered by friend ID.
+     * @param pageable the page number and size
+     * @param user the user whose friendships are retrieved
+     * @return the friendships of the page and the number of friends of the user
+     */
+    @Override
+    public Page<Friendship> getUsersFriends(Pageable pageable, User user) {
+        NavigableMap<Long, Friendship> friends = approvedByUser.getOrDefault(user.getId(), Collections.emptyNavigableMap());
+        return page(friends.values().iterator(), friends.size(), pageable);
+    }
+
+    /**
+     * Retrieves the approved friendships of a user that follow the given friend ID.
+     * @param pageable the page size and the last friend ID seen (null for the first page)
+     * @param user the user whose friendships are retrieved
+     * @return the friendships of the page and the friend ID to continue from
+     */
+    @Override
+    public CursorPage<Friendship, Long> getUsersFriendsAfter(CursorPageable<Long> pageable, User user) {
+        NavigableMap<Long, Friendship> friends = approvedByUser.getOrDefault(user.getId(), Collections.emptyNavigableMap());
+        if (pageable.getAfterKey() != null) {
+            friends = friends.tailMap(pageable.getAfterKey(), false);
+        }
+        List<Friendship> friendships = new ArrayList<>(pageable.getPageSize());
+        Long lastKey = null;
+        for (Map.Entry<Long, Friendship> entry : friends.entrySet()) {
+            if (friendships.size() == pageable.getPageSize()) {
+                return new CursorPage<>(friendships, lastKey);
+            }
+            friendships.add(entry.getValue());
+            lastKey = entry.getKey();
+        }
+        return new CursorPage<>(friendships, null);
+    }
+
+    @Override
+    public int countUsersFriends(User user) {
+        return approvedByUser.getOrDefault(user.getId(), Collections.emptyNavigableMap()).size();
+    }
+
+    private static Page<Friendship> page(Iterator<Friendship> friendships, int total, Pageable pageable) {
+        long skip = (long) pageable.getPageNumber() * pageable.getPageSize();
+        for (long i = 0; i < skip && friendships.hasNext(); i++) {
+            friendships.next();
+        }
+        List<Friendship> page = new ArrayList<>(pageable.getPageSize());
+        while (page.size() < pageable.getPageSize() && friendships.hasNext()) {
+            page.add(friendships.next());
+        }
+        return new Page<>(page, total);
+    }
+}
@@ -0,0 +1,128 @@
+package repository;
+
+import domain.Message;
+import domain.Tuple;
+import domain.User;
+import domain.validators.Validator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory repository for Message entities that also indexes messages by conversation.
+ * Every conversation is kept sorted by date, so reading one never touches the other conversations.
+ */
+public class InMemoryMessageRepository extends InMemoryRepository<Long, Message> implements ConversationRepo<Long, Message> {
+    private static final Comparator<Message> BY_DATE = Comparator.comparing(Message::getDate);
+
+    private final Map<Tuple<Long, Long>, List<Message>> conversations = new HashMap<>(); // Messages by pair of users
+    private long nextId = 1; // Identifier given to the next saved message without one
+
+    /**
+     * Constructor for InMemoryMessageRepository.
+     * @param validator the validator used for validating messages before saving or updating
+     */
+    public InMemoryMessageRepository(Validator<Message> validator) {
+        super(validator);
+    }
+
+    /**
+     * Retrieves the conversation between two users from the conversation index.
+     * @param userId1 the ID of the first user of the conversation
+     * @param userId2 the ID of the second user of the conversation
+     * @return the messages exchanged between the two users, oldest first
+     */
+    @Override
+    public List<Message> findConversation(Long userId1, Long userId2) {
+        return new ArrayList<>(conversations.getOrDefault(new Tuple<>(userId1, userId2), Collections.emptyList()));
+    }
+
+    /**
+     * Saves a new message, assigning it an ID if it has none, and adds it to its conversations.
+     * @param entity the message to save
+     * @return the existing message if the ID is already taken, an empty Optional otherwise
+     */
+    @Override
+    public Optional<Message> save(Message entity) {
+        if (entity != null && entity.getId() == null) {
+            entity.setId(nextId++);
+        }
+        Optional<Message> existing = super.save(entity);
+        if (existing.isEmpty()) {
+            nextId = Math.max(nextId, entity.getId() + 1);
+            index(entity);
+        }
+        return existing;
+    }
+
+    /**
+     * Updates an existing message and moves it between conversations if its participants changed.
+     * @param entity the message with updated information
+     * @return the updated message if it was found, an empty Optional otherwise
+     */
+    @Override
+    public Optional<Message> update(Message entity) {
+        Optional<Message> previous = entity == null ? Optional.empty() : super.findOne(entity.getId());
+        Optional<Message> updated = super.update(entity);
+        if (updated.isPresent()) {
+            previous.ifPresent(this::unindex);
+            index(entity);
+        }
+        return updated;
+    }
+
+    /**
+     * Deletes a message and removes it from its conversations.
+     * @param id the ID of the message to delete
+     * @return the deleted message, or an empty Optional if not found
+     */
+    @Override
+    public Optional<Message> delete(Long id) {
+        Optional<Message> deleted = super.delete(id);
+        deleted.ifPresent(this::unindex);
+        return deleted;
+    }
+
+    /**
+     * Inserts a message into the conversation of its sender with each recipient, keeping the date order.
+     * @param message the message to index
+     */
+    private void index(Message message) {
+        for (User recipient : message.getTo()) {
+            List<Message> conversation = conversations.computeIfAbsent(
+                    new Tuple<>(message.getFrom().getId(), recipient.getId()), k -> new ArrayList<>());
+            int position = Collections.binarySearch(conversation, message, BY_DATE);
+            if (position < 0) {
+                position = -position - 1;
+            } else {
+                // Messages with the same date keep their insertion order
+                while (position < conversation.size() && BY_DATE.compare(conversation.get(position), message) == 0) {
+                    position++;
+                }
+            }
+            conversation.add(position, message);
+        }
+    }
+
+    /**
+     * Removes a message from every conversation it was indexed in.
+     * @param message the message to remove
+     */
+    private void unindex(Message message) {
+        for (User recipient : message.getTo()) {
+            Tuple<Long, Long> key = new Tuple<>(message.getFrom().getId(), recipient.getId());
+            List<Message> conversation = conversations.get(key);
+            if (conversation != null) {
+                conversation.removeIf(m -> m.getId().equals(message.getId()));
+                if (conversation.isEmpty()) {
+                    conversations.remove(key);
+                }
+            }
+        }
+    }
+}
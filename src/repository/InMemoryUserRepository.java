@@ -0,0 +1,110 @@
+package repository;
+
+import domain.User;
+import domain.validators.Validator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * In-memory user repository with an email index, for running the Service without a database.
+ * Users saved without an ID get the next free one, like the users table's ID sequence,
+ * and an email belongs to one user only, like the users table's unique email index.
+ */
+public class InMemoryUserRepository extends InMemoryRepository<Long, User> implements UserLookupRepo<Long, User> {
+    private final Map<String, User> byEmail = new HashMap<>(); // Users indexed by email
+    private long nextId = 1; // Identifier given to the next saved user without one
+
+    /**
+     * Constructor for InMemoryUserRepository.
+     * @param validator the validator used for validating users before saving or updating
+     */
+    public InMemoryUserRepository(Validator<User> validator) {
+        super(validator);
+    }
+
+    /**
+     * Finds a user by email through the email index.
+     * @param email the email address to look up
+     * @return an Optional containing the user, or an empty Optional if there is none
+     */
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return Optional.ofNullable(byEmail.get(email));
+    }
+
+    /**
+     * Retrieves the users with the given IDs, skipping unknown ones.
+     * @param ids the IDs of the users to retrieve
+     * @return the found users, in the order of the given IDs
+     */
+    @Override
+    public List<User> findAllById(Collection<Long> ids) {
+        List<User> users = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            User user = entities.get(id);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
+    /**
+     * Saves a new user, assigning it an ID if it has none, and indexes its email.
+     * @param entity the user to save
+     * @return the existing user if the ID or the email is already taken, an empty Optional otherwise
+     */
+    @Override
+    public Optional<User> save(User entity) {
+        User owner = entity == null ? null : byEmail.get(entity.getEmail());
+        if (owner != null) {
+            return Optional.of(owner); // The user is not saved and gets no ID
+        }
+        if (entity != null && entity.getId() == null) {
+            entity.setId(nextId++);
+        }
+        Optional<User> existing = super.save(entity);
+        if (existing.isEmpty()) {
+            nextId = Math.max(nextId, entity.getId() + 1);
+            byEmail.put(entity.getEmail(), entity);
+        }
+        return existing;
+    }
+
+    /**
+     * Updates an existing user and moves it in the email index if its email changed.
+     * @param entity the user with updated information
+     * @return the updated user if it was found, an empty Optional otherwise or if another user has its email
+     */
+    @Override
+    public Optional<User> update(User entity) {
+        User owner = entity == null ? null : byEmail.get(entity.getEmail());
+        if (owner != null && !owner.getId().equals(entity.getId())) {
+            return Optional.empty();
+        }
+        User previous = entity == null ? null : entities.get(entity.getId());
+        Optional<User> updated = super.update(entity);
+        if (updated.isPresent()) {
+            byEmail.remove(previous.getEmail());
+            byEmail.put(entity.getEmail(), entity);
+        }
+        return updated;
+    }
+
+    /**
+     * Deletes a user and removes it from the email index.
+     * @param id the ID of the user to delete
+     * @return the deleted user, or an empty Optional if not found
+     */
+    @Override
+    public Optional<User> delete(Long id) {
+        Optional<User> deleted = super.delete(id);
+        deleted.ifPresent(user -> byEmail.remove(user.getEmail()));
+        return deleted;
+    }
+}
@@ -1,33 +1,54 @@
 package repository;
 
 import domain.Message;
-import domain.Page;
-import domain.Pageable;
 import domain.User;
 
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.*;
 
-public class MessageRepoBD implements Repository<Long, Message> {
-    private static String url; // Database connection URL
-    private static String username; // Database username
-    private static String password; // Database password
-    private final Repository<Long, User> userRepository; // Repository to manage User entities
+public class MessageRepoBD implements ConversationRepo<Long, Message> {
+    /**
+     * Selects messages together with the message they reply to, so replies never need a second query.
+     */
+    private static final String SELECT_WITH_REPLY =
+            "SELECT m.id_message, m.id_to, m.id_from, m.message, m.date, m.reply_id, " +
+            "r.id_to AS reply_to, r.id_from AS reply_from, r.message AS reply_message, r.date AS reply_date " +
+            "FROM Messages m LEFT JOIN Messages r ON r.id_message = m.reply_id";
+
+    /**
+     * Raw columns of a message row, read before any user is resolved.
+     */
+    private static final class MessageRow {
+        private final Long id;
+        private final Long idTo;
+        private final Long idFrom;
+        private final String message;
+        private final LocalDateTime date;
+        private final MessageRow reply; // Row of the replied message, without its own reply
+
+        private MessageRow(Long id, Long idTo, Long idFrom, String message, LocalDateTime date, MessageRow reply) {
+            this.id = id;
+            this.idTo = idTo;
+            this.idFrom = idFrom;
+            this.message = message;
+            this.date = date;
+            this.reply = reply;
+        }
+    }
+
+    private final ConnectionPool pool; // Shared pool of database connections
+    private final UserLookupRepo<Long, User> userRepository; // Repository to manage User entities
 
     /**
      * Constructor for MessageRepoBD.
-     * Initializes the repository with the database connection details and a user repository.
+     * Initializes the repository with a connection pool and a user repository.
      * @param userRepository the user repository to fetch user data.
-     * @param url the database connection URL.
-     * @param username the database username.
-     * @param password the database password.
+     * @param pool the pool providing database connections.
      */
-    public MessageRepoBD(Repository<Long, User> userRepository, String url, String username, String password) {
+    public MessageRepoBD(UserLookupRepo<Long, User> userRepository, ConnectionPool pool) {
         this.userRepository = userRepository;
-        this.url = url;
-        this.username = username;
-        this.password = password;
+        this.pool = pool;
     }
 
     /**
@@ -36,118 +57,195 @@ public class MessageRepoBD implements Repository<Long, Message> {
      * @return an Optional containing the found Message or empty if not found.
      */
     public Optional<Message> findOneNoReply(Long id) {
-        try (Connection connection = DriverManager.getConnection(url, username, password);
+        List<MessageRow> rows = new ArrayList<>();
+        try (Connection connection = pool.getConnection();
              PreparedStatement statement = connection.prepareStatement("SELECT * FROM Messages WHERE id_message = ?")) {
 
             statement.setLong(1, id);
-            ResultSet resultSet = statement.executeQuery();
-            if (resultSet.next()) {
-                Long id_to = resultSet.getLong("id_to");
-                Long id_from = resultSet.getLong("id_from");
-                String message = resultSet.getString("message");
-                LocalDateTime date = resultSet.getTimestamp("date").toLocalDateTime();
-                Message messageDB = new Message(userRepository.findOne(id_from).get(),
-                        Collections.singletonList(userRepository.findOne(id_to).get()),
-                        message,
-                        date);
-                messageDB.setId(id);
-                return Optional.of(messageDB);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    rows.add(new MessageRow(id,
+                            resultSet.getLong("id_to"),
+                            resultSet.getLong("id_from"),
+                            resultSet.getString("message"),
+                            resultSet.getTimestamp("date").toLocalDateTime(),
+                            null));
+                }
             }
 
         } catch (SQLException e) {
             e.printStackTrace();
         }
 
-        return Optional.empty();
+        return toMessages(rows).stream().findFirst();
     }
 
     /**
      * Finds a message by its ID and resolves its reply if present.
+     * The reply is read by the same query, and both users are fetched in one batch.
      * @param id the ID of the message to find.
      * @return an Optional containing the found Message or empty if not found.
      */
     @Override
     public Optional<Message> findOne(Long id) {
-        try (Connection connection = DriverManager.getConnection(url, username, password);
-             PreparedStatement statement = connection.prepareStatement("SELECT * FROM Messages WHERE id_message = ?")) {
+        List<MessageRow> rows = new ArrayList<>();
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_WITH_REPLY + " WHERE m.id_message = ?")) {
 
             statement.setLong(1, id);
-            ResultSet resultSet = statement.executeQuery();
-
-            if (resultSet.next()) {
-                Long id_to = resultSet.getLong("id_to");
-                Long id_from = resultSet.getLong("id_from");
-                String message = resultSet.getString("message");
-                LocalDateTime date = resultSet.getTimestamp("date").toLocalDateTime();
-                Long reply_id = resultSet.getLong("reply_id");
-
-                if (resultSet.wasNull()) {
-                    reply_id = null;
-                }
-                Message msg = new Message(userRepository.findOne(id_from).get(),
-                        Collections.singletonList(userRepository.findOne(id_to).get()),
-                        message,
-                        date);
-                msg.setId(id);
-
-                if (reply_id != null) {
-                    findOneNoReply(reply_id).ifPresent(msg::setReply);
-                }
-                return Optional.of(msg);
-            }
+            rows = readRows(statement);
 
         } catch (SQLException e) {
             e.printStackTrace();
         }
-        return Optional.empty();
+        return toMessages(rows).stream().findFirst();
     }
 
     /**
      * Retrieves all messages from the database.
-     * Resolves replies for each message if present.
+     * Replies come from the same query and every referenced user is fetched in one batch,
+     * so the whole table costs two round trips regardless of its size.
      * @return an Iterable containing all messages.
      */
     @Override
     public Iterable<Message> findAll() {
-        List<Message> messages = new ArrayList<>();
+        List<MessageRow> rows = new ArrayList<>();
 
-        try (Connection connection = DriverManager.getConnection(url, username, password);
-             PreparedStatement statement = connection.prepareStatement("SELECT * FROM Messages")) {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_WITH_REPLY)) {
 
-            ResultSet resultSet = statement.executeQuery();
-            while (resultSet.next()) {
-                Long id_message = resultSet.getLong("id_message");
-                Long id_to = resultSet.getLong("id_to");
-                Long id_from = resultSet.getLong("id_from");
-                String message = resultSet.getString("message");
-                LocalDateTime date = resultSet.getTimestamp("date").toLocalDateTime();
-                Long reply_id = resultSet.getLong("reply_id");
+            rows = readRows(statement);
 
-                if (resultSet.wasNull()) {
-                    reply_id = null;
-                }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
 
-                User from = userRepository.findOne(id_from).get();
-                List<User> to = Collections.singletonList(userRepository.findOne(id_to).get());
+        return toMessages(rows);
+    }
 
-                Message messageDB = new Message(from, to, message, date);
-                messageDB.setId(id_message);
+    /**
+     * Retrieves the conversation between two users with a single query on the conversation index.
+     * Replies come from the same query and both participants are fetched in one batch.
+     * @param userId1 the ID of the first user of the conversation.
+     * @param userId2 the ID of the second user of the conversation.
+     * @return the messages exchanged between the two users, oldest first.
+     */
+    @Override
+    public List<Message> findConversation(Long userId1, Long userId2) {
+        List<MessageRow> rows = new ArrayList<>();
 
-                if (reply_id != null) {
-                    Message reply = findOne(reply_id).orElse(null);
-                    messageDB.setReply(reply);
-                }
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_WITH_REPLY +
+                     " WHERE LEAST(m.id_from, m.id_to) = ? AND GREATEST(m.id_from, m.id_to) = ? ORDER BY m.date, m.id_message")) {
 
-                messages.add(messageDB);
-            }
+            statement.setLong(1, Math.min(userId1, userId2));
+            statement.setLong(2, Math.max(userId1, userId2));
+            rows = readRows(statement);
 
         } catch (SQLException e) {
             e.printStackTrace();
         }
 
+        return toMessages(rows);
+    }
+
+    /**
+     * Executes a query built on SELECT_WITH_REPLY and reads its rows.
+     * @param statement the prepared query.
+     * @return the rows read, in result order.
+     * @throws SQLException if the query fails.
+     */
+    private List<MessageRow> readRows(PreparedStatement statement) throws SQLException {
+        List<MessageRow> rows = new ArrayList<>();
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                Long reply_id = resultSet.getLong("reply_id");
+                MessageRow reply = null;
+                if (!resultSet.wasNull() && resultSet.getTimestamp("reply_date") != null) {
+                    reply = new MessageRow(reply_id,
+                            resultSet.getLong("reply_to"),
+                            resultSet.getLong("reply_from"),
+                            resultSet.getString("reply_message"),
+                            resultSet.getTimestamp("reply_date").toLocalDateTime(),
+                            null);
+                }
+                rows.add(new MessageRow(resultSet.getLong("id_message"),
+                        resultSet.getLong("id_to"),
+                        resultSet.getLong("id_from"),
+                        resultSet.getString("message"),
+                        resultSet.getTimestamp("date").toLocalDateTime(),
+                        reply));
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Turns message rows into messages.
+     * Every referenced user is fetched with a single batched lookup, and an identity map makes
+     * a message that appears both as a row and as a reply resolve to the same instance.
+     * Rows whose users no longer exist are skipped.
+     * @param rows the rows to convert.
+     * @return the messages, in row order.
+     */
+    private List<Message> toMessages(List<MessageRow> rows) {
+        List<Message> messages = new ArrayList<>(rows.size());
+        if (rows.isEmpty()) {
+            return messages;
+        }
+
+        Set<Long> userIds = new LinkedHashSet<>();
+        for (MessageRow row : rows) {
+            userIds.add(row.idFrom);
+            userIds.add(row.idTo);
+            if (row.reply != null) {
+                userIds.add(row.reply.idFrom);
+                userIds.add(row.reply.idTo);
+            }
+        }
+        Map<Long, User> users = new HashMap<>();
+        userRepository.findAllById(userIds).forEach(user -> users.put(user.getId(), user));
+
+        Map<Long, Message> identityMap = new HashMap<>();
+        for (MessageRow row : rows) {
+            Message message = toMessage(row, users, identityMap);
+            if (message != null) {
+                messages.add(message);
+            }
+        }
+        for (MessageRow row : rows) {
+            Message message = identityMap.get(row.id);
+            if (message != null && row.reply != null) {
+                Message reply = identityMap.get(row.reply.id);
+                message.setReply(reply != null ? reply : toMessage(row.reply, users, identityMap));
+            }
+        }
         return messages;
     }
 
+    /**
+     * Builds the message of a single row, reusing the instance already built for the same ID.
+     * @param row the row to convert.
+     * @param users the resolved users, by ID.
+     * @param identityMap the messages built so far, by ID.
+     * @return the message, or null if one of its users does not exist.
+     */
+    private Message toMessage(MessageRow row, Map<Long, User> users, Map<Long, Message> identityMap) {
+        Message existing = identityMap.get(row.id);
+        if (existing != null) {
+            return existing;
+        }
+        User from = users.get(row.idFrom);
+        User to = users.get(row.idTo);
+        if (from == null || to == null) {
+            return null;
+        }
+        Message message = new Message(from, Collections.singletonList(to), row.message, row.date);
+        message.setId(row.id);
+        identityMap.put(row.id, message);
+        return message;
+    }
+
     /**
      * Saves a new message to the database.
      * @param entity the message to save.
@@ -155,7 +253,7 @@ public class MessageRepoBD implements Repository<Long, Message> {
      */
     @Override
     public Optional<Message> save(Message entity) {
-        try (Connection connection = DriverManager.getConnection(url, username, password);
+        try (Connection connection = pool.getConnection();
              PreparedStatement statement = connection.prepareStatement("INSERT INTO Messages(id_to, id_from, message, date, reply_id) VALUES (?, ?, ?, ?, ?)")) {
 
             statement.setLong(1, entity.getTo().get(0).getId());
@@ -185,7 +283,7 @@ public class MessageRepoBD implements Repository<Long, Message> {
      */
     @Override
     public Optional<Message> delete(Long id) {
-        try (Connection connection = DriverManager.getConnection(url, username, password);
+        try (Connection connection = pool.getConnection();
              PreparedStatement statement = connection.prepareStatement("DELETE FROM Messages WHERE id_message = ?")) {
 
             statement.setLong(1, id);
@@ -205,7 +303,7 @@ public class MessageRepoBD implements Repository<Long, Message> {
      */
     @Override
     public Optional<Message> update(Message entity) {
-        try (Connection connection = DriverManager.getConnection(url, username, password);
+        try (Connection connection = pool.getConnection();
              PreparedStatement statement = connection.prepareStatement("UPDATE Messages SET id_to = ?, id_from = ?, message = ?, date = ?, reply_id = ? WHERE id_message = ?")) {
 
             statement.setLong(1, entity.getTo().get(0).getId());
@@ -1,5 +1,7 @@
 package repository;
 
+import domain.CursorPage;
+import domain.CursorPageable;
 import domain.Entity;
 import domain.Page;
 import domain.Pageable;
@@ -13,4 +15,14 @@ public interface PagingRepo<ID, E extends Entity<ID>> extends Repository<ID, E>
      * @return A Page object containing a subset of entities and the total number of elements.
      */
     public Page<E> findAllOnPage(Pageable pageable);
+
+    /**
+     * Retrieves the page of entities that follows the given cursor, ordered by ID.
+     * The page is located by its last seen key, so deep pages cost the same as the first one,
+     * and no total count is computed.
+     *
+     * @param pageable The page size and the ID of the last entity seen (null for the first page).
+     * @return A CursorPage containing the entities of the page and the cursor of the next page.
+     */
+    public CursorPage<E, ID> findAllAfter(CursorPageable<ID> pageable);
 }
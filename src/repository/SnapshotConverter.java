@@ -0,0 +1,117 @@
+package repository;
+
+import domain.Entity;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Command-line tool that converts a text snapshot (plus its change log) into a binary snapshot.
+ * The text files are only read: no repository is opened on them, so no change log is created next to them.
+ * Usage: SnapshotConverter users|friendships <text file> <binary file>
+ */
+public class SnapshotConverter {
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.err.println("Usage: SnapshotConverter users|friendships <text file> <binary file>");
+            System.exit(1);
+        }
+        try {
+            convert(args[0], args[1], args[2]);
+        } catch (IOException | IllegalArgumentException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Loads a text snapshot and writes its entities as a binary snapshot.
+     * @param type the kind of entities in the snapshot, "users" or "friendships"
+     * @param textFile the text snapshot to read
+     * @param binaryFile the binary snapshot to write
+     * @throws IOException if reading or writing fails
+     * @throws IllegalArgumentException if the type is unknown
+     */
+    public static void convert(String type, String textFile, String binaryFile) throws IOException {
+        switch (type) {
+            case "users":
+                write(read(textFile, UserRepository::parse), new UserBinaryCodec(), binaryFile);
+                break;
+            case "friendships":
+                write(read(textFile, FriendshipRepository::parse), new FriendshipBinaryCodec(), binaryFile);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown snapshot type: " + type);
+        }
+    }
+
+    /**
+     * Reads a text snapshot and replays its change log on top of it, as AbstractFileRepository does on startup.
+     * @param textFile the text snapshot to read
+     * @param parser turns a line into an entity
+     * @return the entities by ID, in snapshot order
+     * @throws IOException if reading fails
+     */
+    private static <E extends Entity<?>> Map<Object, E> read(String textFile, Function<String, E> parser)
+            throws IOException {
+        Map<Object, E> entities = new LinkedHashMap<>();
+        Path snapshot = Paths.get(textFile);
+        if (Files.exists(snapshot)) {
+            try (BufferedReader reader = Files.newBufferedReader(snapshot, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    E entity = parser.apply(line);
+                    entities.putIfAbsent(entity.getId(), entity);
+                }
+            }
+        }
+
+        Path log = Paths.get(textFile + ".log");
+        if (Files.exists(log)) {
+            try (BufferedReader reader = Files.newBufferedReader(log, StandardCharsets.UTF_8)) {
+                String record;
+                while ((record = reader.readLine()) != null) {
+                    if (record.length() < 2) {
+                        continue;
+                    }
+                    E entity;
+                    try {
+                        entity = parser.apply(record.substring(2));
+                    } catch (RuntimeException e) {
+                        continue; // Torn or corrupt record
+                    }
+                    switch (record.charAt(0)) {
+                        case AbstractFileRepository.ADD:
+                            entities.putIfAbsent(entity.getId(), entity);
+                            break;
+                        case AbstractFileRepository.UPDATE:
+                            entities.replace(entity.getId(), entity);
+                            break;
+                        case AbstractFileRepository.DELETE:
+                            entities.remove(entity.getId());
+                            break;
+                        default:
+                            break;
+                    }
+                }
+            }
+        }
+        return entities;
+    }
+
+    private static <E> void write(Map<Object, E> entities, BinaryCodec<E> codec, String binaryFile) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(Paths.get(binaryFile))))) {
+            codec.write(entities.values(), out);
+        }
+    }
+}
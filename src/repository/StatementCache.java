@@ -0,0 +1,81 @@
+package repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prepared statements of one physical connection that are not in use, keyed by their SQL text.
+ * A statement is taken out while a caller uses it and offered back when the caller closes it,
+ * so the same statement is never handed to two callers. The least recently used statement is closed
+ * when the cache is full.
+ */
+final class StatementCache {
+    private final int maxSize;
+    private final LinkedHashMap<String, PreparedStatement> statements = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * Constructor for StatementCache.
+     * @param maxSize the maximum number of idle statements kept open
+     */
+    StatementCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Takes the idle statement prepared for a key out of the cache.
+     * @param key the SQL text and preparation options
+     * @return the statement, or null if none is idle
+     */
+    synchronized PreparedStatement take(String key) {
+        return statements.remove(key);
+    }
+
+    /**
+     * Gives a statement back to the cache once its caller is done with it.
+     * @param key the SQL text and preparation options the statement was prepared with
+     * @param statement the statement, with its parameters already cleared
+     * @return false if the statement was not kept, in which case the caller must close it
+     */
+    synchronized boolean offer(String key, PreparedStatement statement) {
+        if (statements.containsKey(key)) {
+            return false; // The same SQL was prepared twice at once; one copy is enough
+        }
+        statements.put(key, statement);
+        if (statements.size() > maxSize) {
+            Iterator<Map.Entry<String, PreparedStatement>> eldest = statements.entrySet().iterator();
+            PreparedStatement evicted = eldest.next().getValue();
+            eldest.remove();
+            closeQuietly(evicted);
+        }
+        return true;
+    }
+
+    /**
+     * Closes every idle statement, e.g. when the connection is discarded.
+     */
+    void closeAll() {
+        List<PreparedStatement> closing;
+        synchronized (this) {
+            closing = new ArrayList<>(statements.values());
+            statements.clear();
+        }
+        closing.forEach(StatementCache::closeQuietly);
+    }
+
+    synchronized int size() {
+        return statements.size();
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+            // The statement is being thrown away anyway
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package repository;
+
+import domain.User;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Binary snapshot of users as offset-indexed blocks.
+ * Layout: magic (int), count (int), one int offset per user relative to the start of the blocks,
+ * then one block per user: id (long) followed by first name, last name, email and password,
+ * each as a length (int) and its UTF-8 bytes.
+ * The offset table gives direct access to the n-th user without decoding the ones before it.
+ */
+public class UserBinaryCodec implements BinaryCodec<User> {
+    private static final int MAGIC = 0x55534552; // "USER"
+    private static final int HEADER_SIZE = 8;
+
+    @Override
+    public void write(Collection<User> entities, DataOutputStream out) throws IOException {
+        ByteArrayOutputStream blocks = new ByteArrayOutputStream();
+        DataOutputStream blockOut = new DataOutputStream(blocks);
+        int[] offsets = new int[entities.size()];
+        int i = 0;
+        for (User user : entities) {
+            offsets[i++] = blockOut.size();
+            blockOut.writeLong(user.getId());
+            writeString(blockOut, user.getFirstName());
+            writeString(blockOut, user.getLastName());
+            writeString(blockOut, user.getEmail());
+            writeString(blockOut, user.getPassword());
+        }
+
+        out.writeInt(MAGIC);
+        out.writeInt(offsets.length);
+        for (int offset : offsets) {
+            out.writeInt(offset);
+        }
+        blocks.writeTo(out);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    @Override
+    public int count(ByteBuffer snapshot) {
+        if (snapshot.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a user snapshot");
+        }
+        return snapshot.getInt(4);
+    }
+
+    @Override
+    public void read(ByteBuffer snapshot, Consumer<User> sink) {
+        int count = count(snapshot);
+        for (int i = 0; i < count; i++) {
+            sink.accept(readAt(snapshot, i));
+        }
+    }
+
+    /**
+     * Decodes the user stored at the given index of a snapshot.
+     * @param snapshot the snapshot
+     * @param index the index of the user in the snapshot
+     * @return the decoded user
+     */
+    public User readAt(ByteBuffer snapshot, int index) {
+        int blocksStart = HEADER_SIZE + 4 * count(snapshot);
+        int position = blocksStart + snapshot.getInt(HEADER_SIZE + 4 * index);
+
+        long id = snapshot.getLong(position);
+        position += 8;
+        String[] fields = new String[4];
+        for (int f = 0; f < fields.length; f++) {
+            int length = snapshot.getInt(position);
+            byte[] bytes = new byte[length];
+            snapshot.get(position + 4, bytes);
+            fields[f] = new String(bytes, StandardCharsets.UTF_8);
+            position += 4 + length;
+        }
+
+        User user = new User(fields[0], fields[1], fields[2], fields[3]);
+        user.setId(id);
+        return user;
+    }
+}
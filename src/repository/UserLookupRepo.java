@@ -0,0 +1,27 @@
+package repository;
+
+import domain.Entity;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface UserLookupRepo<ID, E extends Entity<ID>> extends Repository<ID, E> {
+
+    /**
+     * Finds the entity registered with the given email address.
+     *
+     * @param email The email address to look up.
+     * @return An Optional containing the entity with this email, or an empty Optional if there is none.
+     */
+    Optional<E> findByEmail(String email);
+
+    /**
+     * Retrieves every entity whose identifier is in the given collection, in a single lookup.
+     * Identifiers without a matching entity are skipped.
+     *
+     * @param ids The identifiers of the entities to retrieve.
+     * @return The found entities, in the iteration order of the given identifiers.
+     */
+    List<E> findAllById(Collection<ID> ids);
+}
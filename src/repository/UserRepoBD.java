@@ -1,5 +1,7 @@
 package repository;
 
+import domain.CursorPage;
+import domain.CursorPageable;
 import domain.Page;
 import domain.Pageable;
 import domain.User;
@@ -8,26 +10,18 @@ import domain.validators.Validator;
 import java.sql.*;
 import java.util.*;
 
-public class UserRepoBD implements PagingRepo<Long, User> {
-    private String url;
-    private String username;
-    private String password;
+public class UserRepoBD implements PagingRepo<Long, User>, UserLookupRepo<Long, User> {
+    private final ConnectionPool pool; // Shared pool of database connections
     private Validator<User> validator;
-    Map<Long, User> users = new HashMap<>();
 
     /**
-     * Constructor for initializing the repository with database connection details and a user validator.
-     * @param url the database URL
-     * @param username the database username
-     * @param password the database password
+     * Constructor for initializing the repository with a connection pool and a user validator.
+     * @param pool the pool providing database connections
      * @param validator the validator for user objects
      */
-    public UserRepoBD(String url, String username, String password, Validator<User> validator) {
-        this.url = url;
-        this.username = username;
-        this.password = password;
+    public UserRepoBD(ConnectionPool pool, Validator<User> validator) {
+        this.pool = pool;
         this.validator = validator;
-        loadData();
     }
 
     /**
@@ -39,7 +33,7 @@ public class UserRepoBD implements PagingRepo<Long, User> {
     @Override
     public Optional<User> findOne(Long id) {
         User user = null;
-        try (Connection connection = DriverManager.getConnection(url, username, password);
+        try (Connection connection = pool.getConnection();
              PreparedStatement statement = connection.prepareStatement("SELECT * FROM users WHERE user_id = ?")) {
             statement.setLong(1, id);
             ResultSet resultSet = statement.executeQuery();
@@ -58,6 +52,74 @@ public class UserRepoBD implements PagingRepo<Long, User> {
         return Optional.ofNullable(user);
     }
 
+    /**
+     * Finds a user by their email address with a single query on the unique email index.
+     * If no user is found, an empty Optional is returned.
+     * @param email the email address of the user to find
+     * @return an Optional containing the found user, or an empty Optional if no user is found
+     */
+    @Override
+    public Optional<User> findByEmail(String email) {
+        User user = null;
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT * FROM users WHERE email = ?")) {
+            statement.setString(1, email);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    String firstName = resultSet.getString("firstname");
+                    String lastName = resultSet.getString("lastname");
+                    String password = resultSet.getString("pasword");
+                    user = new User(firstName, lastName, email, password);
+                    user.setId(resultSet.getLong("user_id"));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return Optional.ofNullable(user);
+    }
+
+    /**
+     * Retrieves the users with the given IDs with a single query.
+     * Users that no longer exist are skipped.
+     * @param ids the IDs of the users to retrieve
+     * @return the found users, in the order of the given IDs
+     */
+    @Override
+    public List<User> findAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, User> found = new HashMap<>();
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT * FROM users WHERE user_id = ANY(?)")) {
+            statement.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    Long id = resultSet.getLong("user_id");
+                    String firstName = resultSet.getString("firstname");
+                    String lastName = resultSet.getString("lastname");
+                    String email = resultSet.getString("email");
+                    String password = resultSet.getString("pasword");
+                    User user = new User(firstName, lastName, email, password);
+                    user.setId(id);
+                    found.put(id, user);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        List<User> users = new ArrayList<>(found.size());
+        for (Long id : ids) {
+            User user = found.get(id);
+            if (user != null) {
+                users.add(user);
+            }
+        }
+        return users;
+    }
+
     /**
      * Retrieves all users from the database.
      * If no users are found, an empty set is returned.
@@ -66,7 +128,7 @@ public class UserRepoBD implements PagingRepo<Long, User> {
     @Override
     public Iterable<User> findAll() {
         Set<User> users = new HashSet<>();
-        try (Connection connection = DriverManager.getConnection(url, username, password);
+        try (Connection connection = pool.getConnection();
              PreparedStatement statement = connection.prepareStatement("SELECT * from users");
              ResultSet resultSet = statement.executeQuery()) {
 
@@ -87,7 +149,7 @@ public class UserRepoBD implements PagingRepo<Long, User> {
     }
 
     /**
-     * Saves a new user to the database.
+     * Saves a new user to the database and sets the ID the database generated for it.
      * If the insertion is successful, returns an empty Optional.
      * If the insertion fails, returns the user that was attempted to be saved.
      * @param entity the user to save
@@ -95,21 +157,24 @@ public class UserRepoBD implements PagingRepo<Long, User> {
      */
     @Override
     public Optional<User> save(User entity) {
-        int rez = -1;
-        try (Connection connection = DriverManager.getConnection(url, username, password);
-             PreparedStatement statement = connection.prepareStatement("INSERT INTO users (firstname, lastname,email, pasword) VALUES (?, ?,?,?)")) {
+        Long generatedId = null;
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement("INSERT INTO users (firstname, lastname,email, pasword) VALUES (?, ?,?,?) RETURNING user_id")) {
             statement.setString(1, entity.getFirstName());
             statement.setString(2, entity.getLastName());
             statement.setString(3, entity.getEmail());
             statement.setString(4, entity.getPassword());
-            rez = statement.executeUpdate();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    generatedId = resultSet.getLong("user_id");
+                }
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
 
-       if( rez > 0){
-           users.put(entity.getId(), entity);
-           loadData();
+       if( generatedId != null){
+           entity.setId(generatedId);
            return Optional.empty();
        }
        else return Optional.of(entity);
@@ -126,8 +191,7 @@ public class UserRepoBD implements PagingRepo<Long, User> {
     public Optional<User> update(User entity) {
         int rowsAffected = -1;
         validator.validate(entity);
-        Optional<User> existingUser = Optional.ofNullable(users.get(entity.getId()));
-        try (Connection connection = DriverManager.getConnection(url, username, password);
+        try (Connection connection = pool.getConnection();
              PreparedStatement statement = connection.prepareStatement("UPDATE users SET firstname = ?, lastname = ?, email = ?, pasword = ? WHERE user_id = ?")) {
             statement.setString(1, entity.getFirstName());
             statement.setString(2, entity.getLastName());
@@ -141,8 +205,6 @@ public class UserRepoBD implements PagingRepo<Long, User> {
         }
 
         if( rowsAffected > 0){
-            users.put(entity.getId(), entity);
-            loadData();
             return Optional.empty();
         }
         else return Optional.of(entity);
@@ -150,39 +212,28 @@ public class UserRepoBD implements PagingRepo<Long, User> {
 
     /**
      * Deletes a user from the database by their ID.
-     * If the user exists and the deletion is successful, returns the deleted user.
-     * If the user does not exist or the deletion fails, returns an empty Optional.
+     * The row is returned by the same statement, so no lookup precedes the delete.
      * @param id the ID of the user to delete
-     * @return an Optional containing the deleted user, or an empty Optional if the deletion failed
+     * @return an Optional containing the deleted user, or an empty Optional if the user does not exist or the deletion failed
      */
     @Override
     public Optional<User> delete(Long id) {
-        Optional<User> userToDelete = Optional.ofNullable(users.get(id));
-        int rowsAffected = -1;
-
-        if (userToDelete.isPresent()) {
-            try (Connection connection = DriverManager.getConnection(url, username, password);
-                 PreparedStatement statement = connection.prepareStatement("DELETE FROM users WHERE user_id = ?")) {
-                statement.setLong(1, id);
-                rowsAffected = statement.executeUpdate();
-            } catch (SQLException e) {
-                e.printStackTrace();
+        User deleted = null;
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "DELETE FROM users WHERE user_id = ? RETURNING user_id, firstname, lastname, email, pasword")) {
+            statement.setLong(1, id);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    deleted = new User(resultSet.getString("firstname"), resultSet.getString("lastname"),
+                            resultSet.getString("email"), resultSet.getString("pasword"));
+                    deleted.setId(resultSet.getLong("user_id"));
+                }
             }
+        } catch (SQLException e) {
+            e.printStackTrace();
         }
-
-        if( rowsAffected > 0){
-            users.remove(id);
-            loadData();
-            return Optional.empty();
-
-        }
-        else return Optional.of(userToDelete.get());
-    }
-
-    private void loadData(){
-        findAll().forEach(user -> {
-            users.put(user.getId(), user);
-        });
+        return Optional.ofNullable(deleted);
     }
 
     /**
@@ -196,9 +247,9 @@ public class UserRepoBD implements PagingRepo<Long, User> {
     @Override
     public Page<User> findAllOnPage(Pageable pageable) {
         List<User> users = new ArrayList<>();
-        try(Connection connection = DriverManager.getConnection(url,username,password);
+        try(Connection connection = pool.getConnection();
             PreparedStatement pageStatement = connection.prepareStatement("SELECT * FROM users " + "LIMIT ? OFFSET ?");
-            PreparedStatement countStatement = connection.prepareStatement("SELECT COUNT(*) AS conut FROM users")
+            PreparedStatement countStatement = connection.prepareStatement("SELECT COUNT(*) AS count FROM users")
         ){
             pageStatement.setInt(1,pageable.getPageSize());
             pageStatement.setInt(2,pageable.getPageNumber()*pageable.getPageSize());
@@ -228,4 +279,43 @@ public class UserRepoBD implements PagingRepo<Long, User> {
         return null;
     }
 
+    /**
+     * Retrieves the page of users that follows the given user ID.
+     * The page is read with an index range scan on the primary key instead of LIMIT/OFFSET,
+     * and one extra row is fetched to know whether another page follows.
+     *
+     * @param pageable the page size and the ID of the last user seen (null for the first page)
+     * @return a CursorPage containing the users of the page and the ID to continue from
+     */
+    @Override
+    public CursorPage<User, Long> findAllAfter(CursorPageable<Long> pageable) {
+        List<User> users = new ArrayList<>();
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT * FROM users WHERE user_id > ? ORDER BY user_id LIMIT ?")) {
+            statement.setLong(1, pageable.getAfterKey() == null ? Long.MIN_VALUE : pageable.getAfterKey());
+            statement.setInt(2, pageable.getPageSize() + 1);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    Long id = resultSet.getLong("user_id");
+                    String firstname = resultSet.getString("firstname");
+                    String lastname = resultSet.getString("lastname");
+                    String email = resultSet.getString("email");
+                    String password = resultSet.getString("pasword");
+
+                    User u = new User(firstname, lastname, email, password);
+                    u.setId(id);
+                    users.add(u);
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        if (users.size() > pageable.getPageSize()) {
+            users.remove(users.size() - 1);
+            return new CursorPage<>(users, users.get(users.size() - 1).getId());
+        }
+        return new CursorPage<>(users, null);
+    }
+
 }
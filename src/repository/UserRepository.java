@@ -2,12 +2,25 @@ package repository;
 
 import domain.User;
 import domain.validators.Validator;
+import enums.FsyncPolicy;
+import enums.SnapshotFormat;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Repository for managing User entities, extending the AbstractFileRepository.
  * Provides methods for creating and saving User entities from/to a file.
+ * An email belongs to one user only, as in the users table: saves and updates that would share one are rejected.
  */
-public class UserRepository extends AbstractFileRepository<Long, User> {
+public class UserRepository extends AbstractFileRepository<Long, User> implements UserLookupRepo<Long, User> {
+    private static final UserBinaryCodec CODEC = new UserBinaryCodec(); // Binary snapshot format
+    private Map<String, User> emailIndex; // Users keyed by email, built on the first lookup
+
     /**
      * Constructor for UserRepository.
      * @param validator the validator used for validating User entities before saving or updating
@@ -17,13 +30,52 @@ public class UserRepository extends AbstractFileRepository<Long, User> {
         super(validator, fileName);
     }
 
+    /**
+     * Constructor for UserRepository with an explicit fsync policy for the change log.
+     * @param validator the validator used for validating User entities before saving or updating
+     * @param fileName the name of the file to load and save User data
+     * @param fsyncPolicy when appended changes are forced to disk
+     */
+    public UserRepository(Validator<User> validator, String fileName, FsyncPolicy fsyncPolicy) {
+        super(validator, fileName, fsyncPolicy);
+    }
+
+    /**
+     * Constructor for UserRepository with an explicit fsync policy and snapshot format.
+     * @param validator the validator used for validating User entities before saving or updating
+     * @param fileName the name of the file to load and save User data
+     * @param fsyncPolicy when appended changes are forced to disk
+     * @param snapshotFormat the format the snapshot file is read and compacted in
+     */
+    public UserRepository(Validator<User> validator, String fileName, FsyncPolicy fsyncPolicy, SnapshotFormat snapshotFormat) {
+        super(validator, fileName, fsyncPolicy, snapshotFormat);
+    }
+
+    /**
+     * Gives the codec used when the snapshot is stored in binary.
+     * @return the User binary codec
+     */
+    @Override
+    protected BinaryCodec<User> binaryCodec() {
+        return CODEC;
+    }
+
     /**
      * Creates a User entity from a string representation.
-     * @param line the string representation of the User in the format "id;firstName;lastName"
+     * @param line the string representation of the User in the format "id;firstName;lastName;email;password"
      * @return the created User entity
      */
     @Override
     public User createEntity(String line) {
+        return parse(line);
+    }
+
+    /**
+     * Parses a User from its line in the snapshot or change log, without a repository.
+     * @param line the string representation of the User in the format "id;firstName;lastName;email;password"
+     * @return the parsed User entity
+     */
+    static User parse(String line) {
         String[] split = line.split(";");// Split the line by semicolon
         User user = new User(split[1], split[2], split[3], split[4]); // Create User with first and last name
         user.setId(Long.parseLong(split[0])); // Set the ID of the User
@@ -33,12 +85,107 @@ public class UserRepository extends AbstractFileRepository<Long, User> {
     /**
      * Gets the string representation of a User entity for saving to a file.
      * @param entity the User entity to save
-     * @return the string representation of the User in the format "id;firstName;lastName"
+     * @return the string representation of the User in the format "id;firstName;lastName;email;password"
      */
     @Override
     public String saveEntity(User entity) {
         String id = String.valueOf(entity.getId()); // Get the ID of the User as a string
-        String s = id + ";" + entity.getFirstName() + ";" + entity.getLastName(); // Create string representation
+        String s = id + ";" + entity.getFirstName() + ";" + entity.getLastName() + ";" +
+                entity.getEmail() + ";" + entity.getPassword(); // Create string representation
         return s; // Return the string representation
     }
+
+    /**
+     * Finds a user by their email address using a hash index instead of scanning every user.
+     * @param email the email address of the user to find
+     * @return an Optional containing the found user, or an empty Optional if no user is found
+     */
+    @Override
+    public Optional<User> findByEmail(String email) {
+        return Optional.ofNullable(emailIndex().get(email));
+    }
+
+    /**
+     * Gets the email index, building it on first use.
+     * A snapshot written before emails were unique may still hold one twice; the first user read keeps it.
+     * @return the users keyed by email
+     */
+    private Map<String, User> emailIndex() {
+        if (emailIndex == null) {
+            emailIndex = new HashMap<>();
+            for (User user : this.entities.values()) {
+                emailIndex.putIfAbsent(user.getEmail(), user);
+            }
+        }
+        return emailIndex;
+    }
+
+    /**
+     * Retrieves the users with the given IDs directly from the in-memory map.
+     * @param ids the IDs of the users to retrieve
+     * @return the found users, in the order of the given IDs
+     */
+    @Override
+    public List<User> findAllById(Collection<Long> ids) {
+        List<User> found = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            User user = this.entities.get(id);
+            if (user != null) {
+                found.add(user);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Saves a new user and registers their email in the index.
+     * @param entity the user to save
+     * @return the existing user if the ID or the email is already taken, an empty Optional otherwise
+     */
+    @Override
+    public Optional<User> save(User entity) {
+        User owner = entity == null ? null : emailIndex().get(entity.getEmail());
+        if (owner != null) {
+            return Optional.of(owner); // Rejected before anything reaches the change log
+        }
+        Optional<User> existing = super.save(entity);
+        if (existing.isEmpty()) {
+            emailIndex.put(entity.getEmail(), entity);
+        }
+        return existing;
+    }
+
+    /**
+     * Updates an existing user and moves their index entry if the email changed.
+     * @param entity the user with updated information
+     * @return the updated user, or an empty Optional if the user was not found or another user has the email
+     */
+    @Override
+    public Optional<User> update(User entity) {
+        User owner = entity == null ? null : emailIndex().get(entity.getEmail());
+        if (owner != null && !owner.getId().equals(entity.getId())) {
+            return Optional.empty();
+        }
+        Optional<User> previous = entity == null ? Optional.empty() : super.findOne(entity.getId());
+        Optional<User> updated = super.update(entity);
+        if (updated.isPresent()) {
+            previous.ifPresent(old -> emailIndex.remove(old.getEmail(), old));
+            emailIndex.put(entity.getEmail(), entity);
+        }
+        return updated;
+    }
+
+    /**
+     * Deletes a user and drops their email from the index.
+     * @param id the ID of the user to delete
+     * @return the deleted user, or an empty Optional if not found
+     */
+    @Override
+    public Optional<User> delete(Long id) {
+        Optional<User> deleted = super.delete(id);
+        if (emailIndex != null) {
+            deleted.ifPresent(user -> emailIndex.remove(user.getEmail(), user));
+        }
+        return deleted;
+    }
 }
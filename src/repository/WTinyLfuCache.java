@@ -0,0 +1,265 @@
+package repository;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded cache with the W-TinyLFU eviction policy.
+ * New entries enter a small LRU window (1% of the capacity). An entry leaving the window joins the main space
+ * only if the frequency sketch says it is accessed more often than the entry the main space would evict;
+ * this keeps one-off lookups, such as a scan over every user, from flushing the popular entries.
+ * The main space is a segmented LRU: entries hit again while on probation move to the protected segment (80%).
+ * All operations are O(1) and synchronized; hits, misses and evictions are counted.
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class WTinyLfuCache<K, V> {
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+
+    private final int maximumSize;
+    private final int windowMaximum;
+    private final int protectedMaximum;
+    private final Map<K, Node<K, V>> entries;
+    private final FrequencySketch sketch;
+    private final AccessOrder<K, V> window = new AccessOrder<>();
+    private final AccessOrder<K, V> probation = new AccessOrder<>();
+    private final AccessOrder<K, V> protectedSegment = new AccessOrder<>();
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    /**
+     * Constructor for an empty cache.
+     * @param maximumSize the maximum number of entries kept
+     * @throws IllegalArgumentException if maximumSize is not positive
+     */
+    public WTinyLfuCache(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive");
+        }
+        this.maximumSize = maximumSize;
+        this.windowMaximum = Math.max(1, maximumSize / 100);
+        this.protectedMaximum = (int) ((maximumSize - windowMaximum) * 0.8);
+        this.entries = new HashMap<>(Math.max(16, (int) (maximumSize / 0.75f) + 1));
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    /**
+     * Looks up a cached value and records the access.
+     * @param key the key, must not be null
+     * @return the cached value, or null if the key is not cached
+     */
+    public synchronized V get(K key) {
+        sketch.increment(spread(key.hashCode()));
+        Node<K, V> node = entries.get(key);
+        if (node == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        onAccess(node);
+        return node.value;
+    }
+
+    /**
+     * Adds or replaces a cached value, possibly evicting another entry.
+     * @param key the key, must not be null
+     * @param value the value, must not be null
+     */
+    public synchronized void put(K key, V value) {
+        Node<K, V> node = entries.get(key);
+        if (node != null) {
+            node.value = value;
+            onAccess(node);
+            return;
+        }
+        node = new Node<>(key, value);
+        entries.put(key, node);
+        window.addLast(node, WINDOW);
+        if (window.size > windowMaximum) {
+            // The window's oldest entry becomes a candidate for the main space
+            Node<K, V> candidate = window.first();
+            window.remove(candidate);
+            probation.addLast(candidate, PROBATION);
+            if (entries.size() > maximumSize) {
+                evict(candidate);
+            }
+        }
+    }
+
+    /**
+     * Removes a key from the cache, e.g. after its value changed in the underlying store.
+     * @param key the key, must not be null
+     */
+    public synchronized void invalidate(K key) {
+        Node<K, V> node = entries.remove(key);
+        if (node != null) {
+            segment(node).remove(node);
+        }
+    }
+
+    /**
+     * Removes every entry; the counters and access frequencies are kept.
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+    }
+
+    /**
+     * Decides between the candidate that just left the window and the entry the main space would evict,
+     * keeping the one accessed more often; the incumbent wins ties.
+     */
+    private void evict(Node<K, V> candidate) {
+        Node<K, V> victim = probation.first();
+        if (victim == candidate) {
+            victim = protectedSegment.size > 0 ? protectedSegment.first() : candidate;
+        }
+        Node<K, V> evicted = victim;
+        if (victim != candidate
+                && sketch.frequency(spread(candidate.key.hashCode())) <= sketch.frequency(spread(victim.key.hashCode()))) {
+            evicted = candidate;
+        }
+        segment(evicted).remove(evicted);
+        entries.remove(evicted.key);
+        evictions++;
+    }
+
+    private void onAccess(Node<K, V> node) {
+        if (node.segment == PROBATION) {
+            // A second hit in the main space protects the entry, demoting the least recent protected one
+            probation.remove(node);
+            protectedSegment.addLast(node, PROTECTED);
+            if (protectedSegment.size > protectedMaximum) {
+                Node<K, V> demoted = protectedSegment.first();
+                protectedSegment.remove(demoted);
+                probation.addLast(demoted, PROBATION);
+            }
+        } else {
+            AccessOrder<K, V> order = segment(node);
+            order.remove(node);
+            order.addLast(node, node.segment);
+        }
+    }
+
+    private AccessOrder<K, V> segment(Node<K, V> node) {
+        return node.segment == WINDOW ? window : node.segment == PROBATION ? probation : protectedSegment;
+    }
+
+    private static int spread(int hash) {
+        return (hash ^ (hash >>> 16)) * 0x45d9f3b;
+    }
+
+    /**
+     * Gets the number of cached entries.
+     * @return the number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the maximum number of entries.
+     * @return the capacity of the cache
+     */
+    public int maximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Gets the number of lookups that found a cached value.
+     * @return the number of hits
+     */
+    public synchronized long hitCount() {
+        return hits;
+    }
+
+    /**
+     * Gets the number of lookups that found nothing.
+     * @return the number of misses
+     */
+    public synchronized long missCount() {
+        return misses;
+    }
+
+    /**
+     * Gets the number of entries removed to respect the maximum size.
+     * @return the number of evictions
+     */
+    public synchronized long evictionCount() {
+        return evictions;
+    }
+
+    /**
+     * Gets the share of lookups that found a cached value.
+     * @return the hit rate, 0 if there were no lookups
+     */
+    public synchronized double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("WTinyLfuCache{size=%d/%d, hits=%d, misses=%d, evictions=%d, hitRate=%.3f}",
+                entries.size(), maximumSize, hits, misses, evictions, hitRate());
+    }
+
+    private static final class Node<K, V> {
+        private final K key;
+        private V value;
+        private int segment;
+        private Node<K, V> previous;
+        private Node<K, V> next;
+
+        private Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Doubly linked list of nodes from least to most recently used, around a sentinel.
+     */
+    private static final class AccessOrder<K, V> {
+        private final Node<K, V> sentinel = new Node<>(null, null);
+        private int size = 0;
+
+        private AccessOrder() {
+            sentinel.previous = sentinel;
+            sentinel.next = sentinel;
+        }
+
+        private Node<K, V> first() {
+            return sentinel.next;
+        }
+
+        private void addLast(Node<K, V> node, int segment) {
+            node.segment = segment;
+            node.previous = sentinel.previous;
+            node.next = sentinel;
+            sentinel.previous.next = node;
+            sentinel.previous = node;
+            size++;
+        }
+
+        private void remove(Node<K, V> node) {
+            node.previous.next = node.next;
+            node.next.previous = node.previous;
+            node.previous = null;
+            node.next = null;
+            size--;
+        }
+
+        private void clear() {
+            sentinel.previous = sentinel;
+            sentinel.next = sentinel;
+            size = 0;
+        }
+    }
+}
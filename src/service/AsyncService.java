@@ -0,0 +1,227 @@
+package service;
+
+import domain.CursorPage;
+import domain.CursorPageable;
+import domain.FriendSuggestion;
+import domain.Friendship;
+import domain.Message;
+import domain.User;
+import enums.RecommendationScore;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Non-blocking facade over Service for the UI.
+ * Every call runs on its own virtual thread and returns a CompletableFuture; results are handed back on
+ * the result executor (Platform::runLater for JavaFX controllers), so the UI thread never waits on the database.
+ * Each controller uses its own AsyncService and calls cancelAll() when the user navigates away:
+ * running calls are interrupted and results that arrive later are dropped.
+ */
+public class AsyncService {
+    private static final ExecutorService TASKS = Executors.newVirtualThreadPerTaskExecutor(); // Shared by every AsyncService
+
+    private final Service service;
+    private final Executor resultExecutor; // Runs the result callbacks, e.g. on the JavaFX Application Thread
+    private final Set<CompletableFuture<?>> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger generation = new AtomicInteger(); // Incremented by cancelAll
+
+    /**
+     * Constructor for AsyncService.
+     * @param service the service the calls are made on
+     * @param resultExecutor the executor the result callbacks run on
+     */
+    public AsyncService(Service service, Executor resultExecutor) {
+        this.service = service;
+        this.resultExecutor = resultExecutor;
+    }
+
+    /**
+     * Runs a call on the service in the background.
+     * Cancelling the returned future interrupts the call if it is still running.
+     * @param call the call to make
+     * @param <T> the type of the result
+     * @return the future result of the call
+     */
+    public <T> CompletableFuture<T> supply(Function<Service, T> call) {
+        return submit(call, true);
+    }
+
+    private <T> CompletableFuture<T> submit(Function<Service, T> call, boolean cancellable) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (cancellable) {
+            pending.add(result);
+        }
+        Future<?> running = TASKS.submit(() -> {
+            try {
+                result.complete(call.apply(service));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        result.whenComplete((value, error) -> {
+            pending.remove(result);
+            if (result.isCancelled()) {
+                running.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Runs a call in the background and hands its outcome to callbacks on the result executor.
+     * @param call the call to make
+     * @param onSuccess receives the result
+     * @param onFailure receives the error the call failed with
+     * @param <T> the type of the result
+     * @return the future result of the call
+     * @see #deliver(CompletableFuture, Consumer, Consumer)
+     */
+    public <T> CompletableFuture<T> supply(Function<Service, T> call, Consumer<? super T> onSuccess,
+                                           Consumer<? super Throwable> onFailure) {
+        return deliver(supply(call), onSuccess, onFailure);
+    }
+
+    /**
+     * Runs a call that changes data in the background and hands its outcome to callbacks on the result executor.
+     * cancelAll() drops the callbacks but never interrupts the call, so a write is not abandoned halfway.
+     * @param call the call to make
+     * @param onSuccess receives the result
+     * @param onFailure receives the error the call failed with
+     * @param <T> the type of the result
+     * @return the future result of the call
+     */
+    public <T> CompletableFuture<T> supplyWrite(Function<Service, T> call, Consumer<? super T> onSuccess,
+                                                Consumer<? super Throwable> onFailure) {
+        return deliver(submit(call, false), onSuccess, onFailure);
+    }
+
+    /**
+     * Hands the outcome of a future to callbacks on the result executor.
+     * Neither callback runs if the future is cancelled, or if cancelAll() is called before the outcome is delivered.
+     * @param future the future to wait for
+     * @param onSuccess receives the result
+     * @param onFailure receives the error the future failed with
+     * @param <T> the type of the result
+     * @return the given future
+     */
+    public <T> CompletableFuture<T> deliver(CompletableFuture<T> future, Consumer<? super T> onSuccess,
+                                            Consumer<? super Throwable> onFailure) {
+        int started = generation.get();
+        future.whenComplete((value, error) -> {
+            if (error instanceof CancellationException) {
+                return;
+            }
+            resultExecutor.execute(() -> {
+                if (generation.get() != started) {
+                    return; // The view was left while the result was on its way
+                }
+                if (error == null) {
+                    onSuccess.accept(value);
+                } else {
+                    onFailure.accept(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+                }
+            });
+        });
+        return future;
+    }
+
+    /**
+     * Cancels every call still running and drops the results not yet delivered, e.g. when leaving a view.
+     */
+    public void cancelAll() {
+        generation.incrementAndGet();
+        for (CompletableFuture<?> future : pending) {
+            future.cancel(true);
+        }
+    }
+
+    /**
+     * Gets the service the calls are made on, for work that must stay on the calling thread.
+     * @return the service
+     */
+    public Service getService() {
+        return service;
+    }
+
+    /**
+     * Validates login credentials in the background.
+     * @param email the user's email
+     * @param password the user's password
+     * @return the future user, null if the credentials are invalid
+     */
+    public CompletableFuture<User> login(String email, String password) {
+        return supply(s -> s.login(email, password));
+    }
+
+    /**
+     * Retrieves the friends of a user in the background.
+     * @param user the user
+     * @return the future list of friends
+     */
+    public CompletableFuture<List<User>> getFriends(User user) {
+        return supply(s -> s.getFriends(user));
+    }
+
+    /**
+     * Counts the friends of a user in the background.
+     * @param user the user
+     * @return the future number of friends
+     */
+    public CompletableFuture<Integer> countUsersFriends(User user) {
+        return supply(s -> s.countUsersFriends(user));
+    }
+
+    /**
+     * Retrieves a page of a user's friendships in the background.
+     * @param pageable the page size and the ID of the last friend seen
+     * @param user the user
+     * @return the future page
+     */
+    public CompletableFuture<CursorPage<Friendship, Long>> findUsersFriends(CursorPageable<Long> pageable, User user) {
+        return supply(s -> s.findUsersFriends(pageable, user));
+    }
+
+    /**
+     * Retrieves the messages between two users in the background.
+     * @param user the first user
+     * @param friend the second user
+     * @return the future messages, sorted by date
+     */
+    public CompletableFuture<List<Message>> getMessagesBetween(User user, User friend) {
+        return supply(s -> s.getMessagesBetween(user, friend));
+    }
+
+    /**
+     * Sends a message in the background.
+     * @param from the sender
+     * @param to the receiver
+     * @param message the text of the message
+     * @return the future outcome, true if the message was saved; cancelAll() does not interrupt it
+     */
+    public CompletableFuture<Boolean> addMessage(User from, User to, String message) {
+        return submit(s -> s.addMessage(from, to, message), false);
+    }
+
+    /**
+     * Computes friend suggestions in the background.
+     * @param user the user to suggest friends to
+     * @param limit the maximum number of suggestions
+     * @param score how the suggestions are ranked
+     * @return the future suggestions, best first
+     */
+    public CompletableFuture<List<FriendSuggestion>> getFriendSuggestions(User user, int limit, RecommendationScore score) {
+        return supply(s -> s.getFriendSuggestions(user, limit, score));
+    }
+}
@@ -0,0 +1,321 @@
+package service;
+
+import domain.*;
+import enums.DiameterMode;
+import enums.Friendshiprequest;
+import enums.RecommendationScore;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
+import repository.ConversationRepo;
+import repository.FriendshipPagingRepo;
+import repository.UserLookupRepo;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Service that times every public entry point and counts the calls that fail.
+ * Each method m is recorded in the histogram "service.m" and its exceptions in the counter "service.m.errors";
+ * the work itself is left to Service, so both behave the same.
+ */
+public class InstrumentedService extends Service {
+    private final MetricsRegistry metrics;
+    private final Operation getUsers;
+    private final Operation getFriendships;
+    private final Operation addUser;
+    private final Operation hashPassword;
+    private final Operation removeUser;
+    private final Operation addFriendship;
+    private final Operation removeFriendship;
+    private final Operation getNumberOfCommunities;
+    private final Operation getCommunityOf;
+    private final Operation getCommunities;
+    private final Operation getMostSocialCommunity;
+    private final Operation getMostSocialCommunityDiameter;
+    private final Operation getDistance;
+    private final Operation getUsersWithinHops;
+    private final Operation getNetworkStats;
+    private final Operation getClusteringCoefficient;
+    private final Operation getMutualFriends;
+    private final Operation getMutualFriendCounts;
+    private final Operation getFriendSuggestions;
+    private final Operation login;
+    private final Operation getFriends;
+    private final Operation findUserByName;
+    private final Operation findUser;
+    private final Operation findUsers;
+    private final Operation manageFriendRequest;
+    private final Operation createFriendshipRequest;
+    private final Operation getMessagesBetween;
+    private final Operation addMessage;
+    private final Operation findUserByEmail;
+    private final Operation updateUser;
+    private final Operation getPendingFriendships;
+    private final Operation getAllFriendships;
+    private final Operation findUsersFriendsPage;
+    private final Operation findUsersFriendsCursor;
+    private final Operation countUsersFriends;
+
+    /**
+     * A timed entry point: its latency histogram and its error counter, looked up once.
+     */
+    private static final class Operation {
+        private final LatencyHistogram latency;
+        private final LongAdder errors;
+
+        private Operation(MetricsRegistry metrics, String name) {
+            this.latency = metrics.histogram(name);
+            this.errors = metrics.counter(name + ".errors");
+        }
+    }
+
+    /**
+     * Constructor for InstrumentedService.
+     * @param userRepo the user repository
+     * @param friendshipRepo the friendship repository
+     * @param messageRepo the message repository
+     * @param metrics the registry receiving the measurements
+     */
+    public InstrumentedService(UserLookupRepo<Long, User> userRepo,
+                               FriendshipPagingRepo<Tuple<Long, Long>, Friendship> friendshipRepo,
+                               ConversationRepo<Long, Message> messageRepo, MetricsRegistry metrics) {
+        super(userRepo, friendshipRepo, messageRepo);
+        this.metrics = metrics;
+        this.getUsers = new Operation(metrics, "service.getUsers");
+        this.getFriendships = new Operation(metrics, "service.getFriendships");
+        this.addUser = new Operation(metrics, "service.addUser");
+        this.hashPassword = new Operation(metrics, "service.hashPassword");
+        this.removeUser = new Operation(metrics, "service.removeUser");
+        this.addFriendship = new Operation(metrics, "service.addFriendship");
+        this.removeFriendship = new Operation(metrics, "service.removeFriendship");
+        this.getNumberOfCommunities = new Operation(metrics, "service.getNumberOfCommunities");
+        this.getCommunityOf = new Operation(metrics, "service.getCommunityOf");
+        this.getCommunities = new Operation(metrics, "service.getCommunities");
+        this.getMostSocialCommunity = new Operation(metrics, "service.getMostSocialCommunity");
+        this.getMostSocialCommunityDiameter = new Operation(metrics, "service.getMostSocialCommunityDiameter");
+        this.getDistance = new Operation(metrics, "service.getDistance");
+        this.getUsersWithinHops = new Operation(metrics, "service.getUsersWithinHops");
+        this.getNetworkStats = new Operation(metrics, "service.getNetworkStats");
+        this.getClusteringCoefficient = new Operation(metrics, "service.getClusteringCoefficient");
+        this.getMutualFriends = new Operation(metrics, "service.getMutualFriends");
+        this.getMutualFriendCounts = new Operation(metrics, "service.getMutualFriendCounts");
+        this.getFriendSuggestions = new Operation(metrics, "service.getFriendSuggestions");
+        this.login = new Operation(metrics, "service.login");
+        this.getFriends = new Operation(metrics, "service.getFriends");
+        this.findUserByName = new Operation(metrics, "service.findUserByName");
+        this.findUser = new Operation(metrics, "service.find_user");
+        this.findUsers = new Operation(metrics, "service.findUsers");
+        this.manageFriendRequest = new Operation(metrics, "service.manageFriendRequest");
+        this.createFriendshipRequest = new Operation(metrics, "service.createFriendshipRequest");
+        this.getMessagesBetween = new Operation(metrics, "service.getMessagesBetween");
+        this.addMessage = new Operation(metrics, "service.addMessage");
+        this.findUserByEmail = new Operation(metrics, "service.findUserByEmail");
+        this.updateUser = new Operation(metrics, "service.update_user");
+        this.getPendingFriendships = new Operation(metrics, "service.getPendingFriendships");
+        this.getAllFriendships = new Operation(metrics, "service.getAllFriendships");
+        this.findUsersFriendsPage = new Operation(metrics, "service.findUsersFriends.offset");
+        this.findUsersFriendsCursor = new Operation(metrics, "service.findUsersFriends.cursor");
+        this.countUsersFriends = new Operation(metrics, "service.countUsersFriends");
+    }
+
+    private <T> T call(Operation operation, Supplier<T> body) {
+        if (!metrics.isEnabled()) {
+            return body.get();
+        }
+        long start = System.nanoTime();
+        try {
+            return body.get();
+        } catch (RuntimeException | Error e) {
+            operation.errors.increment();
+            throw e;
+        } finally {
+            operation.latency.recordSince(start);
+        }
+    }
+
+    private void run(Operation operation, Runnable body) {
+        call(operation, () -> {
+            body.run();
+            return null;
+        });
+    }
+
+    @Override
+    public Iterable<User> getUsers() {
+        return call(getUsers, () -> super.getUsers());
+    }
+
+    @Override
+    public Iterable<Friendship> getFriendships() {
+        return call(getFriendships, () -> super.getFriendships());
+    }
+
+    @Override
+    public void addUser(User user) {
+        run(addUser, () -> super.addUser(user));
+    }
+
+    @Override
+    public String hashPassword(String password) {
+        return call(hashPassword, () -> super.hashPassword(password));
+    }
+
+    @Override
+    public void removeUser(Long id) {
+        run(removeUser, () -> super.removeUser(id));
+    }
+
+    @Override
+    public void addFriendship(Long userId1, Long userId2) {
+        run(addFriendship, () -> super.addFriendship(userId1, userId2));
+    }
+
+    @Override
+    public void removeFriendship(Long userId1, Long userId2) {
+        run(removeFriendship, () -> super.removeFriendship(userId1, userId2));
+    }
+
+    @Override
+    public int getNumberOfCommunities() {
+        return call(getNumberOfCommunities, () -> super.getNumberOfCommunities());
+    }
+
+    @Override
+    public List<Long> getCommunityOf(Long userId) {
+        return call(getCommunityOf, () -> super.getCommunityOf(userId));
+    }
+
+    @Override
+    public List<List<Long>> getCommunities() {
+        return call(getCommunities, () -> super.getCommunities());
+    }
+
+    @Override
+    public List<Long> getMostSocialCommunity() {
+        return call(getMostSocialCommunity, () -> super.getMostSocialCommunity());
+    }
+
+    @Override
+    public CommunityDiameter getMostSocialCommunity(DiameterMode mode) {
+        return call(getMostSocialCommunityDiameter, () -> super.getMostSocialCommunity(mode));
+    }
+
+    @Override
+    public int getDistance(Long userId1, Long userId2) {
+        return call(getDistance, () -> super.getDistance(userId1, userId2));
+    }
+
+    @Override
+    public List<Long> getUsersWithinHops(Long userId, int hops) {
+        return call(getUsersWithinHops, () -> super.getUsersWithinHops(userId, hops));
+    }
+
+    @Override
+    public NetworkStats getNetworkStats() {
+        return call(getNetworkStats, () -> super.getNetworkStats());
+    }
+
+    @Override
+    public double getClusteringCoefficient(Long userId) {
+        return call(getClusteringCoefficient, () -> super.getClusteringCoefficient(userId));
+    }
+
+    @Override
+    public List<User> getMutualFriends(User user, User other) {
+        return call(getMutualFriends, () -> super.getMutualFriends(user, other));
+    }
+
+    @Override
+    public Map<Long, Integer> getMutualFriendCounts(User user, List<Long> candidateIds) {
+        return call(getMutualFriendCounts, () -> super.getMutualFriendCounts(user, candidateIds));
+    }
+
+    @Override
+    public List<FriendSuggestion> getFriendSuggestions(User user, int limit, RecommendationScore score) {
+        return call(getFriendSuggestions, () -> super.getFriendSuggestions(user, limit, score));
+    }
+
+    @Override
+    public User login(String email, String password) {
+        return call(login, () -> super.login(email, password));
+    }
+
+    @Override
+    public List<User> getFriends(User user) {
+        return call(getFriends, () -> super.getFriends(user));
+    }
+
+    @Override
+    public User findUserByName(String firstName, String lastName) {
+        return call(findUserByName, () -> super.findUserByName(firstName, lastName));
+    }
+
+    @Override
+    public Optional<User> find_user(Long idUser) {
+        return call(findUser, () -> super.find_user(idUser));
+    }
+
+    @Override
+    public List<User> findUsers(Collection<Long> ids) {
+        return call(findUsers, () -> super.findUsers(ids));
+    }
+
+    @Override
+    public void manageFriendRequest(Friendship friendship, Friendshiprequest friendshipRequest) {
+        run(manageFriendRequest, () -> super.manageFriendRequest(friendship, friendshipRequest));
+    }
+
+    @Override
+    public void createFriendshipRequest(Long id1, Long id2) {
+        run(createFriendshipRequest, () -> super.createFriendshipRequest(id1, id2));
+    }
+
+    @Override
+    public List<Message> getMessagesBetween(User user, User friend) {
+        return call(getMessagesBetween, () -> super.getMessagesBetween(user, friend));
+    }
+
+    @Override
+    public boolean addMessage(User from, User to, String msg) {
+        return call(addMessage, () -> super.addMessage(from, to, msg));
+    }
+
+    @Override
+    public User findUserByEmail(String emailInput) {
+        return call(findUserByEmail, () -> super.findUserByEmail(emailInput));
+    }
+
+    @Override
+    public Optional<User> update_user(User user) {
+        return call(updateUser, () -> super.update_user(user));
+    }
+
+    @Override
+    public List<Friendship> getPendingFriendships(Long userId) {
+        return call(getPendingFriendships, () -> super.getPendingFriendships(userId));
+    }
+
+    @Override
+    public Page<Friendship> getAllFriendships(Pageable pageable) {
+        return call(getAllFriendships, () -> super.getAllFriendships(pageable));
+    }
+
+    @Override
+    public Page<Friendship> findUsersFriends(Pageable pageable, User user) {
+        return call(findUsersFriendsPage, () -> super.findUsersFriends(pageable, user));
+    }
+
+    @Override
+    public CursorPage<Friendship, Long> findUsersFriends(CursorPageable<Long> pageable, User user) {
+        return call(findUsersFriendsCursor, () -> super.findUsersFriends(pageable, user));
+    }
+
+    @Override
+    public int countUsersFriends(User user) {
+        return call(countUsersFriends, () -> super.countUsersFriends(user));
+    }
+}
@@ -4,26 +4,49 @@ import domain.*;
 import domain.validators.FriendshipValidator;
 import domain.validators.UserValidator;
 import domain.validators.ValidationException;
+import enums.DiameterMode;
 import enums.Friendshiprequest;
+import enums.RecommendationScore;
+import graph.ConnectedComponents;
+import graph.CsrGraph;
+import graph.DiameterEngine;
+import graph.DiameterResult;
+import graph.FriendRecommender;
+import graph.FriendshipGraph;
+import graph.IncrementalComponents;
+import graph.LongIntHashMap;
+import graph.ParallelBfs;
+import graph.Recommendation;
+import graph.SetIntersection;
+import graph.TriangleCounts;
+import repository.ConversationRepo;
 import repository.FriendshipPagingRepo;
-import repository.Repository;
+import repository.UserLookupRepo;
 
 
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Service class for managing User and Friendship entities.
  * It provides methods to add, remove, and query users and friendships.
+ * The service can be called from several threads: the friendship graphs are guarded by a read-write lock,
+ * held only around graph accesses, never around repository calls or analytics on graph snapshots.
  */
 public class Service {
-    private final Repository<Long, User> userRepo; // Repository for User entities
+    private final UserLookupRepo<Long, User> userRepo; // Repository for User entities
     private final FriendshipPagingRepo<Tuple<Long, Long>, Friendship> friendshipRepo;// Repository for Friendship entities
-    private final Repository<Long, Message> messageRepo;
-    private final Map<Long, List<Long>> adjList = new HashMap<>(); // Adjacency list for friendships
+    private final ConversationRepo<Long, Message> messageRepo; // Repository for Message entities, indexed by conversation
+    private final FriendshipGraph friendshipGraph = new FriendshipGraph(); // Every friendship, whatever its status
+    private final FriendshipGraph approvedGraph = new FriendshipGraph(); // Approved friendships only
+    private volatile ParallelBfs approvedSearch; // Searches over a snapshot of approvedGraph, dropped when it changes
+    private final IncrementalComponents communities; // Communities of friendshipGraph, updated with every change
+    private final FriendRecommender recommender = new FriendRecommender(approvedGraph, friendshipGraph); // Friend suggestions
+    private final ReadWriteLock graphLock = new ReentrantReadWriteLock(); // Guards the graphs, communities and recommender
     private final UserValidator userValidator = new UserValidator();
     private final FriendshipValidator friendshipValidator = new FriendshipValidator();
 
@@ -32,12 +55,13 @@ public class Service {
      * @param userRepo the user repository
      * @param friendshipRepo the friendship repository
      */
-    public Service(Repository<Long, User> userRepo, FriendshipPagingRepo<Tuple<Long, Long>, Friendship> friendshipRepo, Repository<Long, Message> messageRepo) {
+    public Service(UserLookupRepo<Long, User> userRepo, FriendshipPagingRepo<Tuple<Long, Long>, Friendship> friendshipRepo, ConversationRepo<Long, Message> messageRepo) {
         this.userRepo = userRepo;
         this.friendshipRepo = friendshipRepo;
         this.messageRepo = messageRepo;
 
         buildAdjacencyList(); // Build the adjacency list for friendship connections
+        this.communities = new IncrementalComponents(friendshipGraph);
     }
 
     /**
@@ -57,15 +81,46 @@ public class Service {
     }
 
     /**
-     * Builds the adjacency list from existing friendships.
-     * This method populates the adjList with user connections.
+     * Builds the friendship graphs from existing users and friendships.
+     * Every user gets a vertex, so users without friendships are communities of their own.
      */
     private void buildAdjacencyList() {
+        for (User user : userRepo.findAll()) {
+            friendshipGraph.addVertex(user.getId());
+        }
         for (Friendship friendship : friendshipRepo.findAll()) {
             Long userId1 = friendship.getIdUser1(); // Get the first user's ID
             Long userId2 = friendship.getIdUser2(); // Get the second user's ID
-            adjList.computeIfAbsent(userId1, k -> new ArrayList<>()).add(userId2); // Add user2 to user1's list
-            adjList.computeIfAbsent(userId2, k -> new ArrayList<>()).add(userId1); // Add user1 to user2's list
+            friendshipGraph.addEdge(userId1, userId2);
+            if (friendship.getFriendshiprequest() == Friendshiprequest.APROOVED) {
+                approvedGraph.addEdge(userId1, userId2);
+            }
+        }
+    }
+
+    /**
+     * Records two users as approved friends of each other in the approved graph.
+     * The caller must hold the write lock.
+     * @param userId1 the ID of the first user
+     * @param userId2 the ID of the second user
+     */
+    private void addApprovedFriends(Long userId1, Long userId2) {
+        if (approvedGraph.addEdge(userId1, userId2)) {
+            approvedSearch = null;
+            recommender.friendshipChanged(userId1, userId2);
+        }
+    }
+
+    /**
+     * Removes the approved friendship of two users from the approved graph.
+     * The caller must hold the write lock.
+     * @param userId1 the ID of the first user
+     * @param userId2 the ID of the second user
+     */
+    private void removeApprovedFriends(Long userId1, Long userId2) {
+        if (approvedGraph.removeEdge(userId1, userId2)) {
+            approvedSearch = null;
+            recommender.friendshipChanged(userId1, userId2);
         }
     }
 
@@ -82,6 +137,14 @@ public class Service {
         user.setPassword(hashedPassword);
 
         userRepo.save(user);
+        if (user.getId() != null) {
+            graphLock.writeLock().lock();
+            try {
+                communities.addVertex(user.getId());
+            } finally {
+                graphLock.writeLock().unlock();
+            }
+        }
     }
 
     public String hashPassword(String password) {
@@ -96,19 +159,33 @@ public class Service {
 
     /**
      * Removes a user and all their friendships from the repository.
+     * The friendships are taken from the friendship graph, which holds every friendship whatever its status.
      * @param id the ID of the user to be removed
      */
     public void removeUser(Long id) {
         Optional<User> u = userRepo.findOne(id);
 
         u.ifPresent(user -> {
-            List<Tuple<Long,Long>> lst = new ArrayList<>();
-
-            user.getFriends().forEach(f ->
-                    lst.add(new Tuple<>(f.getId(), id)));
-            lst.forEach(tuple ->
-                    removeFriendship(tuple.getLeft(), tuple.getRight()));
-            adjList.remove(id);
+            long[] friendIds;
+            graphLock.readLock().lock();
+            try {
+                friendIds = friendshipGraph.neighbors(id);
+            } finally {
+                graphLock.readLock().unlock();
+            }
+            for (long friendId : friendIds) {
+                removeFriendship(friendId, id);
+            }
+            graphLock.writeLock().lock();
+            try {
+                communities.removeVertex(id);
+                if (approvedGraph.removeVertex(id)) {
+                    approvedSearch = null;
+                    recommender.clear();
+                }
+            } finally {
+                graphLock.writeLock().unlock();
+            }
             userRepo.delete(id);
         });
 
@@ -126,18 +203,21 @@ public class Service {
         Optional<User> u1 = userRepo.findOne(userId1);
         Optional<User> u2 = userRepo.findOne(userId2);
 
+        // Users may be shared by a cache, so their friend lists are never changed here: the graphs hold the friendships
         u1.ifPresent(user1 -> u2.ifPresent(user2 -> {
-            user1.addFriend(user2);
-            user2.addFriend(user1);
-
             Friendship f = new Friendship(userId1, userId2, LocalDateTime.now());
             f.setId(new Tuple<>(userId1, userId2));
 
             friendshipRepo.save(f);
 
-            // Update the adjacency list
-            adjList.computeIfAbsent(userId1, k -> new ArrayList<>()).add(userId2);
-            adjList.computeIfAbsent(userId2, k -> new ArrayList<>()).add(userId1);
+            // Update the friendship graph and its communities
+            graphLock.writeLock().lock();
+            try {
+                communities.addEdge(userId1, userId2);
+                recommender.friendshipChanged(userId1, userId2); // A pending request is no longer a suggestion
+            } finally {
+                graphLock.writeLock().unlock();
+            }
         }));
     }
 
@@ -151,154 +231,341 @@ public class Service {
         Optional<User> u1 = userRepo.findOne(userId1);
         Optional<User> u2 = userRepo.findOne(userId2);
         u1.ifPresent(user1 -> u2.ifPresent(user2 -> {
-            user2.removeFriend(user1);
-            user1.removeFriend(user2);
-
             friendshipRepo.delete(new Tuple<>(userId1, userId2));
 
-            adjList.getOrDefault(userId1, new ArrayList<>()).remove(userId2);
-            adjList.getOrDefault(userId2, new ArrayList<>()).remove(userId1);
-
-            System.out.println("Friendship removed between " + userId1 + " and " + userId2);
+            graphLock.writeLock().lock();
+            try {
+                communities.removeEdge(userId1, userId2);
+                removeApprovedFriends(userId1, userId2);
+                recommender.friendshipChanged(userId1, userId2);
+            } finally {
+                graphLock.writeLock().unlock();
+            }
         }));
     }
 
 
     /**
      * Counts the number of connected components (communities) in the friendship graph.
+     * A user without any friendship is a community on their own.
+     * The communities are kept up to date as friendships change, so no traversal is needed.
      * @return the number of communities
      */
     public int getNumberOfCommunities() {
-        Set<Long> visited = new HashSet<>(); // To keep track of visited users
-        int numComponents = 0; // Counter for number of components
+        graphLock.writeLock().lock(); // Counting can repair split communities
+        try {
+            return communities.count();
+        } finally {
+            graphLock.writeLock().unlock();
+        }
+    }
 
-        for (User user : userRepo.findAll()) {
-            if (!visited.contains(user.getId())) { // If user is not visited, it starts a new component
-                numComponents++;
-                dfs(user.getId(), visited); // Perform DFS to mark all reachable users
-            }
+    /**
+     * Retrieves the community a user belongs to.
+     * @param userId the ID of the user
+     * @return the user IDs of the members of the user's community, empty if the user is unknown
+     */
+    public List<Long> getCommunityOf(Long userId) {
+        long[] members;
+        graphLock.writeLock().lock(); // Looking a community up can repair it
+        try {
+            members = communities.membersOf(userId);
+        } finally {
+            graphLock.writeLock().unlock();
+        }
+        List<Long> community = new ArrayList<>(members.length);
+        for (long member : members) {
+            community.add(member);
         }
-        return numComponents; // Return the number of connected components
+        return community;
     }
 
     /**
-     * Performs Depth First Search to visit all users in the same connected component.
-     * @param userId the starting user ID
-     * @param visited the set of visited user IDs
+     * Retrieves every community of the friendship graph, largest first.
+     * @return the user IDs of the members of each community
      */
-    private void dfs(Long userId, Set<Long> visited) {
-        visited.add(userId); // Mark the current user as visited
-        for (Long friendId : adjList.getOrDefault(userId, new ArrayList<>())) {
-            if (!visited.contains(friendId)) {
-                dfs(friendId, visited); // Visit the friend if not visited
+    public List<List<Long>> getCommunities() {
+        CsrGraph graph = snapshot(friendshipGraph);
+        ConnectedComponents components = ConnectedComponents.of(graph);
+        List<List<Long>> communities = new ArrayList<>(components.count());
+        for (int c = 0; c < components.count(); c++) {
+            int[] members = components.members(c);
+            List<Long> community = new ArrayList<>(members.length);
+            for (int member : members) {
+                community.add(graph.idOf(member));
             }
+            communities.add(community);
         }
+        communities.sort(Comparator.comparingInt((List<Long> community) -> community.size()).reversed());
+        return communities;
     }
 
     /**
      * Finds the most social community (the connected component with the longest path).
-     * @return a list of user IDs in the most social community
+     * The longest path is the diameter of the community, its longest shortest path.
+     * @return a list of user IDs along the diameter of the most social community
      */
     public List<Long> getMostSocialCommunity() {
-        List<Long> longestPath = new ArrayList<>(); // To store the longest path found
-        Set<Long> visited = new HashSet<>(); // To keep track of visited users
+        return getMostSocialCommunity(DiameterMode.AUTO).getPath();
+    }
 
-        for (User user : userRepo.findAll()) {
-            if (user != null && !visited.contains(user.getId())) { // Check if the user is valid and not visited
-                List<Long> currentPath = findLongestPath(user.getId()); // Find the longest path from this user
-                if (currentPath.size() > longestPath.size()) { // Update the longest path if a longer one is found
-                    longestPath = currentPath;
-                }
-                visited.addAll(currentPath); // Mark all nodes in this component as visited
-            }
+    /**
+     * Finds the most social community and reports how its diameter was computed.
+     * @param mode whether the diameter must be exact, sampled, or exact within a search budget
+     * @return the community's diameter path as user IDs, whether it is exact and the time it took
+     */
+    public CommunityDiameter getMostSocialCommunity(DiameterMode mode) {
+        long start = System.nanoTime();
+        CsrGraph graph = snapshot(friendshipGraph);
+        DiameterResult result = new DiameterEngine(graph).largest(ConnectedComponents.of(graph), mode);
+
+        List<Long> path = new ArrayList<>();
+        if (result == null) {
+            return new CommunityDiameter(path, 0, true, System.nanoTime() - start);
         }
-        return longestPath; // Return the longest path found
+        for (int vertex : result.getPath()) {
+            path.add(graph.idOf(vertex));
+        }
+        return new CommunityDiameter(path, result.getDiameter(), result.isExact(), System.nanoTime() - start);
     }
 
     /**
-     * Finds the longest path in a connected component using Breadth First Search.
-     * @param startNode the starting user ID for the search
-     * @return a list of user IDs in the longest path
+     * Takes a snapshot of a friendship graph under the read lock, so it can be analysed without holding the lock.
+     * @param graph the graph to copy
+     * @return the snapshot
      */
-    private List<Long> findLongestPath(Long startNode) {
-        Queue<Long> queue = new LinkedList<>(); // Queue for BFS
-        Map<Long, Long> distances = new HashMap<>(); // Distance from the start node
-        Map<Long, Long> predecessors = new HashMap<>(); // Predecessors to reconstruct the path
+    private CsrGraph snapshot(FriendshipGraph graph) {
+        graphLock.readLock().lock();
+        try {
+            return graph.toCsr();
+        } finally {
+            graphLock.readLock().unlock();
+        }
+    }
 
-        queue.add(startNode); // Start with the initial node
-        distances.put(startNode, 0L); // Distance to itself is zero
-        Long farthestNode = startNode; // Track the farthest node found
+    /**
+     * Gets the search engine over the current approved friendships, taking a new snapshot if they changed.
+     * The caller must hold the read or the write lock; the returned engine can be used after releasing it.
+     * @return the search engine
+     */
+    private ParallelBfs approvedSearch() {
+        ParallelBfs search = approvedSearch;
+        if (search == null) {
+            search = new ParallelBfs(approvedGraph.toCsr()); // Racing readers may both build one; both are current
+            approvedSearch = search;
+        }
+        return search;
+    }
 
-        // BFS to find the farthest node
-        while (!queue.isEmpty()) {
-            Long currentNode = queue.poll(); // Get the current node from the queue
-            for (Long neighbor : adjList.getOrDefault(currentNode, new ArrayList<>())) {
-                if (!distances.containsKey(neighbor)) { // If neighbor has not been visited
-                    distances.put(neighbor, distances.get(currentNode) + 1); // Set its distance
-                    predecessors.put(neighbor, currentNode); // Set its predecessor
-                    queue.add(neighbor); // Add to the queue for further exploration
+    /**
+     * Computes how many friendships separate two users.
+     * @param userId1 the ID of the first user
+     * @param userId2 the ID of the second user
+     * @return the number of hops between them, or -1 if they are not connected through approved friendships
+     */
+    public int getDistance(Long userId1, Long userId2) {
+        if (userId1.equals(userId2)) {
+            return 0;
+        }
+        int source;
+        int target;
+        ParallelBfs search;
+        graphLock.readLock().lock();
+        try {
+            source = approvedGraph.indexOf(userId1);
+            target = approvedGraph.indexOf(userId2);
+            search = approvedSearch();
+        } finally {
+            graphLock.readLock().unlock();
+        }
+        if (source == LongIntHashMap.MISSING || target == LongIntHashMap.MISSING) {
+            return ParallelBfs.UNREACHABLE;
+        }
+        return search.distance(source, target);
+    }
 
-                    // Update the farthest node if needed
-                    if (distances.get(neighbor) > distances.get(farthestNode)) {
-                        farthestNode = neighbor;
-                    }
-                }
+    /**
+     * Retrieves the users reachable from a user within a number of approved friendships.
+     * @param userId the ID of the user
+     * @param hops the maximum number of friendships between the user and the others
+     * @return the IDs of the users within that distance, excluding the user
+     */
+    public List<Long> getUsersWithinHops(Long userId, int hops) {
+        List<Long> users = new ArrayList<>();
+        int source;
+        ParallelBfs search;
+        graphLock.readLock().lock();
+        try {
+            source = approvedGraph.indexOf(userId);
+            search = approvedSearch();
+        } finally {
+            graphLock.readLock().unlock();
+        }
+        if (source == LongIntHashMap.MISSING || hops <= 0) {
+            return users;
+        }
+        for (int vertex : search.withinHops(source, hops)) {
+            users.add(search.graph().idOf(vertex));
+        }
+        return users;
+    }
+
+    /**
+     * Counts the triangles of approved friendships and the clustering coefficients derived from them.
+     * @return the number of triangles, the transitivity, the average clustering coefficient and the time it took
+     */
+    public NetworkStats getNetworkStats() {
+        long start = System.nanoTime();
+        TriangleCounts counts = TriangleCounts.of(snapshot(approvedGraph));
+        return new NetworkStats(counts.triangles(), counts.transitivity(), counts.averageClusteringCoefficient(),
+                System.nanoTime() - start);
+    }
+
+    /**
+     * Computes the local clustering coefficient of a user: the share of pairs of their friends who are friends too.
+     * @param userId the ID of the user
+     * @return the clustering coefficient, 0 if the user has fewer than two approved friends
+     */
+    public double getClusteringCoefficient(Long userId) {
+        graphLock.readLock().lock();
+        try {
+            int vertex = approvedGraph.indexOf(userId);
+            int degree = vertex == LongIntHashMap.MISSING ? 0 : approvedGraph.degree(vertex);
+            if (degree < 2) {
+                return 0;
+            }
+            // Only the user's friends matter: count the friendships among them
+            int[] friends = approvedGraph.adjacency(vertex);
+            long links = 0;
+            for (int i = 0; i < degree; i++) {
+                int friend = friends[i];
+                links += SetIntersection.count(friends, degree, approvedGraph.adjacency(friend), approvedGraph.degree(friend));
             }
+            return (double) links / ((long) degree * (degree - 1)); // Each link among friends was counted from both ends
+        } finally {
+            graphLock.readLock().unlock();
         }
+    }
 
-        // Reconstruct the path from the farthest node to the start node
-        List<Long> path = new ArrayList<>();
-        Long node = farthestNode; // Start from the farthest node
-        while (node != null) {
-            path.add(node); // Add the node to the path
-            node = predecessors.get(node); // Move to the predecessor
+    /**
+     * Retrieves the approved friends two users have in common.
+     * @param user the first user
+     * @param other the second user
+     * @return the mutual friends of the two users
+     */
+    public List<User> getMutualFriends(User user, User other) {
+        long[] mutualIds;
+        graphLock.readLock().lock();
+        try {
+            mutualIds = approvedGraph.commonNeighbors(user.getId(), other.getId());
+        } finally {
+            graphLock.readLock().unlock();
         }
-        Collections.reverse(path); // Reverse the path to get from start to end
-        return path; // Return the reconstructed path
+        List<Long> ids = new ArrayList<>(mutualIds.length);
+        for (long id : mutualIds) {
+            ids.add(id);
+        }
+        return ids.isEmpty() ? new ArrayList<>() : userRepo.findAllById(ids);
+    }
+
+    /**
+     * Counts the approved friends a user has in common with each of several candidates.
+     * @param user the user
+     * @param candidateIds the IDs of the candidates
+     * @return the number of mutual friends with each candidate, in the order of the candidates
+     */
+    public Map<Long, Integer> getMutualFriendCounts(User user, List<Long> candidateIds) {
+        long[] candidates = new long[candidateIds.size()];
+        for (int i = 0; i < candidates.length; i++) {
+            candidates[i] = candidateIds.get(i);
+        }
+        int[] counts;
+        graphLock.readLock().lock();
+        try {
+            counts = approvedGraph.commonNeighborCounts(user.getId(), candidates);
+        } finally {
+            graphLock.readLock().unlock();
+        }
+        Map<Long, Integer> mutualCounts = new LinkedHashMap<>();
+        for (int i = 0; i < candidates.length; i++) {
+            mutualCounts.put(candidates[i], counts[i]);
+        }
+        return mutualCounts;
+    }
+
+    /**
+     * Suggests people a user may know: friends of their friends they have no friendship or request with.
+     * @param user the user to suggest friends to
+     * @param limit the maximum number of suggestions
+     * @param score how the suggestions are ranked
+     * @return the suggestions, best first
+     */
+    public List<FriendSuggestion> getFriendSuggestions(User user, int limit, RecommendationScore score) {
+        List<Recommendation> recommendations;
+        List<Long> ids = new ArrayList<>();
+        graphLock.readLock().lock();
+        try {
+            recommendations = recommender.recommend(user.getId(), limit, score);
+            for (Recommendation recommendation : recommendations) {
+                ids.add(approvedGraph.idOf(recommendation.getVertex()));
+            }
+        } finally {
+            graphLock.readLock().unlock();
+        }
+        List<FriendSuggestion> suggestions = new ArrayList<>(recommendations.size());
+        if (recommendations.isEmpty()) {
+            return suggestions;
+        }
+
+        Map<Long, User> users = new HashMap<>();
+        userRepo.findAllById(ids).forEach(found -> users.put(found.getId(), found));
+        for (int i = 0; i < recommendations.size(); i++) {
+            Recommendation recommendation = recommendations.get(i);
+            User suggested = users.get(ids.get(i));
+            if (suggested != null) {
+                suggestions.add(new FriendSuggestion(suggested, recommendation.getMutualFriends(), recommendation.getScore()));
+            }
+        }
+        return suggestions;
     }
 
     /**
      * Validates login credentials.
+     * The user is looked up by email through the repository index instead of scanning every user.
      * @param email the user's email
      * @param password the user's password
      * @return the User object if credentials are valid, null otherwise
      */
     public User login(String email, String password) {
         String hashedPassword = hashPassword(password);
-        for (User user : userRepo.findAll()) {
-            if (user.getEmail().equals(email) && user.getPassword().equals(hashedPassword)) {
-                return user; // Return user if email and password match
-            }
-        }
-        return null; // Return null if no matching user is found
+        return userRepo.findByEmail(email)
+                .filter(user -> user.getPassword().equals(hashedPassword)) // Return user if the password matches
+                .orElse(null); // Return null if no matching user is found
     }
 
 
     /**
      * Retrieves the list of friends for a given user.
-     * A user can be added as a friend by checking all friendships and matching user IDs.
+     * The IDs come from the approved friendship graph and the users are fetched in a single batch.
      * @param user the user whose friends are to be retrieved
      * @return a list of friends of the given user
      */
     public List<User> getFriends(User user){
-
-        List<User> friends = new ArrayList<>();
-
-        for (Friendship f : friendshipRepo.findAll()) {
-            if(f.getIdUser1().equals(user.getId()) && f.getFriendshiprequest().name().equals("APROOVED")){ // adauga de doua or
-                friends.add(userRepo.findOne(f.getIdUser2()).get());
-                User utilizator = userRepo.findOne(f.getIdUser1()).get();
-                userRepo.findOne(f.getIdUser2()).get().addFriend(utilizator);
-
-            }
-            else if(f.getIdUser2().equals(user.getId()) && f.getFriendshiprequest().name().equals("APROOVED")){
-                friends.add(userRepo.findOne(f.getIdUser1()).get());
-                User utilizator = userRepo.findOne(f.getIdUser2()).get();
-                userRepo.findOne(f.getIdUser1()).get().addFriend(utilizator);
-            }
+        long[] friendIds;
+        graphLock.readLock().lock();
+        try {
+            friendIds = approvedGraph.neighbors(user.getId());
+        } finally {
+            graphLock.readLock().unlock();
         }
-        return friends;
-
+        if (friendIds.length == 0) {
+            return new ArrayList<>();
+        }
+        List<Long> ids = new ArrayList<>(friendIds.length);
+        for (long friendId : friendIds) {
+            ids.add(friendId);
+        }
+        return userRepo.findAllById(ids);
     }
 
     /**
@@ -326,6 +593,16 @@ public class Service {
         return userRepo.findOne(idUser);
     }
 
+    /**
+     * Finds the users with the given IDs with a single repository lookup.
+     *
+     * @param ids The IDs of the users to be searched for.
+     * @return The found users, in the order of the given IDs; IDs without a user are skipped.
+     */
+    public List<User> findUsers(Collection<Long> ids) {
+        return userRepo.findAllById(ids);
+    }
+
     /**
      * Manages a friend request by updating its status.
      *
@@ -342,6 +619,17 @@ public class Service {
             }
             friendship.setFriendshiprequest(friendshipRequest);
             friendshipRepo.update(friendship);
+
+            graphLock.writeLock().lock();
+            try {
+                if (friendshipRequest == Friendshiprequest.APROOVED) {
+                    addApprovedFriends(friendship.getIdUser1(), friendship.getIdUser2());
+                } else {
+                    removeApprovedFriends(friendship.getIdUser1(), friendship.getIdUser2());
+                }
+            } finally {
+                graphLock.writeLock().unlock();
+            }
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -361,18 +649,14 @@ public class Service {
 
     /**
      * Retrieves all messages exchanged between two users, sorted chronologically.
+     * Only the conversation of the two users is read, through the repository's conversation index.
      *
      * @param user The user whose messages are being queried.
      * @param friend The friend with whom the messages were exchanged.
      * @return A list of messages between the user and the friend, sorted by date.
      */
     public List<Message> getMessagesBetween(User user, User friend) {
-        Collection<Message> messages = (Collection<Message>) messageRepo.findAll();
-        return messages.stream()
-                .filter(m -> (m.getFrom().equals(user) && m.getTo().contains(userRepo.findOne(friend.getId()).get()))
-                        || (m.getFrom().equals(friend) && m.getTo().contains(userRepo.findOne(user.getId()).get())))
-                .sorted(Comparator.comparing(Message::getDate))
-                .collect(Collectors.toCollection(ArrayList::new));
+        return new ArrayList<>(messageRepo.findConversation(user.getId(), friend.getId()));
     }
 
     /**
@@ -413,12 +697,7 @@ public class Service {
      * @return The user with the specified email, or `null` if no such user exists.
      */
     public User findUserByEmail(String emailInput) {
-        for (User u : userRepo.findAll()) {
-            if (u.getEmail().equals(emailInput)) {
-                return u;
-            }
-        }
-        return null;
+        return userRepo.findByEmail(emailInput).orElse(null);
     }
 
     /**
@@ -483,4 +762,23 @@ public class Service {
 
     }
 
+    /**
+     * Retrieves the page of friendships of a specific user that follows the given cursor
+     * @param pageable the page size and the ID of the last friend seen (null for the first page)
+     * @param user the user whose friendships are to be fetched
+     * @return a CursorPage object containing the friendships of the page and the friend ID to continue from
+     */
+    public CursorPage<Friendship, Long> findUsersFriends(CursorPageable<Long> pageable, User user){
+        return friendshipRepo.getUsersFriendsAfter(pageable, user);
+    }
+
+    /**
+     * Counts the friends of a specific user
+     * @param user the user whose friends are counted
+     * @return the number of friends of the user
+     */
+    public int countUsersFriends(User user){
+        return friendshipRepo.countUsersFriends(user);
+    }
+
 }
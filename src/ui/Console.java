@@ -1,8 +1,11 @@
 package ui;
 
+import domain.CommunityDiameter;
 import domain.Friendship;
+import domain.NetworkStats;
 import domain.User;
 import domain.validators.ValidationException;
+import enums.DiameterMode;
 import javafx.fxml.FXML;
 import service.Service;
 
@@ -38,6 +41,8 @@ public class Console {
         System.out.println("6. Print friendships");
         System.out.println("7. Communities");
         System.out.println("8. Most social community");
+        System.out.println("9. Community of a user");
+        System.out.println("10. Network statistics");
         System.out.println("0. EXIT");
     }
 
@@ -76,6 +81,12 @@ public class Console {
                 case "8":
                     printMostSocialCommunity(); // Print the most social community
                     break;
+                case "9":
+                    printCommunityOfUser(); // Print the community of a user
+                    break;
+                case "10":
+                    printNetworkStats(); // Print triangles and clustering coefficients
+                    break;
                 case "0":
                     System.out.println("Exiting..."); // Exit the application
                     ok = false;
@@ -218,7 +229,53 @@ public class Console {
      */
     @FXML
     void printMostSocialCommunity() {
-        List<Long> mostSocialCommunity = service.getMostSocialCommunity(); // Get the most social community
-        System.out.println("Most social community: " + mostSocialCommunity); // Print the result
+        CommunityDiameter mostSocialCommunity = service.getMostSocialCommunity(DiameterMode.AUTO); // Get the most social community
+        System.out.println("Most social community: " + mostSocialCommunity.getPath()); // Print the result
+        System.out.printf("Diameter %d (%s), computed in %.1f ms%n", mostSocialCommunity.getDiameter(),
+                mostSocialCommunity.isExact() ? "exact" : "lower bound", mostSocialCommunity.getElapsedNanos() / 1e6);
+    }
+
+    /**
+     * Prints the community of a user read from the console.
+     */
+    void printCommunityOfUser() {
+        Scanner scan = new Scanner(System.in);
+        System.out.println("Id: ");
+
+        try {
+            Long id = Long.parseLong(scan.nextLine()); // Read user ID
+            List<Long> community = service.getCommunityOf(id); // Get the user's community
+            if (community.isEmpty()) {
+                System.out.println("User " + id + " does not exist.");
+            } else {
+                System.out.println("Community of " + id + " (" + community.size() + " users): " + community);
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid input: ID must be a number.");
+        }
+    }
+
+    /**
+     * Prints the triangle count and clustering coefficients of the network,
+     * then the clustering coefficient of a user if an ID is entered.
+     */
+    void printNetworkStats() {
+        NetworkStats stats = service.getNetworkStats(); // Count triangles over approved friendships
+        System.out.println("Triangles: " + stats.getTriangles());
+        System.out.printf("Transitivity: %.4f, average clustering coefficient: %.4f, computed in %.1f ms%n",
+                stats.getTransitivity(), stats.getAverageClustering(), stats.getElapsedNanos() / 1e6);
+
+        Scanner scan = new Scanner(System.in);
+        System.out.println("Id (empty to skip): ");
+        String input = scan.nextLine();
+        if (input.isBlank()) {
+            return;
+        }
+        try {
+            Long id = Long.parseLong(input.trim()); // Read user ID
+            System.out.printf("Clustering coefficient of %d: %.4f%n", id, service.getClusteringCoefficient(id));
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid input: ID must be a number.");
+        }
     }
-}
\ No newline at end of file
+}
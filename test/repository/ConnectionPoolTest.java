@@ -0,0 +1,238 @@
+package repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Checks the limits, recycling and statement cache of ConnectionPool.
+ * The pool runs on stand-in connections that record what the pool does with them.
+ */
+class ConnectionPoolTest {
+    private final List<StandIn> opened = new ArrayList<>(); // Physical connections, in the order the pool opened them
+    private ConnectionPool pool;
+
+    /**
+     * What happened to one stand-in physical connection.
+     */
+    private static final class StandIn {
+        private volatile boolean valid = true;
+        private volatile boolean closed = false;
+        private int prepared = 0; // Statements prepared on the connection itself
+    }
+
+    @AfterEach
+    void closePool() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    @Test
+    void borrowingFromAFullPoolTimesOut() throws SQLException {
+        pool = new ConnectionPool(this::connection, 2, 100, 60_000, 1);
+        pool.getConnection();
+        pool.getConnection();
+
+        long start = System.nanoTime();
+        assertThrows(SQLException.class, pool::getConnection);
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 100);
+        assertEquals(1, pool.getTimeoutCount());
+        assertEquals(2, pool.getActiveCount());
+        assertEquals(2, opened.size()); // No connection is opened past the maximum size
+    }
+
+    @Test
+    void aBorrowerWaitsUntilAConnectionIsReturned() throws Exception {
+        pool = new ConnectionPool(this::connection, 1, 5_000, 60_000, 1);
+        Connection first = pool.getConnection();
+        CompletableFuture<Connection> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return pool.getConnection();
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        });
+
+        awaitUntil(() -> pool.getWaitingCount() == 1);
+        assertFalse(waiting.isDone());
+        first.close();
+
+        Connection second = waiting.get(5, TimeUnit.SECONDS);
+        assertFalse(second.isClosed());
+        assertEquals(1, opened.size()); // The waiter got the returned connection
+        assertEquals(0, pool.getTimeoutCount());
+    }
+
+    @Test
+    void closingAConnectionReturnsItToThePool() throws SQLException {
+        pool = new ConnectionPool(this::connection, 2, 1_000, 60_000, 1);
+        Connection connection = pool.getConnection();
+
+        connection.close();
+
+        assertTrue(connection.isClosed());
+        assertFalse(opened.get(0).closed); // Only the handle is closed
+        assertEquals(0, pool.getActiveCount());
+        assertEquals(1, pool.getIdleCount());
+        assertThrows(SQLException.class, () -> connection.prepareStatement("SELECT 1"));
+
+        pool.getConnection();
+        assertEquals(1, opened.size());
+        assertEquals(0, pool.getIdleCount());
+    }
+
+    @Test
+    void anInvalidIdleConnectionIsReplaced() throws SQLException {
+        pool = new ConnectionPool(this::connection, 2, 1_000, 60_000, 1);
+        pool.getConnection().close();
+        opened.get(0).valid = false;
+
+        Connection connection = pool.getConnection();
+
+        assertFalse(connection.isClosed());
+        assertEquals(2, opened.size());
+        assertTrue(opened.get(0).closed);
+        assertEquals(1, pool.getDiscardedCount());
+    }
+
+    @Test
+    void idleConnectionsAreClosedAfterTheIdleTimeout() throws SQLException {
+        pool = new ConnectionPool(this::connection, 2, 1_000, 50, 1);
+        Connection kept = pool.getConnection();
+        pool.getConnection().close();
+
+        awaitUntil(() -> pool.getIdleCount() == 0);
+
+        assertTrue(opened.get(1).closed);
+        assertFalse(opened.get(0).closed); // Borrowed connections are never reaped
+        assertFalse(kept.isClosed());
+        assertEquals(1, pool.getDiscardedCount());
+    }
+
+    @Test
+    void aClosedStatementIsReusedForTheSameSql() throws SQLException {
+        pool = new ConnectionPool(this::connection, 1, 1_000, 60_000, 1);
+        try (Connection connection = pool.getConnection()) {
+            connection.prepareStatement("SELECT 1").close();
+            connection.prepareStatement("SELECT 2").close();
+        }
+        try (Connection connection = pool.getConnection()) {
+            PreparedStatement statement = connection.prepareStatement("SELECT 1");
+            assertFalse(statement.isClosed());
+            statement.close();
+        }
+
+        assertEquals(2, opened.get(0).prepared);
+        assertEquals(1, pool.getStatementCacheHitCount());
+        assertEquals(2, pool.getStatementCacheMissCount());
+    }
+
+    @Test
+    void withoutAStatementCacheEveryStatementIsPrepared() throws SQLException {
+        pool = new ConnectionPool(this::connection, 1, 1_000, 60_000, 1, 0);
+        try (Connection connection = pool.getConnection()) {
+            connection.prepareStatement("SELECT 1").close();
+            connection.prepareStatement("SELECT 1").close();
+        }
+
+        assertEquals(2, opened.get(0).prepared);
+        assertEquals(0, pool.getStatementCacheHitCount());
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Condition not met within 5 seconds");
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Opens a stand-in connection and records it.
+     * @return the connection
+     */
+    private synchronized Connection connection() {
+        StandIn standIn = new StandIn();
+        opened.add(standIn);
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "prepareStatement":
+                            standIn.prepared++;
+                            return statement();
+                        case "isValid":
+                            return standIn.valid;
+                        case "getAutoCommit":
+                            return true;
+                        case "isClosed":
+                            return standIn.closed;
+                        case "close":
+                            standIn.closed = true;
+                            return null;
+                        default:
+                            return standardMethod(proxy, method.getName(), method.getReturnType(), args);
+                    }
+                });
+    }
+
+    private static PreparedStatement statement() {
+        boolean[] closed = {false};
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "isClosed":
+                            return closed[0];
+                        case "close":
+                            closed[0] = true;
+                            return null;
+                        default:
+                            return standardMethod(proxy, method.getName(), method.getReturnType(), args);
+                    }
+                });
+    }
+
+    /**
+     * Answers the calls a stand-in does not care about: Object methods, setters and the pool's housekeeping.
+     */
+    private static Object standardMethod(Object proxy, String name, Class<?> returnType, Object[] args) {
+        switch (name) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "stand-in " + proxy.getClass().getInterfaces()[0].getSimpleName();
+            default:
+                if (returnType == boolean.class) {
+                    return false;
+                }
+                if (returnType == int.class) {
+                    return 0;
+                }
+                if (returnType == long.class) {
+                    return 0L;
+                }
+                return null;
+        }
+    }
+}
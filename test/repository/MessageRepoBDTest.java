@@ -0,0 +1,278 @@
+package repository;
+
+import domain.Message;
+import domain.User;
+import domain.validators.UserValidator;
+import metrics.MetricsRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.lang.reflect.Proxy;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Checks that MessageRepoBD materializes any number of messages with a fixed number of SQL statements.
+ * The repositories run on a stand-in database that answers the queries they issue from in-memory rows,
+ * behind a ConnectionPool whose metrics count every statement executed.
+ */
+class MessageRepoBDTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private final List<Map<String, Object>> users = new ArrayList<>(); // Rows of the users table
+    private final List<Map<String, Object>> messages = new ArrayList<>(); // Rows of the Messages table
+    private final MetricsRegistry metrics = new MetricsRegistry();
+    private ConnectionPool pool;
+    private MessageRepoBD repository;
+
+    /**
+     * Fills the stand-in tables with a chain of messages, each replying to the one before.
+     * Message i goes from user i to user i + 1, wrapping around the users.
+     * @param count the number of messages
+     * @param userCount the number of users; with 2 they share a single conversation
+     */
+    private void createMessages(int count, int userCount) {
+        for (long id = 1; id <= userCount; id++) {
+            addUser(id, "User" + id);
+        }
+        for (long id = 1; id <= count; id++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("id_message", id);
+            row.put("id_from", (id - 1) % userCount + 1);
+            row.put("id_to", id % userCount + 1);
+            row.put("message", "message " + id);
+            row.put("date", Timestamp.valueOf(START.plusMinutes(id)));
+            row.put("reply_id", id > 1 ? id - 1 : null);
+            messages.add(row);
+        }
+        pool = new ConnectionPool(this::connection, 2, 1_000, 60_000, 1);
+        pool.setMetrics(metrics);
+        repository = new MessageRepoBD(new UserRepoBD(pool, new UserValidator()), pool);
+    }
+
+    private void addUser(Long id, String firstName) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("user_id", id);
+        row.put("firstname", firstName);
+        row.put("lastname", "Test");
+        row.put("email", firstName.toLowerCase() + "@test.com");
+        row.put("pasword", "hash");
+        users.add(row);
+    }
+
+    @AfterEach
+    void closePool() {
+        if (pool != null) {
+            pool.close();
+        }
+    }
+
+    private long statements() {
+        return metrics.counter("sql.statements").sum();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 1_000})
+    void findAllIssuesTwoStatementsWhateverTheNumberOfMessages(int count) {
+        createMessages(count, count + 1);
+
+        List<Message> found = new ArrayList<>();
+        repository.findAll().forEach(found::add);
+
+        assertEquals(2, statements()); // The messages with their replies, then every user they reference
+        assertEquals(count, found.size());
+        assertNull(found.get(0).getReply());
+        for (int i = 1; i < count; i++) {
+            assertSame(found.get(i - 1), found.get(i).getReply());
+            assertSame(found.get(i - 1).getTo().get(0), found.get(i).getFrom()); // Users are resolved once
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 1_000})
+    void findConversationIssuesTwoStatementsWhateverTheNumberOfMessages(int count) {
+        createMessages(count, 2);
+
+        List<Message> found = repository.findConversation(1L, 2L);
+
+        assertEquals(2, statements());
+        assertEquals(count, found.size());
+        assertEquals("User1", found.get(0).getFrom().getFirstName());
+        assertEquals("User2", found.get(0).getTo().get(0).getFirstName());
+        assertSame(found.get(0).getFrom(), found.get(1).getTo().get(0));
+    }
+
+    @Test
+    void findOneReadsTheReplyWithTheSameQuery() {
+        createMessages(3, 4);
+
+        Message message = repository.findOne(3L).orElseThrow();
+
+        assertEquals(2, statements());
+        assertEquals("message 2", message.getReply().getMessage());
+        assertEquals("User2", message.getReply().getFrom().getFirstName());
+    }
+
+    /**
+     * Opens a stand-in connection to the in-memory tables.
+     * @return the connection
+     */
+    private Connection connection() {
+        boolean[] closed = {false};
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "prepareStatement":
+                            return statement((String) args[0]);
+                        case "createArrayOf":
+                            return array((Object[]) args[1]);
+                        case "isValid":
+                        case "getAutoCommit":
+                            return true;
+                        case "isClosed":
+                            return closed[0];
+                        case "close":
+                            closed[0] = true;
+                            return null;
+                        default:
+                            return standardMethod(proxy, method.getName(), method.getReturnType(), args);
+                    }
+                });
+    }
+
+    /**
+     * Prepares a stand-in statement for one of the queries of UserRepoBD and MessageRepoBD.
+     * @param sql the query
+     * @return the statement
+     */
+    private PreparedStatement statement(String sql) {
+        Map<Integer, Object> parameters = new HashMap<>();
+        boolean[] closed = {false};
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "setLong":
+                        case "setArray":
+                            parameters.put((Integer) args[0], args[1]);
+                            return null;
+                        case "executeQuery":
+                            return resultSet(query(sql, parameters));
+                        case "isClosed":
+                            return closed[0];
+                        case "close":
+                            closed[0] = true;
+                            return null;
+                        default:
+                            return standardMethod(proxy, method.getName(), method.getReturnType(), args);
+                    }
+                });
+    }
+
+    private List<Map<String, Object>> query(String sql, Map<Integer, Object> parameters) throws Exception {
+        if (sql.startsWith("SELECT * FROM users WHERE user_id = ")) {
+            List<Object> ids = sql.contains("ANY(?)")
+                    ? Arrays.asList((Object[]) ((Array) parameters.get(1)).getArray())
+                    : List.of(parameters.get(1));
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (Map<String, Object> user : users) {
+                if (ids.contains(user.get("user_id"))) {
+                    rows.add(user);
+                }
+            }
+            return rows;
+        }
+        if (sql.contains("FROM Messages m LEFT JOIN Messages r")) {
+            Object id = sql.contains("WHERE m.id_message = ?") ? parameters.get(1) : null;
+            List<Map<String, Object>> rows = new ArrayList<>();
+            for (Map<String, Object> message : messages) {
+                if (id == null || id.equals(message.get("id_message"))) {
+                    rows.add(withReply(message));
+                }
+            }
+            return rows; // Only findConversation filters on the users; its tests have a single conversation, in date order
+        }
+        throw new IllegalArgumentException("Unexpected query: " + sql);
+    }
+
+    private Map<String, Object> withReply(Map<String, Object> message) {
+        Map<String, Object> row = new HashMap<>(message);
+        Object replyId = message.get("reply_id");
+        for (Map<String, Object> reply : messages) {
+            if (replyId != null && replyId.equals(reply.get("id_message"))) {
+                row.put("reply_to", reply.get("id_to"));
+                row.put("reply_from", reply.get("id_from"));
+                row.put("reply_message", reply.get("message"));
+                row.put("reply_date", reply.get("date"));
+            }
+        }
+        return row;
+    }
+
+    private static ResultSet resultSet(List<Map<String, Object>> rows) {
+        int[] position = {-1};
+        boolean[] wasNull = {false};
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "next":
+                            return ++position[0] < rows.size();
+                        case "getLong":
+                        case "getString":
+                        case "getTimestamp":
+                            Object value = rows.get(position[0]).get((String) args[0]);
+                            wasNull[0] = value == null;
+                            return method.getName().equals("getLong") && value == null ? 0L : value;
+                        case "wasNull":
+                            return wasNull[0];
+                        default:
+                            return standardMethod(proxy, method.getName(), method.getReturnType(), args);
+                    }
+                });
+    }
+
+    private static Array array(Object[] elements) {
+        return (Array) Proxy.newProxyInstance(Array.class.getClassLoader(), new Class<?>[]{Array.class},
+                (proxy, method, args) -> method.getName().equals("getArray")
+                        ? elements : standardMethod(proxy, method.getName(), method.getReturnType(), args));
+    }
+
+    /**
+     * Answers the calls a stand-in does not care about: Object methods, setters and the pool's housekeeping.
+     */
+    private static Object standardMethod(Object proxy, String name, Class<?> returnType, Object[] args) {
+        switch (name) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "stand-in " + proxy.getClass().getInterfaces()[0].getSimpleName();
+            default:
+                if (returnType == boolean.class) {
+                    return false;
+                }
+                if (returnType == int.class) {
+                    return 0;
+                }
+                if (returnType == long.class) {
+                    return 0L;
+                }
+                return null;
+        }
+    }
+}